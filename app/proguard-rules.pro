@@ -30,9 +30,6 @@
 -keep class com.ominous.tylerutils.annotation.*
 
 # Inner classes get built via reflection, need to keep them
--keep class com.ominous.quickweather.api.openmeteo.OpenMeteoForecast* { *; }
--keep class com.ominous.quickweather.api.openweather.OpenWeatherOneCall* { *; }
--keep class com.ominous.quickweather.api.openweather.OpenWeatherForecast* { *; }
 -keep class com.ominous.tylerutils.plugins.GithubUtils* { *; }
 
 -dontwarn org.bouncycastle.jsse.BCSSLSocket
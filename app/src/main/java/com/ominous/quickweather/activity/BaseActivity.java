@@ -21,6 +21,7 @@ package com.ominous.quickweather.activity;
 
 import android.app.ActivityManager;
 import android.app.Application;
+import android.content.ComponentCallbacks2;
 import android.content.Intent;
 import android.graphics.BitmapFactory;
 import android.os.Build;
@@ -56,6 +57,7 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.ominous.quickweather.R;
 import com.ominous.quickweather.api.Gadgetbridge;
 import com.ominous.quickweather.data.CurrentWeather;
+import com.ominous.quickweather.data.ProviderUnavailableException;
 import com.ominous.quickweather.data.WeatherCardType;
 import com.ominous.quickweather.data.WeatherDataManager;
 import com.ominous.quickweather.data.WeatherDatabase;
@@ -153,11 +155,16 @@ public abstract class BaseActivity extends AppCompatActivity implements ILifecyc
     }
 
     protected void getWeather() {
+        getWeather(WeatherDataManager.RefreshMode.STALE_WHILE_REVALIDATE);
+    }
+
+    protected void getWeather(WeatherDataManager.RefreshMode refreshMode) {
         WeatherDataManager.getInstance().getWeatherAsync(
                 getApplication().getApplicationContext(),
                 weatherViewModel.getWeatherModel(),
                 false,
-                date);
+                date,
+                refreshMode);
 
         weatherWorkManager.enqueueNotificationWorker(true);
 
@@ -179,7 +186,7 @@ public abstract class BaseActivity extends AppCompatActivity implements ILifecyc
 
         setSupportActionBar(toolbar);
 
-        swipeRefreshLayout.setOnRefreshListener(this::getWeather);
+        swipeRefreshLayout.setOnRefreshListener(() -> getWeather(WeatherDataManager.RefreshMode.BLOCKING));
         snackbarHelper = new SnackbarHelper(coordinatorLayout);
         dialogHelper = new DialogHelper(this);
 
@@ -206,11 +213,30 @@ public abstract class BaseActivity extends AppCompatActivity implements ILifecyc
 
     }
 
+    //Notifications posted by older versions carry a serialized alert that can no longer be read
+    private Bundle getAlertExtras() {
+        try {
+            Bundle bundle = getIntent().getExtras();
+
+            if (bundle != null) {
+                //size() unparcels the extras, which throws on an unreadable alert
+                bundle.size();
+            }
+
+            return bundle;
+        } catch (RuntimeException e) {
+            getIntent().replaceExtras((Bundle) null);
+
+            return null;
+        }
+    }
+
     protected void initViewModel() {
         weatherViewModel.getWeatherModel().observe(this, weatherModel -> {
             swipeRefreshLayout.setRefreshing(
                     weatherModel.status == WeatherModel.WeatherStatus.UPDATING ||
-                            weatherModel.status == WeatherModel.WeatherStatus.OBTAINING_LOCATION);
+                            weatherModel.status == WeatherModel.WeatherStatus.OBTAINING_LOCATION ||
+                            (weatherModel.isRefreshing && weatherModel.freshness == WeatherModel.Freshness.EXPIRED));
 
             switch (weatherModel.status) {
                 case NO_NEW_DATA:
@@ -228,6 +254,11 @@ public abstract class BaseActivity extends AppCompatActivity implements ILifecyc
                         NotificationUtils.updatePersistentNotification(this, weatherModel.weatherLocation, weatherModel.currentWeather);
                     }
 
+                    if (weatherModel.freshness != null &&
+                            weatherModel.freshness != WeatherModel.Freshness.FRESH) {
+                        snackbarHelper.notifyStaleWeather(weatherModel.currentWeather.timestamp);
+                    }
+
                     if (weatherModel.currentWeather.alerts != null) {
                         Promise.create((a) -> {
                             for (CurrentWeather.Alert alert : weatherModel.currentWeather.alerts) {
@@ -235,21 +266,20 @@ public abstract class BaseActivity extends AppCompatActivity implements ILifecyc
                             }
                         });
 
-                        Bundle bundle = getIntent().getExtras();
-                        CurrentWeather.Alert bundleAlert;
+                        Bundle bundle = getAlertExtras();
 
-                        if (bundle != null &&
-                                (bundleAlert = (CurrentWeather.Alert) bundle.getSerializable(MainActivity.EXTRA_ALERT)) != null) {
+                        if (bundle != null && bundle.containsKey(MainActivity.EXTRA_ALERT_ID)) {
+                            int bundleAlertId = bundle.getInt(MainActivity.EXTRA_ALERT_ID);
                             Intent intent = getIntent();
 
-                            intent.removeExtra(MainActivity.EXTRA_ALERT);
+                            intent.removeExtra(MainActivity.EXTRA_ALERT_ID);
                             intent.setAction(Intent.ACTION_MAIN);
 
                             setIntent(intent);
 
                             for (CurrentWeather.Alert alert : weatherModel.currentWeather.alerts) {
-                                if (bundleAlert.getId() == alert.getId()) {
-                                    dialogHelper.showAlert(bundleAlert);
+                                if (bundleAlertId == alert.getId()) {
+                                    dialogHelper.showAlert(alert);
                                 }
                             }
 
@@ -257,8 +287,6 @@ public abstract class BaseActivity extends AppCompatActivity implements ILifecyc
                         break;
                     }
 
-                    //TODO snackbar if currentweather is out-of-date
-
                     break;
                 case OBTAINING_LOCATION:
                     snackbarHelper.notifyObtainingLocation();
@@ -275,6 +303,11 @@ public abstract class BaseActivity extends AppCompatActivity implements ILifecyc
                 case ERROR_LOCATION_UNAVAILABLE:
                     snackbarHelper.notifyNullLoc();
                     break;
+                case ERROR_PROVIDER_UNAVAILABLE:
+                    snackbarHelper.notifyProviderUnavailable(
+                            weatherModel.error instanceof ProviderUnavailableException ?
+                                    ((ProviderUnavailableException) weatherModel.error).retryAt : 0);
+                    break;
             }
         });
     }
@@ -391,11 +424,20 @@ public abstract class BaseActivity extends AppCompatActivity implements ILifecyc
     public void onLowMemory() {
         super.onLowMemory();
 
+        WeatherDataManager.getInstance().trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+
         for (LifecycleListener lifecycleListener : lifecycleListeners) {
             lifecycleListener.onLowMemory();
         }
     }
 
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+
+        WeatherDataManager.getInstance().trimMemory(level);
+    }
+
     @Override
     public void addLifecycleListener(LifecycleListener lifecycleListener) {
         this.lifecycleListeners.add(lifecycleListener);
@@ -34,12 +34,14 @@ import com.ominous.quickweather.R;
 import com.ominous.quickweather.data.CurrentWeather;
 import com.ominous.quickweather.data.WeatherModel;
 import com.ominous.quickweather.util.ColorHelper;
+import com.ominous.quickweather.util.ZoneTimeHelper;
 import com.ominous.tylerutils.browser.CustomTabs;
 import com.ominous.tylerutils.util.ColorUtils;
 import com.ominous.tylerutils.util.LocaleUtils;
 import com.ominous.tylerutils.util.WindowUtils;
 
-import java.util.Calendar;
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
 import java.util.Date;
 import java.util.Locale;
 
@@ -86,14 +88,15 @@ public class ForecastActivity extends BaseActivity {
     protected void updateWeather(WeatherModel weatherModel) {
         super.updateWeather(weatherModel);
 
-        long thisDate = LocaleUtils.getStartOfDay(date, weatherModel.currentWeather.timezone);
+        ZoneTimeHelper.Day thisDay = ZoneTimeHelper.getInstance(weatherModel.currentWeather.timezone)
+                .getDay(date.getTime());
 
         boolean isToday = false;
         CurrentWeather.DataPoint thisDailyData = null;
-        for (int i = 0, l = weatherModel.currentWeather.daily.length; i < l; i++) {
-            CurrentWeather.DataPoint dailyData = weatherModel.currentWeather.daily[i];
+        for (int i = 0, l = weatherModel.currentWeather.daily.size(); i < l; i++) {
+            CurrentWeather.DataPoint dailyData = weatherModel.currentWeather.daily.get(i);
 
-            if (LocaleUtils.getStartOfDay(new Date(dailyData.dt), weatherModel.currentWeather.timezone) == thisDate) {
+            if (thisDay.contains(dailyData.getDt())) {
                 thisDailyData = dailyData;
 
                 isToday = i == 0;
@@ -102,25 +105,23 @@ public class ForecastActivity extends BaseActivity {
         }
 
         if (thisDailyData != null) {
-            Calendar calendar = Calendar.getInstance(Locale.getDefault());
-            calendar.setTimeInMillis(thisDailyData.dt);
-            calendar.setTimeZone(weatherModel.currentWeather.timezone);
+            DayOfWeek dayOfWeek = thisDay.date().getDayOfWeek();
 
             toolbar.setTitle(getString(R.string.format_forecast_title,
-                    isToday ? getString(R.string.text_today) : calendar.getDisplayName(Calendar.DAY_OF_WEEK, Calendar.SHORT, Locale.getDefault()),
+                    isToday ? getString(R.string.text_today) : dayOfWeek.getDisplayName(TextStyle.SHORT, Locale.getDefault()),
                     weatherModel.weatherLocation.isCurrentLocation ? getString(R.string.text_current_location) : weatherModel.weatherLocation.name));
             toolbar.setSubtitle(LocaleUtils.formatDate(
                     Locale.getDefault(),
                     date));
 
             toolbar.setContentDescription(getString(R.string.format_forecast_title,
-                    isToday ? getString(R.string.text_today) : calendar.getDisplayName(Calendar.DAY_OF_WEEK, Calendar.LONG, Locale.getDefault()),
+                    isToday ? getString(R.string.text_today) : dayOfWeek.getDisplayName(TextStyle.FULL, Locale.getDefault()),
                     weatherModel.weatherLocation.isCurrentLocation ? getString(R.string.text_current_location) : weatherModel.weatherLocation.name));
 
             ColorHelper colorHelper = ColorHelper.getInstance(this);
 
             int color = colorHelper.getColorFromTemperature(
-                    (thisDailyData.minTemp + thisDailyData.maxTemp) / 2,
+                    (thisDailyData.getMinTemp() + thisDailyData.getMaxTemp()) / 2,
                     false,
                     ColorUtils.isNightModeActive(this));
             int darkColor = ColorUtils.getDarkenedColor(color);
@@ -66,7 +66,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class MainActivity extends BaseActivity {
-    public final static String EXTRA_ALERT = "EXTRA_ALERT";
+    public final static String EXTRA_ALERT_ID = "EXTRA_ALERT_ID";
     public final static String ACTION_OPENALERT = "com.ominous.quickweather.ACTION_OPENALERT";
     private NavigationView navigationView;
     private ActionBarDrawerToggle drawerToggle;
@@ -271,7 +271,7 @@ public class MainActivity extends BaseActivity {
         ColorHelper colorHelper = ColorHelper.getInstance(this);
 
         int color = colorHelper.getColorFromTemperature(
-                weatherModel.currentWeather.current.temp,
+                weatherModel.currentWeather.current.getTemp(),
                 false,
                 ColorUtils.isNightModeActive(this));
         int darkColor = ColorUtils.getDarkenedColor(color);
@@ -63,6 +63,8 @@ import com.ominous.quickweather.api.ApiKeyState;
 import com.ominous.quickweather.api.LibreTranslate;
 import com.ominous.quickweather.api.openmeteo.OpenMeteo;
 import com.ominous.quickweather.api.openweather.OpenWeatherMap;
+import com.ominous.quickweather.api.rainviewer.RainViewerTileCache;
+import com.ominous.quickweather.data.RefreshMetrics;
 import com.ominous.quickweather.data.WeatherDatabase;
 import com.ominous.quickweather.dialog.OnLocationChosenListener;
 import com.ominous.quickweather.location.LocationDisabledException;
@@ -1442,6 +1444,7 @@ public class SettingsActivity extends OnboardingActivity2 implements ILifecycleA
         private final static String KEY_REOPEN_ADVANCED_MENU = "reopen";
         private RadarQuality radarQuality = null;
         private Enabled expandedDetails = null;
+        private Enabled openMeteoPublicBackup = null;
         private MaterialButton buttonLanguage;
         private MaterialButton buttonRadarTheme;
         private MaterialButton buttonTranslation;
@@ -1462,6 +1465,18 @@ public class SettingsActivity extends OnboardingActivity2 implements ILifecycleA
             buttonLanguage = v.findViewById(R.id.button_app_language);
             buttonRadarTheme = v.findViewById(R.id.button_radar_theme);
             buttonTranslation = v.findViewById(R.id.button_translation_settings);
+
+            //Hidden, so refresh timings can be attached to bug reports
+            v.findViewById(R.id.text_advanced_title).setOnLongClickListener(view -> {
+                Promise.create((a) -> {
+                    String report = RefreshMetrics.getInstance(getContext()).getReport() + "\n\n" +
+                            RainViewerTileCache.getInstance(getContext()).getReport();
+
+                    SettingsActivity.this.runOnUiThread(() -> dialogHelper.showDiagnosticsDialog(report));
+                });
+
+                return true;
+            });
         }
 
         @Override
@@ -1476,11 +1491,16 @@ public class SettingsActivity extends OnboardingActivity2 implements ILifecycleA
                 expandedDetails = weatherPreferences.getExpandedDetails();
             }
 
+            if (openMeteoPublicBackup == null) {
+                openMeteoPublicBackup = weatherPreferences.getOpenMeteoPublicBackup();
+            }
+
             new UnitsButtonGroup<RadarQuality>(v, radarQuality ->
                     weatherPreferences
                             .setRadarQuality(this.radarQuality = radarQuality))
                     .addButton(R.id.button_radar_high, RadarQuality.HIGH)
                     .addButton(R.id.button_radar_low, RadarQuality.LOW)
+                    .addButton(R.id.button_radar_auto, RadarQuality.AUTO)
                     .selectButton(radarQuality);
 
             new UnitsButtonGroup<Enabled>(v, expandedDetails ->
@@ -1490,6 +1510,13 @@ public class SettingsActivity extends OnboardingActivity2 implements ILifecycleA
                     .addButton(R.id.button_details_expand_enabled, Enabled.ENABLED)
                     .selectButton(expandedDetails);
 
+            new UnitsButtonGroup<Enabled>(v, openMeteoPublicBackup ->
+                    weatherPreferences
+                            .setOpenMeteoPublicBackup(this.openMeteoPublicBackup = openMeteoPublicBackup))
+                    .addButton(R.id.button_openmeteo_backup_disabled, Enabled.DISABLED)
+                    .addButton(R.id.button_openmeteo_backup_enabled, Enabled.ENABLED)
+                    .selectButton(openMeteoPublicBackup);
+
             LocaleListCompat llc = AppCompatDelegate.getApplicationLocales();
             Locale currentLocale = llc.isEmpty() ? null : llc.get(0);
 
@@ -1558,7 +1585,7 @@ public class SettingsActivity extends OnboardingActivity2 implements ILifecycleA
 
         @Override
         public void onRestoreInstanceState(@NonNull Bundle savedInstanceState) {
-            radarQuality = IPreferenceEnum.from(savedInstanceState.getString(KEY_RADARQUALITY), RadarQuality.HIGH);
+            radarQuality = IPreferenceEnum.from(savedInstanceState.getString(KEY_RADARQUALITY), RadarQuality.AUTO);
 
             if (savedInstanceState.getBoolean(KEY_REOPEN_ADVANCED_MENU)) {
                 buttonLanguage.post(() -> openAdvancedMenu(true));
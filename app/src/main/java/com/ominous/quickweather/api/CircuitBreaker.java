@@ -0,0 +1,114 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api;
+
+/**
+ * Stops calling a provider that keeps failing. After enough consecutive failures the breaker
+ * opens and requests fail fast until it is time to let a single trial request through. A failed
+ * trial reopens the breaker for twice as long, up to a limit.
+ */
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final long baseOpenDuration;
+    private final long maxOpenDuration;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openDuration;
+    private long openUntil = 0;
+    private long trialStartedAt = 0;
+
+    public CircuitBreaker(int failureThreshold, long baseOpenDuration, long maxOpenDuration) {
+        this.failureThreshold = failureThreshold;
+        this.baseOpenDuration = baseOpenDuration;
+        this.maxOpenDuration = maxOpenDuration;
+        this.openDuration = baseOpenDuration;
+    }
+
+    public synchronized boolean allowRequest(long now) {
+        switch (state) {
+            case OPEN:
+                if (now < openUntil) {
+                    return false;
+                }
+
+                state = State.HALF_OPEN;
+                trialStartedAt = now;
+                return true;
+            case HALF_OPEN:
+                //only one trial at a time, unless the last one never reported back
+                if (now - trialStartedAt < baseOpenDuration) {
+                    return false;
+                }
+
+                trialStartedAt = now;
+                return true;
+            case CLOSED:
+            default:
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openDuration = baseOpenDuration;
+    }
+
+    public synchronized void onFailure(long now) {
+        consecutiveFailures++;
+
+        if (state == State.HALF_OPEN) {
+            openDuration = Math.min(openDuration * 2, maxOpenDuration);
+            open(now + openDuration);
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open(now + openDuration);
+        }
+    }
+
+    //Used when the server says how long to back off, e.g. with a Retry-After on a 429
+    public synchronized void openUntil(long until) {
+        open(Math.max(until, state == State.OPEN ? openUntil : 0));
+    }
+
+    public synchronized State getState(long now) {
+        return state == State.OPEN && now >= openUntil ? State.HALF_OPEN : state;
+    }
+
+    //When the next request will be let through, or 0 if the breaker is closed
+    public synchronized long getRetryAt() {
+        return switch (state) {
+            case CLOSED -> 0;
+            case OPEN -> openUntil;
+            case HALF_OPEN -> trialStartedAt + baseOpenDuration;
+        };
+    }
+
+    private void open(long until) {
+        state = State.OPEN;
+        openUntil = until;
+    }
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api;
+
+/**
+ * Splits an hourly series into day windows with one pass over the timestamps, so each day can
+ * be reduced straight from the provider's primitive arrays. Both series must be sorted, as the
+ * providers return them.
+ */
+public class DailyWindows {
+    public final static IDoubleReducer MEAN = (values, from, to) -> {
+        double total = 0;
+
+        for (int i = from; i < to; i++) {
+            total += values[i];
+        }
+
+        return total / (to - from);
+    };
+
+    //Truncated, as the integer fields were before
+    public final static IIntReducer INT_MEAN = (values, from, to) -> {
+        long total = 0;
+
+        for (int i = from; i < to; i++) {
+            total += values[i];
+        }
+
+        return to > from ? (int) (total / (to - from)) : 0;
+    };
+
+    //The most frequent WMO weather code (0-99), or -1 without any. Ties go to the higher, more
+    //severe code
+    public final static IIntReducer MODE = (values, from, to) -> {
+        int[] counts = new int[100];
+        int mode = -1;
+
+        for (int i = from; i < to; i++) {
+            int code = values[i];
+
+            if (code < 0 || code >= counts.length) {
+                continue;
+            }
+
+            counts[code]++;
+
+            if (mode == -1 || counts[code] > counts[mode] || (counts[code] == counts[mode] && code > mode)) {
+                mode = code;
+            }
+        }
+
+        return mode;
+    };
+
+    //The chance of precipitation at any point in the window, in percent. Hours close together
+    //are strongly correlated, so each block of hours counts once with its highest probability,
+    //and only the blocks are treated as independent
+    public final static IIntReducer PRECIPITATION_PROBABILITY = (values, from, to) -> {
+        final int blockLength = 6;
+        double dryProbability = 1;
+
+        for (int blockStart = from; blockStart < to; blockStart += blockLength) {
+            int blockMax = 0;
+
+            for (int i = blockStart, l = Math.min(blockStart + blockLength, to); i < l; i++) {
+                blockMax = Math.max(blockMax, values[i]);
+            }
+
+            dryProbability *= 1 - Math.min(blockMax, 100) / 100.;
+        }
+
+        return (int) Math.round((1 - dryProbability) * 100);
+    };
+
+    private final int[] windowStarts;
+    private final int[] windowEnds;
+
+    //An hour belongs to the last day that started at or before it. Hours before the first day
+    //are skipped, and each window holds at most maxHoursPerDay hours
+    public DailyWindows(long[] hourlyTimes, long[] dayStarts, int maxHoursPerDay) {
+        windowStarts = new int[dayStarts.length];
+        windowEnds = new int[dayStarts.length];
+
+        for (int day = 0, hour = 0, days = dayStarts.length, hours = hourlyTimes.length; day < days; day++) {
+            while (hour < hours && hourlyTimes[hour] < dayStarts[day]) {
+                hour++;
+            }
+
+            long nextDayStart = day + 1 < days ? dayStarts[day + 1] : Long.MAX_VALUE;
+            int end = hour;
+
+            while (end < hours && hourlyTimes[end] < nextDayStart) {
+                end++;
+            }
+
+            windowStarts[day] = hour;
+            windowEnds[day] = Math.min(end, hour + maxHoursPerDay);
+            hour = end;
+        }
+    }
+
+    public int getDayCount() {
+        return windowStarts.length;
+    }
+
+    public boolean isEmpty(int day) {
+        return windowStarts[day] == windowEnds[day];
+    }
+
+    public double reduce(int day, double[] hourlyValues, IDoubleReducer reducer) {
+        return reducer.reduce(hourlyValues, windowStarts[day], windowEnds[day]);
+    }
+
+    public int reduce(int day, int[] hourlyValues, IIntReducer reducer) {
+        return reducer.reduce(hourlyValues, windowStarts[day], windowEnds[day]);
+    }
+
+    public interface IDoubleReducer {
+        double reduce(double[] values, int from, int to);
+    }
+
+    public interface IIntReducer {
+        int reduce(int[] values, int from, int to);
+    }
+}
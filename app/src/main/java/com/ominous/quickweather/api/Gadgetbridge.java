@@ -60,47 +60,47 @@ public class Gadgetbridge {
 
             weatherJson.put("timestamp", currentWeather.timestamp / 1000L); //seconds
             weatherJson.put("location", weatherLocation.name);
-            weatherJson.put("currentTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.current.temp)));
-            weatherJson.put("todayMinTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.daily[0].minTemp)));
-            weatherJson.put("todayMaxTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.daily[0].maxTemp)));
-            weatherJson.put("currentCondition", currentWeather.current.weatherLongDescription);
-            weatherJson.put("currentConditionCode", currentWeather.current.weatherCode);
-            weatherJson.put("currentHumidity", currentWeather.current.humidity);
-            weatherJson.put("windSpeed", weatherUtils.getSpeed(SpeedUnit.KMH, currentWeather.current.windSpeed));
-            weatherJson.put("windDirection", currentWeather.current.windDeg);
-            weatherJson.put("uvIndex", currentWeather.current.uvi);
-            weatherJson.put("precipProbability", currentWeather.daily[0].pop);
-            weatherJson.put("dewPoint", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.current.dewPoint)));
-            weatherJson.put("pressure", currentWeather.current.pressure);
-            weatherJson.put("visibility", currentWeather.current.visibility);
-            weatherJson.put("sunRise", currentWeather.daily[0].sunrise / 1000L);
-            weatherJson.put("sunSet", currentWeather.daily[0].sunset / 1000L);
-            weatherJson.put("moonRise", currentWeather.daily[0].moonrise / 1000L);
-            weatherJson.put("moonSet", currentWeather.daily[0].moonset / 1000L);
-            weatherJson.put("moonPhase", Math.round(currentWeather.daily[0].moonPhase * 360));// 0-360, "new moon" at 0
+            weatherJson.put("currentTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.current.getTemp())));
+            weatherJson.put("todayMinTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.daily.getMinTemp(0))));
+            weatherJson.put("todayMaxTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.daily.getMaxTemp(0))));
+            weatherJson.put("currentCondition", currentWeather.current.getWeatherLongDescription());
+            weatherJson.put("currentConditionCode", currentWeather.current.getWeatherCode());
+            weatherJson.put("currentHumidity", currentWeather.current.getHumidity());
+            weatherJson.put("windSpeed", weatherUtils.getSpeed(SpeedUnit.KMH, currentWeather.current.getWindSpeed()));
+            weatherJson.put("windDirection", currentWeather.current.getWindDeg());
+            weatherJson.put("uvIndex", currentWeather.current.getUvi());
+            weatherJson.put("precipProbability", currentWeather.daily.getPop(0));
+            weatherJson.put("dewPoint", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.current.getDewPoint())));
+            weatherJson.put("pressure", currentWeather.current.getPressure());
+            weatherJson.put("visibility", currentWeather.current.getVisibility());
+            weatherJson.put("sunRise", currentWeather.daily.getSunrise(0) / 1000L);
+            weatherJson.put("sunSet", currentWeather.daily.getSunset(0) / 1000L);
+            weatherJson.put("moonRise", currentWeather.daily.getMoonrise(0) / 1000L);
+            weatherJson.put("moonSet", currentWeather.daily.getMoonset(0) / 1000L);
+            weatherJson.put("moonPhase", Math.round(currentWeather.daily.getMoonPhase(0) * 360));// 0-360, "new moon" at 0
             weatherJson.put("latitude", (float) weatherLocation.latitude);
             weatherJson.put("longitude", (float) weatherLocation.longitude);
-            weatherJson.put("feelsLikeTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.current.feelsLike)));
+            weatherJson.put("feelsLikeTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.current.getFeelsLike())));
             weatherJson.put("isCurrentLocation", weatherLocation.isCurrentLocation ? 1 : 0);
 
             JSONArray weatherForecasts = new JSONArray();
 
-            for (int i = 1; i < currentWeather.daily.length; i++) {
+            for (int i = 1; i < currentWeather.daily.size(); i++) {
                 JSONObject dailyJsonData = new JSONObject();
 
-                dailyJsonData.put("conditionCode", currentWeather.daily[i].weatherCode);
-                dailyJsonData.put("humidity", currentWeather.daily[i].humidity);
-                dailyJsonData.put("maxTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.daily[i].maxTemp)));
-                dailyJsonData.put("minTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.daily[i].minTemp)));
-                dailyJsonData.put("uvIndex", currentWeather.daily[i].uvi);
-                dailyJsonData.put("precipProbability", currentWeather.daily[i].pop);
-                dailyJsonData.put("windSpeed", weatherUtils.getSpeed(SpeedUnit.KMH, currentWeather.daily[i].windSpeed));
-                dailyJsonData.put("windDirection", currentWeather.daily[i].windDeg);
-                dailyJsonData.put("sunRise", currentWeather.daily[i].sunrise / 1000L);
-                dailyJsonData.put("sunSet", currentWeather.daily[i].sunset / 1000L);
-                dailyJsonData.put("moonRise", currentWeather.daily[i].moonrise / 1000L);
-                dailyJsonData.put("moonSet", currentWeather.daily[i].moonset / 1000L);
-                dailyJsonData.put("moonPhase", Math.round(currentWeather.daily[i].moonPhase * 360));// 0-360, "new moon" at 0
+                dailyJsonData.put("conditionCode", currentWeather.daily.getWeatherCode(i));
+                dailyJsonData.put("humidity", currentWeather.daily.getHumidity(i));
+                dailyJsonData.put("maxTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.daily.getMaxTemp(i))));
+                dailyJsonData.put("minTemp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.daily.getMinTemp(i))));
+                dailyJsonData.put("uvIndex", currentWeather.daily.getUvi(i));
+                dailyJsonData.put("precipProbability", currentWeather.daily.getPop(i));
+                dailyJsonData.put("windSpeed", weatherUtils.getSpeed(SpeedUnit.KMH, currentWeather.daily.getWindSpeed(i)));
+                dailyJsonData.put("windDirection", currentWeather.daily.getWindDeg(i));
+                dailyJsonData.put("sunRise", currentWeather.daily.getSunrise(i) / 1000L);
+                dailyJsonData.put("sunSet", currentWeather.daily.getSunset(i) / 1000L);
+                dailyJsonData.put("moonRise", currentWeather.daily.getMoonrise(i) / 1000L);
+                dailyJsonData.put("moonSet", currentWeather.daily.getMoonset(i) / 1000L);
+                dailyJsonData.put("moonPhase", Math.round(currentWeather.daily.getMoonPhase(i) * 360));// 0-360, "new moon" at 0
 
                 weatherForecasts.put(dailyJsonData);
             }
@@ -109,17 +109,17 @@ public class Gadgetbridge {
 
             JSONArray hourlyForecasts = new JSONArray();
 
-            for (int i = 1; i < currentWeather.hourly.length; i++) {
+            for (int i = 1; i < currentWeather.hourly.size(); i++) {
                 JSONObject hourlyJsonData = new JSONObject();
 
-                hourlyJsonData.put("timestamp", currentWeather.hourly[i].dt / 1000L); //seconds
-                hourlyJsonData.put("temp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.hourly[i].temp)));
-                hourlyJsonData.put("conditionCode", currentWeather.hourly[i].weatherCode);
-                hourlyJsonData.put("humidity", currentWeather.hourly[i].humidity);
-                hourlyJsonData.put("windSpeed", weatherUtils.getSpeed(SpeedUnit.KMH, currentWeather.hourly[i].windSpeed));
-                hourlyJsonData.put("windDirection", currentWeather.hourly[i].windDeg);
-                hourlyJsonData.put("uvIndex", currentWeather.hourly[i].uvi);
-                hourlyJsonData.put("precipProbability", currentWeather.hourly[i].pop);
+                hourlyJsonData.put("timestamp", currentWeather.hourly.getDt(i) / 1000L); //seconds
+                hourlyJsonData.put("temp", Math.round(weatherUtils.getTemperature(TemperatureUnit.KELVIN, currentWeather.hourly.getTemp(i))));
+                hourlyJsonData.put("conditionCode", currentWeather.hourly.getWeatherCode(i));
+                hourlyJsonData.put("humidity", currentWeather.hourly.getHumidity(i));
+                hourlyJsonData.put("windSpeed", weatherUtils.getSpeed(SpeedUnit.KMH, currentWeather.hourly.getWindSpeed(i)));
+                hourlyJsonData.put("windDirection", currentWeather.hourly.getWindDeg(i));
+                hourlyJsonData.put("uvIndex", currentWeather.hourly.getUvi(i));
+                hourlyJsonData.put("precipProbability", currentWeather.hourly.getPop(i));
 
                 hourlyForecasts.put(hourlyJsonData);
             }
@@ -0,0 +1,260 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.ominous.quickweather.api;
+
+import androidx.annotation.NonNull;
+
+import com.ominous.quickweather.data.RefreshTrace;
+import com.ominous.tylerutils.http.HttpException;
+
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.X509TrustManager;
+
+import okhttp3.Cache;
+import okhttp3.Call;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * The application-wide network layer. Every API class shares one {@link OkHttpClient}, so
+ * parallel requests reuse the same pooled (and HTTP/2 multiplexed) TLS connections.
+ * OkHttp requests and transparently decompresses gzip responses. Once a cache directory is set,
+ * responses are stored on disk and revalidated with If-None-Match and If-Modified-Since.
+ */
+public class HttpClient {
+    private final static String USER_AGENT = "QuickWeather - https://play.google.com/store/apps/details?id=com.ominous.quickweather";
+    public final static MediaType MEDIA_TYPE_JSON = MediaType.get("application/json; charset=utf-8");
+
+    private final static int CONNECT_TIMEOUT = 10; //seconds
+    private final static int READ_TIMEOUT = 20;
+    private final static int CALL_TIMEOUT = 30;
+    private final static int MAX_IDLE_CONNECTIONS = 5;
+    private final static int KEEP_ALIVE_DURATION = 5; //minutes
+    private final static String CACHE_DIRECTORY = "http";
+    private final static long MAX_CACHE_SIZE = 10 * 1024 * 1024;
+
+    private static HttpClient instance;
+
+    private OkHttpClient okHttpClient;
+
+    private HttpClient() {
+        okHttpClient = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_DURATION, TimeUnit.MINUTES))
+                .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
+                .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
+                .callTimeout(CALL_TIMEOUT, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .addInterceptor(chain -> chain.proceed(
+                        chain.request().header("User-Agent") == null ?
+                                chain.request().newBuilder().header("User-Agent", USER_AGENT).build() :
+                                chain.request()))
+                .eventListener(new RefreshTraceEventListener())
+                .build();
+    }
+
+    public static synchronized HttpClient getInstance() {
+        if (instance == null) {
+            instance = new HttpClient();
+        }
+
+        return instance;
+    }
+
+    public synchronized OkHttpClient getOkHttpClient() {
+        return okHttpClient;
+    }
+
+    //The derived client shares the connection pool and dispatcher of the current one
+    public synchronized void addInterceptor(Interceptor interceptor) {
+        okHttpClient = okHttpClient.newBuilder()
+                .addInterceptor(interceptor)
+                .build();
+    }
+
+    public synchronized void addNetworkInterceptor(Interceptor interceptor) {
+        okHttpClient = okHttpClient.newBuilder()
+                .addNetworkInterceptor(interceptor)
+                .build();
+    }
+
+    public synchronized void setCacheDirectory(File cacheDir) {
+        okHttpClient = okHttpClient.newBuilder()
+                .cache(new Cache(new File(cacheDir, CACHE_DIRECTORY), MAX_CACHE_SIZE))
+                .build();
+    }
+
+    public synchronized void setSslSocketFactory(SSLSocketFactory sslSocketFactory, X509TrustManager trustManager) {
+        okHttpClient = okHttpClient.newBuilder()
+                .sslSocketFactory(sslSocketFactory, trustManager)
+                .build();
+    }
+
+    public String get(String url) throws HttpException, IOException {
+        return fetch(new Request.Builder()
+                .url(url)
+                .build());
+    }
+
+    public <T> T get(String url, IResponseReader<T> responseReader) throws HttpException, IOException, JSONException {
+        return fetch(new Request.Builder()
+                .url(url)
+                .build(), responseReader);
+    }
+
+    //Throws NotModifiedException instead of reading a body the caller has already parsed
+    public <T> T getIfModified(String url, IResponseReader<T> responseReader) throws HttpException, IOException, JSONException {
+        return fetchIfModified(new Request.Builder()
+                .url(url)
+                .build(), responseReader);
+    }
+
+    public String postJson(String url, String json) throws HttpException, IOException {
+        return fetch(new Request.Builder()
+                .url(url)
+                .post(RequestBody.create(json, MEDIA_TYPE_JSON))
+                .build());
+    }
+
+    public String fetch(Request request) throws HttpException, IOException {
+        try (Response response = execute(request)) {
+            return getBody(response).string();
+        }
+    }
+
+    //Streams the body into the reader instead of buffering it as a String
+    public <T> T fetch(Request request, IResponseReader<T> responseReader) throws HttpException, IOException, JSONException {
+        try (Response response = execute(request)) {
+            return read(response, responseReader);
+        }
+    }
+
+    public <T> T fetchIfModified(Request request, IResponseReader<T> responseReader) throws HttpException, IOException, JSONException {
+        try (Response response = execute(request)) {
+            if (isNotModified(response)) {
+                throw new NotModifiedException(request.url().toString());
+            }
+
+            return read(response, responseReader);
+        }
+    }
+
+    //Cancels the calls whose request was tagged with the given object
+    public void cancel(Object tag) {
+        Dispatcher dispatcher = getOkHttpClient().dispatcher();
+
+        for (Call call : dispatcher.runningCalls()) {
+            if (call.request().tag() == tag) {
+                call.cancel();
+            }
+        }
+
+        for (Call call : dispatcher.queuedCalls()) {
+            if (call.request().tag() == tag) {
+                call.cancel();
+            }
+        }
+    }
+
+    private Response execute(Request request) throws HttpException, IOException {
+        long startNanos = System.nanoTime();
+        Response response = getOkHttpClient().newCall(request).execute();
+
+        RefreshTrace.recordStage(RefreshTrace.Stage.NETWORK, startNanos);
+
+        if (!response.isSuccessful()) {
+            try (response) {
+                ResponseBody body = response.body();
+
+                throw new HttpStatusException(response.code(),
+                        response.code() + " " + response.message() + (body == null ? "" : ": " + body.string()),
+                        HttpStatusException.parseRetryAfter(response.header("Retry-After"), System.currentTimeMillis()));
+            }
+        }
+
+        return response;
+    }
+
+    //The body is streamed into the reader, so parsing includes downloading the body
+    private static <T> T read(Response response, IResponseReader<T> responseReader) throws IOException, JSONException {
+        long startNanos = System.nanoTime();
+
+        try {
+            return responseReader.read(getBody(response));
+        } finally {
+            RefreshTrace.recordStage(RefreshTrace.Stage.PARSE, startNanos);
+        }
+    }
+
+    //Only a conditional request answered over the network with 304. A plain cache hit proves
+    //nothing about the snapshot, so it is read like any other response
+    private static boolean isNotModified(Response response) {
+        Response networkResponse = response.networkResponse();
+
+        return response.cacheResponse() != null &&
+                networkResponse != null &&
+                networkResponse.code() == HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+
+    private static ResponseBody getBody(Response response) throws IOException {
+        ResponseBody body = response.body();
+
+        if (body == null) {
+            throw new IOException("Empty response from " + response.request().url());
+        }
+
+        return body;
+    }
+
+    //Calls are executed synchronously, so the events arrive on the refreshing thread
+    private static class RefreshTraceEventListener extends EventListener {
+        @Override
+        public void responseBodyEnd(@NonNull Call call, long byteCount) {
+            RefreshTrace.recordBytesReceived(byteCount);
+        }
+
+        @Override
+        public void cacheHit(@NonNull Call call, @NonNull Response response) {
+            RefreshTrace.recordCacheTier(RefreshTrace.CacheTier.HTTP);
+        }
+
+        @Override
+        public void cacheConditionalHit(@NonNull Call call, @NonNull Response cachedResponse) {
+            RefreshTrace.recordCacheTier(RefreshTrace.CacheTier.HTTP);
+        }
+    }
+
+    public interface IResponseReader<T> {
+        T read(ResponseBody body) throws IOException, JSONException;
+    }
+}
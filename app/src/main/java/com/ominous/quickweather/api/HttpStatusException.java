@@ -0,0 +1,62 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api;
+
+import com.ominous.tylerutils.http.HttpException;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * An {@link HttpException} that keeps the status code and the server's Retry-After hint.
+ */
+public class HttpStatusException extends HttpException {
+    public final int statusCode;
+    public final long retryAfter; //milliseconds, -1 if the server did not send one
+
+    public HttpStatusException(int statusCode, String message, long retryAfter) {
+        super(message);
+
+        this.statusCode = statusCode;
+        this.retryAfter = retryAfter;
+    }
+
+    //Retry-After is either a number of seconds or an HTTP date
+    public static long parseRetryAfter(String retryAfter, long now) {
+        if (retryAfter == null || retryAfter.isEmpty()) {
+            return -1;
+        }
+
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            SimpleDateFormat httpDateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            httpDateFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+
+            try {
+                return Math.max(0, httpDateFormat.parse(retryAfter.trim()).getTime() - now);
+            } catch (ParseException pe) {
+                return -1;
+            }
+        }
+    }
+}
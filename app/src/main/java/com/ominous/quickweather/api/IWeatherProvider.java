@@ -0,0 +1,72 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api;
+
+import android.content.Context;
+import android.util.Pair;
+
+import com.ominous.quickweather.data.CurrentWeather;
+import com.ominous.quickweather.pref.WeatherPreferences;
+import com.ominous.tylerutils.http.HttpException;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A source of forecasts. Providers are looked up through {@link WeatherProviderRegistry}, so the
+ * refresh pipeline does not depend on any particular API.
+ */
+public interface IWeatherProvider {
+    //Identifies the server the requests go to, so each one gets its own circuit breaker
+    String getInstanceKey(WeatherPreferences weatherPreferences);
+
+    //With ifModified, throws NotModifiedException when the forecast has not changed since the last request
+    CurrentWeather getCurrentWeather(Context context,
+                                     WeatherPreferences weatherPreferences,
+                                     double latitude,
+                                     double longitude,
+                                     boolean ifModified)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException;
+
+    //Drops anything built for the previous locale, such as translated descriptions
+    default void onLocaleChanged() {
+    }
+
+    //Whether many locations can share a request, which makes prefetching the saved locations cheap
+    default boolean supportsBatching() {
+        return false;
+    }
+
+    default List<CurrentWeather> getCurrentWeather(Context context,
+                                                   WeatherPreferences weatherPreferences,
+                                                   List<Pair<Double, Double>> locations)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        ArrayList<CurrentWeather> results = new ArrayList<>(locations.size());
+
+        for (Pair<Double, Double> location : locations) {
+            results.add(getCurrentWeather(context, weatherPreferences, location.first, location.second, false));
+        }
+
+        return results;
+    }
+}
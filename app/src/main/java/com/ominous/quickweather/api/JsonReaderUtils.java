@@ -0,0 +1,227 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.MalformedJsonException;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Null-tolerant helpers for pull-parsing provider responses with {@link JsonReader}.
+ * Missing and null values are left at their Java defaults, matching the reflective deserializer.
+ */
+public class JsonReaderUtils {
+    private final static int INITIAL_ARRAY_SIZE = 32;
+
+    private JsonReaderUtils() {
+
+    }
+
+    public interface ElementReader<T> {
+        T read(JsonReader reader) throws IOException, JSONException;
+    }
+
+    public static <T> T read(Reader input, ElementReader<T> elementReader) throws IOException, JSONException {
+        try (JsonReader reader = new JsonReader(input)) {
+            return elementReader.read(reader);
+        } catch (MalformedJsonException | IllegalStateException e) {
+            throw new JSONException(e.getMessage());
+        }
+    }
+
+    //Consumes a null and returns true, so callers can leave the field at its default
+    public static boolean skipNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return true;
+        }
+
+        return false;
+    }
+
+    public static double nextDouble(JsonReader reader) throws IOException, JSONException {
+        if (skipNull(reader)) {
+            return 0;
+        }
+
+        try {
+            return reader.nextDouble();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JSONException("Expected a number at " + reader);
+        }
+    }
+
+    public static int nextInt(JsonReader reader) throws IOException, JSONException {
+        return (int) nextLong(reader);
+    }
+
+    public static long nextLong(JsonReader reader) throws IOException, JSONException {
+        if (skipNull(reader)) {
+            return 0;
+        }
+
+        try {
+            //integral fields are sometimes sent as decimals
+            return reader.peek() == JsonToken.NUMBER ? (long) reader.nextDouble() : reader.nextLong();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new JSONException("Expected a number at " + reader);
+        }
+    }
+
+    public static boolean nextBoolean(JsonReader reader) throws IOException, JSONException {
+        if (skipNull(reader)) {
+            return false;
+        }
+
+        try {
+            return reader.nextBoolean();
+        } catch (IllegalStateException e) {
+            throw new JSONException("Expected a boolean at " + reader);
+        }
+    }
+
+    public static String nextString(JsonReader reader) throws IOException, JSONException {
+        if (skipNull(reader)) {
+            return null;
+        }
+
+        try {
+            return reader.nextString();
+        } catch (IllegalStateException e) {
+            throw new JSONException("Expected a string at " + reader);
+        }
+    }
+
+    public static double[] readDoubleArray(JsonReader reader) throws IOException, JSONException {
+        if (skipNull(reader)) {
+            return null;
+        }
+
+        double[] values = new double[INITIAL_ARRAY_SIZE];
+        int count = 0;
+
+        beginArray(reader);
+
+        while (reader.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+
+            values[count++] = nextDouble(reader);
+        }
+
+        reader.endArray();
+
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    public static int[] readIntArray(JsonReader reader) throws IOException, JSONException {
+        if (skipNull(reader)) {
+            return null;
+        }
+
+        int[] values = new int[INITIAL_ARRAY_SIZE];
+        int count = 0;
+
+        beginArray(reader);
+
+        while (reader.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+
+            values[count++] = nextInt(reader);
+        }
+
+        reader.endArray();
+
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    public static long[] readLongArray(JsonReader reader) throws IOException, JSONException {
+        if (skipNull(reader)) {
+            return null;
+        }
+
+        long[] values = new long[INITIAL_ARRAY_SIZE];
+        int count = 0;
+
+        beginArray(reader);
+
+        while (reader.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+
+            values[count++] = nextLong(reader);
+        }
+
+        reader.endArray();
+
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    public static <T> T[] readObjectArray(JsonReader reader,
+                                          T[] emptyArray,
+                                          ElementReader<T> elementReader) throws IOException, JSONException {
+        if (skipNull(reader)) {
+            return null;
+        }
+
+        T[] values = Arrays.copyOf(emptyArray, INITIAL_ARRAY_SIZE);
+        int count = 0;
+
+        beginArray(reader);
+
+        while (reader.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+
+            values[count++] = elementReader.read(reader);
+        }
+
+        reader.endArray();
+
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    public static void beginObject(JsonReader reader) throws IOException, JSONException {
+        try {
+            reader.beginObject();
+        } catch (IllegalStateException e) {
+            throw new JSONException("Expected an object at " + reader);
+        }
+    }
+
+    public static void beginArray(JsonReader reader) throws IOException, JSONException {
+        try {
+            reader.beginArray();
+        } catch (IllegalStateException e) {
+            throw new JSONException("Expected an array at " + reader);
+        }
+    }
+}
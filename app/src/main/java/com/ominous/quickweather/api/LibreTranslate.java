@@ -20,7 +20,6 @@
 package com.ominous.quickweather.api;
 
 import com.ominous.tylerutils.http.HttpException;
-import com.ominous.tylerutils.http.HttpRequest;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -48,14 +47,13 @@ public class LibreTranslate {
     public String[] translate(String instance, String apiKey, String targetLanguage,
                               String... input)
             throws HttpException, IOException, JSONException {
-        JSONArray translatedText = new JSONObject(new HttpRequest(getUrl(instance, "/translate"))
-                .setMethod(HttpRequest.METHOD_POST)
-                .setBodyFormat(HttpRequest.FORMAT_JSON)
-                .addBodyParam("q", new JSONArray(input))
-                .addBodyParam("source", "auto")
-                .addBodyParam("target", targetLanguage)
-                .addBodyParam("api_key", apiKey)
-                .fetch()).getJSONArray("translatedText");
+        JSONArray translatedText = new JSONObject(HttpClient.getInstance().postJson(getUrl(instance, "/translate"),
+                new JSONObject()
+                        .put("q", new JSONArray(input))
+                        .put("source", "auto")
+                        .put("target", targetLanguage)
+                        .put("api_key", apiKey)
+                        .toString())).getJSONArray("translatedText");
 
         String[] output = new String[translatedText.length()];
 
@@ -68,19 +66,16 @@ public class LibreTranslate {
 
     public String detect(String instance, String apiKey, String input)
             throws HttpException, IOException, JSONException {
-        return new JSONArray(new HttpRequest(getUrl(instance, "/detect"))
-                .setMethod(HttpRequest.METHOD_POST)
-                .setBodyFormat(HttpRequest.FORMAT_JSON)
-                .addBodyParam("q", input)
-                .addBodyParam("api_key", apiKey)
-                .fetch()).getJSONObject(0).getString("language");
+        return new JSONArray(HttpClient.getInstance().postJson(getUrl(instance, "/detect"),
+                new JSONObject()
+                        .put("q", input)
+                        .put("api_key", apiKey)
+                        .toString())).getJSONObject(0).getString("language");
     }
 
     public String[] getSupportedLanguages(String instance, String sourceLanguage)
             throws HttpException, IOException, JSONException {
-        JSONArray supportedLanguageArray = new JSONArray(new HttpRequest(getUrl(instance, "/languages"))
-                .setMethod(HttpRequest.METHOD_GET)
-                .fetch());
+        JSONArray supportedLanguageArray = new JSONArray(HttpClient.getInstance().get(getUrl(instance, "/languages")));
 
         for (int i = 0, l = supportedLanguageArray.length(); i < l; i++) {
             JSONObject jsonObject = supportedLanguageArray.getJSONObject(i);
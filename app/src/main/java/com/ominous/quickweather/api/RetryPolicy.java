@@ -0,0 +1,130 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api;
+
+import com.ominous.tylerutils.http.HttpException;
+
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketException;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decides whether a failed provider request is worth retrying, and how long to wait first.
+ * Delays use exponential backoff with full jitter, and a server's Retry-After takes precedence.
+ */
+public class RetryPolicy {
+    private final static Pattern STATUS_CODE_PATTERN = Pattern.compile("\\b([1-5][0-9]{2})\\b");
+
+    public final int maxAttempts;
+    private final long baseDelay;
+    private final long maxDelay;
+    private final Random random = new Random();
+
+    public RetryPolicy(int maxAttempts, long baseDelay, long maxDelay) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    public FailureType classify(Throwable t) {
+        if (t instanceof HttpException) {
+            int statusCode = getStatusCode((HttpException) t);
+
+            return switch (statusCode) {
+                case 429 -> FailureType.RATE_LIMITED;
+                case 408, 425 -> FailureType.TRANSIENT;
+                default -> statusCode >= 400 && statusCode < 500 ?
+                        FailureType.PERMANENT :
+                        FailureType.TRANSIENT;
+            };
+        } else if (t instanceof InterruptedIOException ||
+                t instanceof ConnectException ||
+                t instanceof NoRouteToHostException ||
+                t instanceof SocketException) {
+            //timeouts and refused or reset connections point at the server, not the device
+            return FailureType.TRANSIENT;
+        } else {
+            //anything else, including an unknown host, will fail the same way on the next attempt
+            return FailureType.PERMANENT;
+        }
+    }
+
+    //Returns the delay before the next attempt, or -1 if the request should not be retried
+    public long getRetryDelay(Throwable t, int attempt) {
+        if (attempt + 1 >= maxAttempts) {
+            return -1;
+        }
+
+        long retryAfter = getRetryAfter(t);
+
+        return switch (classify(t)) {
+            case PERMANENT -> -1;
+            case RATE_LIMITED -> retryAfter >= 0 && retryAfter <= maxDelay ? retryAfter : -1;
+            case TRANSIENT -> retryAfter > maxDelay ? -1 : Math.max(retryAfter, getBackoffDelay(attempt));
+        };
+    }
+
+    //Full jitter: anywhere between zero and the exponential cap for this attempt
+    public long getBackoffDelay(int attempt) {
+        long cap = Math.min(maxDelay, baseDelay << Math.min(attempt, 20));
+
+        synchronized (random) {
+            return (long) (random.nextDouble() * cap);
+        }
+    }
+
+    public static long getRetryAfter(Throwable t) {
+        return t instanceof HttpStatusException ? ((HttpStatusException) t).retryAfter : -1;
+    }
+
+    //Plain TylerUtils exceptions carry no status code, so look for one in the message
+    public static int getStatusCode(HttpException e) {
+        if (e instanceof HttpStatusException) {
+            return ((HttpStatusException) e).statusCode;
+        }
+
+        if (e.getMessage() != null) {
+            Matcher matcher = STATUS_CODE_PATTERN.matcher(e.getMessage());
+
+            if (matcher.find()) {
+                return Integer.parseInt(matcher.group(1));
+            }
+        }
+
+        return -1;
+    }
+
+    public static boolean isServerReachable(Throwable t) {
+        return t instanceof HttpException;
+    }
+
+    public enum FailureType {
+        //The server may recover, so retry with backoff
+        TRANSIENT,
+        //The quota is exhausted, so wait as long as the server asks
+        RATE_LIMITED,
+        //Retrying will not help, for example a bad API key
+        PERMANENT
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api;
+
+import com.ominous.quickweather.api.openmeteo.OpenMeteo;
+import com.ominous.quickweather.api.openweather.OpenWeatherMap;
+import com.ominous.quickweather.pref.WeatherProvider;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Set;
+
+public class WeatherProviderRegistry {
+    private final EnumMap<WeatherProvider, IWeatherProvider> weatherProviders = new EnumMap<>(WeatherProvider.class);
+
+    private static WeatherProviderRegistry instance;
+
+    private WeatherProviderRegistry() {
+        weatherProviders.put(WeatherProvider.OPENMETEO, OpenMeteo.getInstance());
+        weatherProviders.put(WeatherProvider.OPENWEATHERMAP, OpenWeatherMap.getInstance());
+    }
+
+    public static synchronized WeatherProviderRegistry getInstance() {
+        if (instance == null) {
+            instance = new WeatherProviderRegistry();
+        }
+
+        return instance;
+    }
+
+    //Replaces the provider used for the setting, e.g. to serve recorded responses in a benchmark
+    public synchronized void register(WeatherProvider weatherProvider, IWeatherProvider provider) {
+        weatherProviders.put(weatherProvider, provider);
+    }
+
+    public synchronized Set<WeatherProvider> getWeatherProviders() {
+        return EnumSet.copyOf(weatherProviders.keySet());
+    }
+
+    public synchronized void onLocaleChanged() {
+        for (IWeatherProvider provider : weatherProviders.values()) {
+            provider.onLocaleChanged();
+        }
+    }
+
+    public synchronized IWeatherProvider get(WeatherProvider weatherProvider) {
+        IWeatherProvider provider = weatherProviders.get(weatherProvider);
+
+        if (provider == null) {
+            throw new IllegalArgumentException("Illegal WeatherProvider provided");
+        }
+
+        return provider;
+    }
+}
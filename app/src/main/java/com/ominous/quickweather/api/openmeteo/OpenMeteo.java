@@ -22,40 +22,53 @@ package com.ominous.quickweather.api.openmeteo;
 import android.content.Context;
 import android.content.res.Resources;
 import android.location.Address;
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.Pair;
 
 import androidx.annotation.DrawableRes;
 import androidx.annotation.StringRes;
+import androidx.annotation.VisibleForTesting;
 
 import com.ominous.quickweather.R;
+import com.ominous.quickweather.api.DailyWindows;
+import com.ominous.quickweather.api.HttpClient;
+import com.ominous.quickweather.api.IWeatherProvider;
+import com.ominous.quickweather.api.JsonReaderUtils;
+import com.ominous.quickweather.data.CelestialCache;
 import com.ominous.quickweather.data.CurrentWeather;
 import com.ominous.quickweather.data.PrecipType;
+import com.ominous.quickweather.data.RefreshTrace;
+import com.ominous.quickweather.data.WeatherDatabase;
+import com.ominous.quickweather.pref.Enabled;
+import com.ominous.quickweather.pref.WeatherPreferences;
 import com.ominous.quickweather.util.WeatherUtils;
+import com.ominous.quickweather.util.ZoneTimeHelper;
 import com.ominous.tylerutils.http.HttpException;
-import com.ominous.tylerutils.http.HttpRequest;
-import com.ominous.tylerutils.util.JsonUtils;
-import com.ominous.tylerutils.work.ParallelThreadManager;
 
 import org.json.JSONException;
-import org.json.JSONObject;
-import org.shredzone.commons.suncalc.MoonIllumination;
-import org.shredzone.commons.suncalc.MoonTimes;
 
 import java.io.IOException;
 import java.net.URLEncoder;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Calendar;
-import java.util.Date;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
-import java.util.concurrent.ConcurrentHashMap;
 
-public class OpenMeteo {
-    private final static String CURRENT_WEATHER_API = "%1$s/v1/forecast?latitude=%2$f&longitude=%3$f&hourly=relativehumidity_2m,dewpoint_2m,apparent_temperature,rain,showers,snowfall,pressure_msl,visibility,winddirection_10m,uv_index,is_day&current_weather=true&temperature_unit=fahrenheit&windspeed_unit=mph&precipitation_unit=inch&timeformat=unixtime&timezone=auto&forecast_days=1";
-    private final static String DAILY_HOURLY_API = "%1$s/v1/forecast?latitude=%2$f&longitude=%3$f&hourly=weathercode,precipitation_probability,temperature_2m,rain,showers,snowfall,pressure_msl,dewpoint_2m,relativehumidity_2m,is_day,windspeed_10m,winddirection_10m,uv_index&daily=weathercode,temperature_2m_max,temperature_2m_min,uv_index_max,rain_sum,showers_sum,snowfall_sum,precipitation_probability_max,windspeed_10m_max,winddirection_10m_dominant,sunrise,sunset&temperature_unit=fahrenheit&windspeed_unit=mph&precipitation_unit=inch&timeformat=unixtime&timezone=auto&forecast_days=8";
+import okhttp3.Request;
+
+public class OpenMeteo implements IWeatherProvider {
+    private final static String DEFAULT_INSTANCE = "https://api.open-meteo.com";
     private final static String GEOCODER_API = "https://geocoding-api.open-meteo.com/v1/search?name=%1$s&count=1&language=%2$s&format=json";
 
-    private final static String USER_AGENT = "QuickWeather - https://play.google.com/store/apps/details?id=com.ominous.quickweather";
+    private final static int MAX_BATCH_SIZE = 50;
+    private final static int CELESTIAL_PREFETCH_DAYS = 14;
+
+    private final OpenMeteoInstancePool instancePool = new OpenMeteoInstancePool();
+    private WeatherCodeTable weatherCodeTable;
 
     private static OpenMeteo instance;
 
@@ -70,95 +83,201 @@ public class OpenMeteo {
         return instance;
     }
 
+    @Override
+    public String getInstanceKey(WeatherPreferences weatherPreferences) {
+        return weatherPreferences.getOpenMeteoInstance();
+    }
+
+    @Override
+    public CurrentWeather getCurrentWeather(Context context,
+                                            WeatherPreferences weatherPreferences,
+                                            double latitude,
+                                            double longitude,
+                                            boolean ifModified)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        return getCurrentWeather(context,
+                latitude,
+                longitude,
+                weatherPreferences.getOpenMeteoAPIKey(),
+                weatherPreferences.getOpenMeteoInstance(),
+                weatherPreferences.getOpenMeteoPublicBackup() == Enabled.ENABLED,
+                ifModified);
+    }
+
+    @Override
+    public boolean supportsBatching() {
+        return true;
+    }
+
+    @Override
+    public List<CurrentWeather> getCurrentWeather(Context context,
+                                                  WeatherPreferences weatherPreferences,
+                                                  List<Pair<Double, Double>> locations)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        return getCurrentWeather(context,
+                locations,
+                weatherPreferences.getOpenMeteoAPIKey(),
+                weatherPreferences.getOpenMeteoInstance(),
+                weatherPreferences.getOpenMeteoPublicBackup() == Enabled.ENABLED);
+    }
+
+    //With ifModified, throws NotModifiedException when the forecast has not changed since the last request
     public CurrentWeather getCurrentWeather(Context context,
                                             double latitude,
                                             double longitude,
                                             String apiKey,
-                                            String selfHostedInstance)
+                                            String selfHostedInstance,
+                                            boolean usePublicBackup,
+                                            boolean ifModified)
             throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
-        ConcurrentHashMap<Integer, OpenMeteoForecast> forecasts = new ConcurrentHashMap<>(2);
-        ConcurrentHashMap<Integer, Exception> exceptions = new ConcurrentHashMap<>(2);
+        return getCurrentWeather(context,
+                Collections.singletonList(new Pair<>(latitude, longitude)),
+                apiKey,
+                selfHostedInstance,
+                usePublicBackup,
+                ifModified).get(0);
+    }
 
-        try {
-            ParallelThreadManager.execute(
-                    () -> {
-                        String url = String.format(Locale.US,
-                                CURRENT_WEATHER_API,
-                                selfHostedInstance.isEmpty() ? "https://api.open-meteo.com" : selfHostedInstance,
-                                latitude,
-                                longitude);
-
-                        if (!apiKey.isEmpty()) {
-                            url += "&apikey=" + apiKey;
-                        }
-
-                        try {
-                            forecasts.put(0, JsonUtils.deserialize(OpenMeteoForecast.class, new JSONObject(
-                                    new HttpRequest(url)
-                                            .addHeader("User-Agent", USER_AGENT)
-                                            .fetch()
-                            )));
-                        } catch (IllegalAccessException | InstantiationException | JSONException |
-                                 HttpException | IOException e) {
-                            exceptions.put(0, e);
-                        }
-                    },
-                    () -> {
-                        String url1 = String.format(Locale.US,
-                                DAILY_HOURLY_API,
-                                selfHostedInstance.isEmpty() ? "https://api.open-meteo.com" : selfHostedInstance,
-                                latitude,
-                                longitude);
-
-                        if (!apiKey.isEmpty()) {
-                            url1 += "&apikey=" + apiKey;
-                        }
-                        try {
-                            forecasts.put(1, JsonUtils.deserialize(OpenMeteoForecast.class, new JSONObject(
-                                    new HttpRequest(url1)
-                                            .addHeader("User-Agent", USER_AGENT)
-                                            .fetch()
-                                    )));
-                        } catch (IllegalAccessException | InstantiationException | JSONException |
-                                 HttpException | IOException e) {
-                            exceptions.put(1, e);
-                        }
-                    }
-            );
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+    //Open-Meteo accepts comma-separated coordinates, so many locations share the same request
+    public List<CurrentWeather> getCurrentWeather(Context context,
+                                                  List<Pair<Double, Double>> locations,
+                                                  String apiKey,
+                                                  String selfHostedInstance,
+                                                  boolean usePublicBackup)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        return getCurrentWeather(context, locations, apiKey, selfHostedInstance, usePublicBackup, false);
+    }
+
+    private List<CurrentWeather> getCurrentWeather(Context context,
+                                                   List<Pair<Double, Double>> locations,
+                                                   String apiKey,
+                                                   String selfHostedInstance,
+                                                   boolean usePublicBackup,
+                                                   boolean ifModified)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        String primaryInstance = selfHostedInstance.isEmpty() ? DEFAULT_INSTANCE : selfHostedInstance;
+        ArrayList<CurrentWeather> results = new ArrayList<>(locations.size());
+
+        for (int start = 0, size = locations.size(); start < size; start += MAX_BATCH_SIZE) {
+            List<Pair<Double, Double>> batch = locations.subList(start, Math.min(start + MAX_BATCH_SIZE, size));
+
+            OpenMeteoForecast[] forecasts = instancePool.execute(
+                    getInstances(primaryInstance, usePublicBackup),
+                    instance -> testConnection(instance, getApiKey(instance, primaryInstance, apiKey)),
+                    (instance, tag) -> getForecasts(batch, getApiKey(instance, primaryInstance, apiKey), instance, ifModified, tag));
+            long startNanos = System.nanoTime();
+
+            for (int i = 0, l = batch.size(); i < l; i++) {
+                results.add(getCurrentWeather(context,
+                        batch.get(i).first,
+                        batch.get(i).second,
+                        forecasts[i]));
+            }
+
+            RefreshTrace.recordStage(RefreshTrace.Stage.TRANSFORM, startNanos);
         }
 
-        if (!exceptions.isEmpty()) {
-            Exception lastException = exceptions.values().iterator().next();
-
-            if (lastException != null) {
-                if (lastException instanceof IOException) {
-                    throw (IOException) lastException;
-                } else if (lastException instanceof JSONException) {
-                    throw (JSONException) lastException;
-                } else if (lastException instanceof InstantiationException) {
-                    throw (InstantiationException) lastException;
-                } else if (lastException instanceof IllegalAccessException) {
-                    throw (IllegalAccessException) lastException;
-                } else if (lastException instanceof HttpException) {
-                    throw (HttpException) lastException;
-                } else {
-                    throw new RuntimeException(lastException);
-                }
+        return results;
+    }
+
+    //The public API only backs up a self-hosted instance when the user opted in, as self-hosting
+    //may be what keeps their coordinates off it
+    private static List<String> getInstances(String primaryInstance, boolean usePublicBackup) {
+        return !usePublicBackup || primaryInstance.equals(DEFAULT_INSTANCE) ?
+                Collections.singletonList(primaryInstance) :
+                Arrays.asList(primaryInstance, DEFAULT_INSTANCE);
+    }
+
+    //The API key belongs to the configured instance and is never sent to the backup
+    private static String getApiKey(String instance, String primaryInstance, String apiKey) {
+        return instance.equals(primaryInstance) ? apiKey : "";
+    }
+
+    private OpenMeteoForecast[] getForecasts(List<Pair<Double, Double>> locations,
+                                             String apiKey,
+                                             String instance,
+                                             boolean ifModified,
+                                             Object tag)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        StringBuilder latitudes = new StringBuilder();
+        StringBuilder longitudes = new StringBuilder();
+
+        for (Pair<Double, Double> location : locations) {
+            if (latitudes.length() > 0) {
+                latitudes.append(',');
+                longitudes.append(',');
             }
+
+            latitudes.append(formatCoordinate(location.first));
+            longitudes.append(formatCoordinate(location.second));
         }
 
-        OpenMeteoForecast openMeteoCurrent = forecasts.get(0);
-        OpenMeteoForecast openMeteoDailyHourly = forecasts.get(1);
+        Request request = new Request.Builder()
+                .url(OpenMeteoRequestPlanner.getForecastUrl(
+                        instance,
+                        apiKey,
+                        latitudes.toString(),
+                        longitudes.toString()))
+                .tag(tag)
+                .build();
+
+        //A single location returns an object, multiple locations return an array in request order
+        HttpClient.IResponseReader<OpenMeteoForecast[]> responseReader = body -> JsonReaderUtils.read(
+                body.charStream(),
+                reader -> reader.peek() == JsonToken.BEGIN_ARRAY ?
+                        OpenMeteoForecastJsonReader.readArray(reader) :
+                        new OpenMeteoForecast[]{OpenMeteoForecastJsonReader.read(reader)});
+
+        OpenMeteoForecast[] forecasts = ifModified ?
+                HttpClient.getInstance().fetchIfModified(request, responseReader) :
+                HttpClient.getInstance().fetch(request, responseReader);
+
+        if (forecasts == null) {
+            throw new JSONException("Unexpected Open-Meteo response");
+        }
+
+        if (forecasts.length != locations.size()) {
+            throw new JSONException("Expected " + locations.size() + " forecasts, received " + forecasts.length);
+        }
+
+        return forecasts;
+    }
+
+    private static OpenMeteoGeocoderResult[] readGeocoderResults(JsonReader reader) throws IOException, JSONException {
+        OpenMeteoGeocoderResult[] results = null;
 
+        JsonReaderUtils.beginObject(reader);
+
+        while (reader.hasNext()) {
+            if (reader.nextName().equals("results")) {
+                results = OpenMeteoGeocoderResultJsonReader.readArray(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+
+        reader.endObject();
+
+        return results;
+    }
+
+    private static String formatCoordinate(double coordinate) {
+        return String.format(Locale.US, "%f", coordinate);
+    }
+
+    @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
+    public CurrentWeather getCurrentWeather(Context context,
+                                            double latitude,
+                                            double longitude,
+                                            OpenMeteoForecast forecast) {
         WeatherUtils weatherUtils = WeatherUtils.getInstance(context);
+        WeatherCodeTable weatherCodeTable = getWeatherCodeTable(context);
 
-        long currentTimestamp = Calendar.getInstance(TimeZone.getTimeZone("GMT")).getTimeInMillis();
+        long currentTimestamp = System.currentTimeMillis();
         int thisHour = 0;
 
-        for (int i = 0, l = openMeteoCurrent.hourly.time.length; i < l; i++) {
-            if (currentTimestamp > openMeteoCurrent.hourly.time[i] * 1000) {
+        for (int i = 0, l = forecast.hourly.time.length; i < l; i++) {
+            if (currentTimestamp > forecast.hourly.time[i] * 1000) {
                 thisHour = i;
             } else {
                 break;
@@ -167,206 +286,185 @@ public class OpenMeteo {
 
         CurrentWeather currentWeather = new CurrentWeather();
 
-        currentWeather.timezone = TimeZone.getTimeZone(openMeteoCurrent.timezone);
-        currentWeather.timestamp = Calendar.getInstance(TimeZone.getTimeZone(openMeteoCurrent.timezone)).getTimeInMillis();
+        currentWeather.timezone = TimeZone.getTimeZone(forecast.timezone);
+        currentWeather.timestamp = currentTimestamp;
         currentWeather.latitude = latitude;
         currentWeather.longitude = longitude;
 
-        if (openMeteoCurrent.current_weather != null && openMeteoCurrent.hourly != null) {
-            WeatherCode weatherCode = WeatherCode.from(openMeteoCurrent.current_weather.weathercode, WeatherCode.ERROR);
+        if (forecast.current != null && forecast.hourly != null) {
+            WeatherCode weatherCode = WeatherCode.from(forecast.current.weathercode, WeatherCode.ERROR);
 
             double precipitationIntensity = weatherUtils.getPrecipitationIntensity(
-                    openMeteoCurrent.hourly.rain[thisHour] + openMeteoCurrent.hourly.showers[thisHour],
-                    openMeteoCurrent.hourly.snowfall[thisHour]) * 25.4;
+                    forecast.hourly.rain[thisHour] + forecast.hourly.showers[thisHour],
+                    forecast.hourly.snowfall[thisHour]) * 25.4;
             PrecipType precipitationType = weatherUtils.getPrecipitationType(
-                    openMeteoCurrent.hourly.rain[thisHour] + openMeteoCurrent.hourly.showers[thisHour],
-                    openMeteoCurrent.hourly.snowfall[thisHour]);
-
-            currentWeather.current = new CurrentWeather.DataPoint(
-                    openMeteoCurrent.hourly.time[thisHour] * 1000L,
-                    openMeteoCurrent.current_weather.temperature,
-                    openMeteoCurrent.hourly.apparent_temperature[thisHour],
-                    Math.min((int) (openMeteoCurrent.hourly.visibility[thisHour] * 0.3048), 10000), //ft to m, cap of 1000m
-                    openMeteoCurrent.hourly.relativehumidity_2m[thisHour],
-                    openMeteoCurrent.current_weather.windspeed,
-                    openMeteoCurrent.current_weather.winddirection,
-                    (int) openMeteoCurrent.hourly.pressure_msl[thisHour],
-                    openMeteoCurrent.hourly.dewpoint_2m[thisHour],
-                    openMeteoCurrent.hourly.uv_index[thisHour],
-                    getStandardWeatherCode(weatherCode),
-                    getWeatherIconRes(weatherCode, openMeteoCurrent.hourly.is_day[thisHour] == 1),
-                    weatherUtils
-                            .getWeatherDescription(new String[]{context.getString(getDescriptionResForWeatherCode(weatherCode))}),
+                    forecast.hourly.rain[thisHour] + forecast.hourly.showers[thisHour],
+                    forecast.hourly.snowfall[thisHour]);
+
+            CurrentWeather.Series current = new CurrentWeather.Series(CurrentWeather.SeriesType.CURRENT, 1);
+
+            current.addCurrent(
+                    forecast.hourly.time[thisHour] * 1000L,
+                    forecast.current.temperature_2m,
+                    forecast.current.apparent_temperature,
+                    Math.min((int) (forecast.current.visibility * 0.3048), 10000), //ft to m, cap of 1000m
+                    forecast.hourly.relativehumidity_2m[thisHour],
+                    forecast.current.windspeed_10m,
+                    forecast.current.winddirection_10m,
+                    (int) forecast.hourly.pressure_msl[thisHour],
+                    forecast.hourly.dewpoint_2m[thisHour],
+                    forecast.hourly.uv_index[thisHour],
+                    weatherCodeTable.getStandardCode(weatherCode),
+                    weatherCodeTable.getIconRes(weatherCode, forecast.hourly.is_day[thisHour] == 1),
+                    weatherCodeTable.getShortDescription(weatherCode),
                     weatherUtils
-                            .getWeatherDescription(new String[]{context.getString(getDescriptionResForWeatherCode(weatherCode))},
-                                    openMeteoCurrent.hourly.dewpoint_2m[thisHour],
-                                    openMeteoCurrent.current_weather.windspeed,
+                            .getWeatherDescription(new String[]{weatherCodeTable.getDescription(weatherCode)},
+                                    forecast.hourly.dewpoint_2m[thisHour],
+                                    forecast.current.windspeed_10m,
                                     0,
                                     precipitationIntensity,
                                     precipitationType,
                                     true),
                     precipitationIntensity,
                     precipitationType);
+
+            currentWeather.current = current.get(0);
         }
 
-        if (openMeteoDailyHourly.daily != null && openMeteoCurrent.hourly != null) {
-            currentWeather.daily = new CurrentWeather.DataPoint[openMeteoDailyHourly.daily.time.length];
-
-            for (int i = 0, l = openMeteoDailyHourly.daily.time.length; i < l; i++) {
-                ArrayList<Double> pressureArrayList = new ArrayList<>(24);
-                ArrayList<Double> humidityArrayList = new ArrayList<>(24);
-                ArrayList<Double> dewPointArrayList = new ArrayList<>(24);
-
-                //TODO calculate the daily pop?
-                for (int ii = 0, ll = openMeteoDailyHourly.hourly.time.length; ii < ll && pressureArrayList.size() < 24; ii++) {
-                    if (openMeteoDailyHourly.hourly.time[ii] >= openMeteoDailyHourly.daily.time[i] &&
-                            (i + 1 >= openMeteoDailyHourly.daily.time.length ||
-                                    openMeteoDailyHourly.hourly.time[ii] < openMeteoDailyHourly.daily.time[i + 1])) {
-                        pressureArrayList.add(openMeteoDailyHourly.hourly.pressure_msl[ii]);
-                        humidityArrayList.add((double) openMeteoDailyHourly.hourly.relativehumidity_2m[ii]);
-                        dewPointArrayList.add(openMeteoDailyHourly.hourly.dewpoint_2m[ii]);
-                    }
-                }
+        if (forecast.daily != null && forecast.hourly != null) {
+            currentWeather.daily = new CurrentWeather.Series(CurrentWeather.SeriesType.DAILY, forecast.daily.time.length);
 
-                int dailyPressure = (int) summarizeData(pressureArrayList);
-                int dailyHumidity = (int) summarizeData(humidityArrayList);
-                double dailyDewPoint = summarizeData(dewPointArrayList);
+            CelestialCache celestialCache = CelestialCache.getInstance(context);
+            ZoneTimeHelper zoneTimeHelper = ZoneTimeHelper.getInstance(currentWeather.timezone);
+            LocalDate lastDay = null;
+
+            DailyWindows dailyWindows = new DailyWindows(forecast.hourly.time, forecast.daily.time, 24);
+
+            for (int i = 0, l = dailyWindows.getDayCount(); i < l; i++) {
+                int dailyPressure = (int) dailyWindows.reduce(i, forecast.hourly.pressure_msl, DailyWindows.MEAN);
+                int dailyHumidity = dailyWindows.reduce(i, forecast.hourly.relativehumidity_2m, DailyWindows.INT_MEAN);
+                double dailyDewPoint = dailyWindows.reduce(i, forecast.hourly.dewpoint_2m, DailyWindows.MEAN);
+                int dailyPop = dailyWindows.isEmpty(i) ?
+                        forecast.daily.precipitation_probability_max[i] :
+                        dailyWindows.reduce(i, forecast.hourly.precipitation_probability, DailyWindows.PRECIPITATION_PROBABILITY);
 
                 double precipitationIntensity = weatherUtils.getPrecipitationIntensity(
-                        openMeteoDailyHourly.daily.rain_sum[i] + openMeteoDailyHourly.daily.showers_sum[i],
-                        openMeteoDailyHourly.daily.snowfall_sum[i]) * 25.4;
+                        forecast.daily.rain_sum[i] + forecast.daily.showers_sum[i],
+                        forecast.daily.snowfall_sum[i]) * 25.4;
                 PrecipType precipitationType = weatherUtils.getPrecipitationType(
-                        openMeteoDailyHourly.daily.rain_sum[i] + openMeteoDailyHourly.daily.showers_sum[i],
-                        openMeteoDailyHourly.daily.snowfall_sum[i]);
-
-                //TODO calculate the daily weathercode aggregation? currently it chooses the highest value
-                WeatherCode dailyWeatherCode = WeatherCode.from(openMeteoDailyHourly.daily.weathercode[i], WeatherCode.ERROR);
-
-                Calendar c = Calendar.getInstance(currentWeather.timezone);
-
-                c.setTimeInMillis(openMeteoDailyHourly.daily.time[i] * 1000);
-                c.add(Calendar.MILLISECOND, -currentWeather.timezone.getOffset(c.getTimeInMillis()));
-                c.set(Calendar.HOUR_OF_DAY, 0);
-                c.set(Calendar.MINUTE, 0);
-                c.set(Calendar.SECOND, 0);
-                c.set(Calendar.MILLISECOND, 0);
-
-                MoonTimes moonTimes = MoonTimes.compute()
-                        .timezone(currentWeather.timezone)
-                        .on(c)
-                        .at(latitude, longitude)
-                        .execute();
-
-                MoonIllumination moonIllumination = MoonIllumination.compute()
-                        .timezone(currentWeather.timezone)
-                        .on(c)
-                        .execute();
-
-                double moonPhase = (moonIllumination.getPhase() + 180.0) / 360.0;
-                Date moonRise = moonTimes.getRise();
-                Date moonSet = moonTimes.getSet();
-
-                currentWeather.daily[i] = new CurrentWeather.DataPoint(
-                        openMeteoDailyHourly.daily.time[i] * 1000L,
-                        openMeteoDailyHourly.daily.temperature_2m_max[i],
-                        openMeteoDailyHourly.daily.temperature_2m_min[i],
+                        forecast.daily.rain_sum[i] + forecast.daily.showers_sum[i],
+                        forecast.daily.snowfall_sum[i]);
+
+                //The weather most of the day, rather than Open-Meteo's most severe code of the day
+                int dailyWeatherCodeValue = dailyWindows.reduce(i, forecast.hourly.weathercode, DailyWindows.MODE);
+                WeatherCode dailyWeatherCode = WeatherCode.from(
+                        dailyWeatherCodeValue == -1 ? forecast.daily.weathercode[i] : dailyWeatherCodeValue,
+                        WeatherCode.ERROR);
+
+                long dayTimestamp = forecast.daily.time[i] * 1000;
+                LocalDate day = zoneTimeHelper.getLocalDate(dayTimestamp - zoneTimeHelper.getOffset(dayTimestamp));
+
+                WeatherDatabase.CelestialEvents celestialEvents =
+                        celestialCache.getCelestialEvents(latitude, longitude, currentWeather.timezone, day);
+
+                lastDay = day;
+
+                currentWeather.daily.addDaily(
+                        forecast.daily.time[i] * 1000L,
+                        forecast.daily.temperature_2m_max[i],
+                        forecast.daily.temperature_2m_min[i],
                         dailyHumidity,
-                        openMeteoDailyHourly.daily.windspeed_10m_max[i],
-                        openMeteoDailyHourly.daily.winddirection_10m_dominant[i],
+                        forecast.daily.windspeed_10m_max[i],
+                        forecast.daily.winddirection_10m_dominant[i],
                         dailyPressure,
                         dailyDewPoint,
-                        openMeteoDailyHourly.daily.uv_index_max[i],
-                        openMeteoDailyHourly.daily.precipitation_probability_max[i],
-                        getStandardWeatherCode(dailyWeatherCode),
-                        getWeatherIconRes(dailyWeatherCode, true),
-                        weatherUtils
-                                .getWeatherDescription(new String[]{context.getString(getDescriptionResForWeatherCode(dailyWeatherCode))}),
+                        forecast.daily.uv_index_max[i],
+                        dailyPop,
+                        weatherCodeTable.getStandardCode(dailyWeatherCode),
+                        weatherCodeTable.getIconRes(dailyWeatherCode, true),
+                        weatherCodeTable.getShortDescription(dailyWeatherCode),
                         weatherUtils
                                 .getWeatherDescription(
-                                        new String[]{context.getString(getDescriptionResForWeatherCode(dailyWeatherCode))},
+                                        new String[]{weatherCodeTable.getDescription(dailyWeatherCode)},
                                         dailyDewPoint,
-                                        openMeteoDailyHourly.daily.windspeed_10m_max[i],
-                                        openMeteoDailyHourly.daily.precipitation_probability_max[i],
+                                        forecast.daily.windspeed_10m_max[i],
+                                        dailyPop,
                                         precipitationIntensity,
                                         precipitationType,
                                         true),
                         precipitationIntensity,
                         precipitationType,
-                        openMeteoDailyHourly.daily.sunrise[i] * 1000L,
-                        openMeteoDailyHourly.daily.sunset[i] * 1000L,
-                        moonRise == null ? 0L : moonRise.getTime(),
-                        moonSet == null ? 0L : moonSet.getTime(),
-                        moonPhase);
+                        forecast.daily.sunrise[i] * 1000L,
+                        forecast.daily.sunset[i] * 1000L,
+                        celestialEvents.moonrise,
+                        celestialEvents.moonset,
+                        celestialEvents.moonPhase);
             }
-        }
 
-        if (openMeteoCurrent.hourly != null) {
-            ArrayList<CurrentWeather.DataPoint> hourlyList = new ArrayList<>();
-
-            for (int i = thisHour, l = openMeteoDailyHourly.hourly.time.length; i < l && (i - thisHour) < 48; i++) {
+            if (lastDay != null) {
+                celestialCache.prefetch(latitude, longitude, currentWeather.timezone, lastDay.plusDays(1), CELESTIAL_PREFETCH_DAYS);
+            }
+        }
 
-                hourlyList.add(new CurrentWeather.DataPoint(
-                        openMeteoDailyHourly.hourly.time[i] * 1000L,
-                        openMeteoDailyHourly.hourly.temperature_2m[i],
-                        getStandardWeatherCode(WeatherCode.from(openMeteoDailyHourly.hourly.weathercode[i], WeatherCode.ERROR)),
-                        openMeteoDailyHourly.hourly.relativehumidity_2m[i],
-                        openMeteoDailyHourly.hourly.windspeed_10m[i],
-                        openMeteoDailyHourly.hourly.winddirection_10m[i],
-                        openMeteoDailyHourly.hourly.uv_index[i],
-                        openMeteoDailyHourly.hourly.precipitation_probability[i],
+        if (forecast.hourly != null) {
+            int hourlyCount = Math.max(0, Math.min(48, forecast.hourly.time.length - thisHour));
+
+            currentWeather.hourly = new CurrentWeather.Series(CurrentWeather.SeriesType.HOURLY, hourlyCount);
+
+            for (int i = thisHour, l = thisHour + hourlyCount; i < l; i++) {
+                currentWeather.hourly.addHourly(
+                        forecast.hourly.time[i] * 1000L,
+                        forecast.hourly.temperature_2m[i],
+                        weatherCodeTable.getStandardCode(WeatherCode.from(forecast.hourly.weathercode[i], WeatherCode.ERROR)),
+                        forecast.hourly.relativehumidity_2m[i],
+                        forecast.hourly.windspeed_10m[i],
+                        forecast.hourly.winddirection_10m[i],
+                        forecast.hourly.uv_index[i],
+                        forecast.hourly.precipitation_probability[i],
                         weatherUtils.getPrecipitationIntensity(
-                                openMeteoDailyHourly.hourly.rain[i] + openMeteoDailyHourly.hourly.showers[i],
-                                openMeteoDailyHourly.hourly.snowfall[i]) * 25.4,
+                                forecast.hourly.rain[i] + forecast.hourly.showers[i],
+                                forecast.hourly.snowfall[i]) * 25.4,
                         weatherUtils.getPrecipitationType(
-                                openMeteoDailyHourly.hourly.rain[i] + openMeteoDailyHourly.hourly.showers[i],
-                                openMeteoDailyHourly.hourly.snowfall[i])));
+                                forecast.hourly.rain[i] + forecast.hourly.showers[i],
+                                forecast.hourly.snowfall[i]));
             }
-
-            currentWeather.hourly = hourlyList.toArray(new CurrentWeather.DataPoint[0]);
         }
 
-        ArrayList<CurrentWeather.DataPoint> forecastDataList = new ArrayList<>(48); // 6 days, every 3 hours
+        currentWeather.trihourly = new CurrentWeather.Series(CurrentWeather.SeriesType.TRIHOURLY,
+                (forecast.hourly.time.length + 2) / 3);
 
-        for (int i = 0, l = openMeteoDailyHourly.hourly.time.length; i < l; i += 3) {
-            if (openMeteoDailyHourly.hourly.time[i] * 1000 > currentTimestamp) {
-                WeatherCode hourlyWeatherCode = WeatherCode.from(openMeteoDailyHourly.hourly.weathercode[i], WeatherCode.ERROR);
+        for (int i = 0, l = forecast.hourly.time.length; i < l; i += 3) {
+            if (forecast.hourly.time[i] * 1000 > currentTimestamp) {
+                WeatherCode hourlyWeatherCode = WeatherCode.from(forecast.hourly.weathercode[i], WeatherCode.ERROR);
 
-                forecastDataList.add(new CurrentWeather.DataPoint(
-                        openMeteoDailyHourly.hourly.time[i] * 1000L,
-                        openMeteoDailyHourly.hourly.temperature_2m[i],
-                        getWeatherIconRes(hourlyWeatherCode, openMeteoDailyHourly.hourly.is_day[i] == 1),
-                        context.getString(getDescriptionResForWeatherCode(hourlyWeatherCode)),
-                        openMeteoDailyHourly.hourly.precipitation_probability[i],
+                currentWeather.trihourly.addTrihourly(
+                        forecast.hourly.time[i] * 1000L,
+                        forecast.hourly.temperature_2m[i],
+                        weatherCodeTable.getIconRes(hourlyWeatherCode, forecast.hourly.is_day[i] == 1),
+                        weatherCodeTable.getDescription(hourlyWeatherCode),
+                        forecast.hourly.precipitation_probability[i],
                         weatherUtils.getPrecipitationIntensity(
-                                openMeteoDailyHourly.hourly.rain[i] + openMeteoDailyHourly.hourly.showers[i],
-                                openMeteoDailyHourly.hourly.snowfall[i]) * 25.4,
+                                forecast.hourly.rain[i] + forecast.hourly.showers[i],
+                                forecast.hourly.snowfall[i]) * 25.4,
                         weatherUtils.getPrecipitationType(
-                                openMeteoDailyHourly.hourly.rain[i] + openMeteoDailyHourly.hourly.showers[i],
-                                openMeteoDailyHourly.hourly.snowfall[i])
-                ));
+                                forecast.hourly.rain[i] + forecast.hourly.showers[i],
+                                forecast.hourly.snowfall[i])
+                );
             }
         }
 
-        currentWeather.trihourly = forecastDataList.toArray(new CurrentWeather.DataPoint[0]);
-
         return currentWeather;
     }
 
     public boolean testConnection(String selfHostedInstance, String apiKey) {
         try {
-            String url = String.format(Locale.US,
-                    CURRENT_WEATHER_API,
-                    selfHostedInstance.isEmpty() ? "https://api.open-meteo.com" : selfHostedInstance,
-                    33.749,
-                    -84.388);
-
-            if (!apiKey.isEmpty()) {
-                url += "&apikey=" + apiKey;
-            }
+            String url = OpenMeteoRequestPlanner.getConnectionTestUrl(
+                    selfHostedInstance.isEmpty() ? DEFAULT_INSTANCE : selfHostedInstance,
+                    apiKey,
+                    formatCoordinate(33.749),
+                    formatCoordinate(-84.388));
 
-            new HttpRequest(url)
-                    .addHeader("User-Agent", USER_AGENT)
-                    .fetch();
+            HttpClient.getInstance().get(url);
 
             return true;
         } catch (HttpException | IOException e) {
@@ -380,11 +478,11 @@ public class OpenMeteo {
 
         ArrayList<Address> resultList = new ArrayList<>();
         String language = Locale.getDefault().getLanguage().substring(0, 2);
-        JSONObject resultObj = new JSONObject(new HttpRequest(String.format(GEOCODER_API, encodedName, language)).fetch());
-
-        if (resultObj.has("results")) {
-            OpenMeteoGeocoderResult[] results = JsonUtils.deserialize(OpenMeteoGeocoderResult.class, resultObj.getJSONArray("results"));
+        OpenMeteoGeocoderResult[] results = HttpClient.getInstance().get(
+                String.format(GEOCODER_API, encodedName, language),
+                body -> JsonReaderUtils.read(body.charStream(), OpenMeteo::readGeocoderResults));
 
+        if (results != null) {
             for (OpenMeteoGeocoderResult result : results) {
                 Address a = new Address(Locale.getDefault());
                 a.setLatitude(result.latitude);
@@ -417,8 +515,21 @@ public class OpenMeteo {
         return resultList;
     }
 
+    private synchronized WeatherCodeTable getWeatherCodeTable(Context context) {
+        if (weatherCodeTable == null) {
+            weatherCodeTable = new WeatherCodeTable(context);
+        }
+
+        return weatherCodeTable;
+    }
+
+    @Override
+    public synchronized void onLocaleChanged() {
+        weatherCodeTable = null;
+    }
+
     @StringRes
-    private int getDescriptionResForWeatherCode(WeatherCode weathercode) {
+    private static int getDescriptionResForWeatherCode(WeatherCode weathercode) {
         return switch (weathercode) {
             case CLEARSKY -> R.string.openmeteo_clearsky;
             case MAINLYCLEAR -> R.string.openmeteo_mainlyclear;
@@ -453,7 +564,7 @@ public class OpenMeteo {
 
     }
 
-    private int getStandardWeatherCode(WeatherCode weathercode) {
+    private static int getStandardWeatherCode(WeatherCode weathercode) {
         return switch (weathercode) {
             case CLEARSKY -> 800;
             case MAINLYCLEAR -> 801;
@@ -484,7 +595,7 @@ public class OpenMeteo {
     }
 
     @DrawableRes
-    private int getWeatherIconRes(WeatherCode weathercode, boolean isDay) {
+    private static int getWeatherIconRes(WeatherCode weathercode, boolean isDay) {
         return switch (weathercode) {
             case CLEARSKY -> isDay ? R.drawable.sun : R.drawable.moon_25;
             case MAINLYCLEAR, PARTLYCLOUDY, OVERCAST ->
@@ -506,17 +617,6 @@ public class OpenMeteo {
 
     }
 
-    //TODO use median instead of mean?
-    private double summarizeData(List<Double> data) {
-        double total = 0;
-
-        for (double datum : data) {
-            total += datum;
-        }
-
-        return total / data.size();
-    }
-
     private enum WeatherCode {
         CLEARSKY(0),
         MAINLYCLEAR(1),
@@ -548,6 +648,16 @@ public class OpenMeteo {
         THUNDERSTORMHEAVY(99),
         ERROR(-1);
 
+        private final static WeatherCode[] fromValue = new WeatherCode[100];
+
+        static {
+            for (WeatherCode v : values()) {
+                if (v.value >= 0) {
+                    fromValue[v.value] = v;
+                }
+            }
+        }
+
         private final int value;
 
         WeatherCode(int value) {
@@ -555,15 +665,59 @@ public class OpenMeteo {
         }
 
         public static WeatherCode from(int value, WeatherCode defaultValue) {
-            for (WeatherCode v : values()) {
-                if (v.value == value) {
-                    return v;
-                }
+            WeatherCode weatherCode = value >= 0 && value < fromValue.length ? fromValue[value] : null;
+
+            return weatherCode == null ? defaultValue : weatherCode;
+        }
+
+    }
+
+    //Everything the transform needs per weather code, built once for the current locale so the
+    //per-point loops do no resource lookups or string building
+    private static class WeatherCodeTable {
+        private final int[] standardCodes;
+        private final int[] dayIconRes;
+        private final int[] nightIconRes;
+        private final String[] descriptions;
+        private final String[] shortDescriptions;
+
+        WeatherCodeTable(Context context) {
+            WeatherCode[] weatherCodes = WeatherCode.values();
+            WeatherUtils weatherUtils = WeatherUtils.getInstance(context);
+
+            standardCodes = new int[weatherCodes.length];
+            dayIconRes = new int[weatherCodes.length];
+            nightIconRes = new int[weatherCodes.length];
+            descriptions = new String[weatherCodes.length];
+            shortDescriptions = new String[weatherCodes.length];
+
+            for (WeatherCode weatherCode : weatherCodes) {
+                int i = weatherCode.ordinal();
+
+                standardCodes[i] = getStandardWeatherCode(weatherCode);
+                dayIconRes[i] = getWeatherIconRes(weatherCode, true);
+                nightIconRes[i] = getWeatherIconRes(weatherCode, false);
+                descriptions[i] = context.getString(getDescriptionResForWeatherCode(weatherCode));
+                shortDescriptions[i] = weatherUtils.getWeatherDescription(new String[]{descriptions[i]});
             }
+        }
+
+        int getStandardCode(WeatherCode weatherCode) {
+            return standardCodes[weatherCode.ordinal()];
+        }
 
-            return defaultValue;
+        @DrawableRes
+        int getIconRes(WeatherCode weatherCode, boolean isDay) {
+            return isDay ? dayIconRes[weatherCode.ordinal()] : nightIconRes[weatherCode.ordinal()];
         }
 
+        String getDescription(WeatherCode weatherCode) {
+            return descriptions[weatherCode.ordinal()];
+        }
+
+        String getShortDescription(WeatherCode weatherCode) {
+            return shortDescriptions[weatherCode.ordinal()];
+        }
     }
 
 }
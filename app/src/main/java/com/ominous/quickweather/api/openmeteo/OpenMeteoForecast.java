@@ -19,23 +19,24 @@
 
 package com.ominous.quickweather.api.openmeteo;
 
+import com.ominous.quickweather.processor.GenerateJsonReader;
+
+@GenerateJsonReader
 public class OpenMeteoForecast {
     public String timezone;
     public HourlyData hourly;
     public DailyData daily;
-    public CurrentData current_weather;
+    public CurrentData current;
 
     public static class HourlyData {
         public long[] time;
         public int[] relativehumidity_2m;
         public double[] dewpoint_2m;
-        public double[] apparent_temperature;
         public double[] rain;
         public double[] showers;
         public double[] snowfall;
         public double[] temperature_2m;
         public double[] pressure_msl;
-        public double[] visibility;
         public double[] uv_index;
         public int[] is_day;
         public int[] weathercode;
@@ -45,9 +46,11 @@ public class OpenMeteoForecast {
     }
 
     public static class CurrentData {
-        public double temperature;
-        public double windspeed;
-        public int winddirection;
+        public double temperature_2m;
+        public double apparent_temperature;
+        public double visibility;
+        public double windspeed_10m;
+        public int winddirection_10m;
         public int weathercode;
     }
 
@@ -19,6 +19,9 @@
 
 package com.ominous.quickweather.api.openmeteo;
 
+import com.ominous.quickweather.processor.GenerateJsonReader;
+
+@GenerateJsonReader
 public class OpenMeteoGeocoderResult {
     public String name;
     public double latitude;
@@ -0,0 +1,337 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.ominous.quickweather.api.openmeteo;
+
+import com.ominous.quickweather.api.HttpClient;
+import com.ominous.quickweather.api.NotModifiedException;
+import com.ominous.quickweather.data.RefreshTrace;
+import com.ominous.tylerutils.async.Promise;
+import com.ominous.tylerutils.http.HttpException;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Open-Meteo instances ranked by an exponentially weighted moving average of their latency.
+ * A request goes to the fastest healthy instance, and is hedged to the next one if the primary
+ * has not answered within its p95 latency. The first good response wins and the other call is
+ * cancelled. Instances that keep failing are skipped until a background probe succeeds.
+ */
+class OpenMeteoInstancePool {
+    private final static double EWMA_ALPHA = 0.3;
+    private final static int LATENCY_WINDOW = 32;
+    private final static int MIN_DEADLINE_SAMPLES = 8;
+    private final static long DEFAULT_HEDGE_DELAY = 1500;
+    private final static long MIN_HEDGE_DELAY = 250;
+    private final static long MAX_HEDGE_DELAY = 5000;
+    private final static long FAILURE_PENALTY = 10000; //counted as the latency of a failed request
+    private final static int UNHEALTHY_THRESHOLD = 3;
+    private final static long PROBE_INTERVAL = 60 * 1000;
+    private final static int MAX_THREADS = 4; //a primary and a hedge for two locations at once
+    private final static long THREAD_KEEP_ALIVE = 30; //seconds
+
+    private final Map<String, InstanceStats> instanceStats = new ConcurrentHashMap<>();
+    private final ExecutorService executorService = createExecutorService();
+
+    //Idle threads time out, so the pool holds no threads between refreshes
+    private static ExecutorService createExecutorService() {
+        AtomicInteger threadCount = new AtomicInteger(0);
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(
+                MAX_THREADS,
+                MAX_THREADS,
+                THREAD_KEEP_ALIVE,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "OpenMeteoInstancePool-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+
+                    return thread;
+                });
+
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+        return threadPoolExecutor;
+    }
+
+    //Instances are in order of preference, which breaks ties between instances without samples
+    <T> T execute(List<String> instances,
+                  IHealthProbe healthProbe,
+                  IInstanceRequest<T> instanceRequest)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        if (instances.size() == 1) {
+            return instanceRequest.execute(instances.get(0), null);
+        }
+
+        List<String> rankedInstances = rankInstances(instances);
+        probeUnhealthyInstances(instances, healthProbe);
+
+        ExecutorCompletionService<Attempt<T>> completionService = new ExecutorCompletionService<>(executorService);
+        ArrayList<Attempt<T>> attempts = new ArrayList<>(2);
+        Exception firstError = null;
+
+        try {
+            attempts.add(submit(completionService, rankedInstances.get(0), instanceRequest));
+
+            Future<Attempt<T>> completedAttempt = completionService.poll(
+                    getStats(rankedInstances.get(0)).getHedgeDelay(),
+                    TimeUnit.MILLISECONDS);
+
+            if (completedAttempt == null) {
+                attempts.add(submit(completionService, rankedInstances.get(1), instanceRequest));
+                completedAttempt = completionService.take();
+            }
+
+            for (int pending = attempts.size(); ; ) {
+                Attempt<T> attempt = completedAttempt.get();
+                pending--;
+
+                if (attempt.error == null || attempt.error instanceof NotModifiedException) {
+                    cancel(attempts, attempt);
+
+                    if (attempt.error != null) {
+                        throw (NotModifiedException) attempt.error;
+                    }
+
+                    return attempt.result;
+                }
+
+                if (firstError == null) {
+                    firstError = attempt.error;
+                }
+
+                //The primary failed before the hedge deadline, so fail over right away
+                if (attempts.size() == 1) {
+                    attempts.add(submit(completionService, rankedInstances.get(1), instanceRequest));
+                    pending++;
+                }
+
+                if (pending == 0) {
+                    break;
+                }
+
+                completedAttempt = completionService.take();
+            }
+        } catch (InterruptedException e) {
+            cancel(attempts, null);
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("Interrupted while waiting for Open-Meteo");
+        } catch (ExecutionException e) {
+            firstError = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+
+        if (firstError instanceof IOException) {
+            throw (IOException) firstError;
+        } else if (firstError instanceof JSONException) {
+            throw (JSONException) firstError;
+        } else if (firstError instanceof InstantiationException) {
+            throw (InstantiationException) firstError;
+        } else if (firstError instanceof IllegalAccessException) {
+            throw (IllegalAccessException) firstError;
+        } else if (firstError instanceof HttpException) {
+            throw (HttpException) firstError;
+        } else if (firstError instanceof RuntimeException) {
+            throw (RuntimeException) firstError;
+        } else {
+            throw new RuntimeException(firstError);
+        }
+    }
+
+    //Healthy instances first, then by latency score. Unhealthy instances add the failure penalty
+    //to their score, which is read once so concurrent updates cannot reorder the sort.
+    private List<String> rankInstances(List<String> instances) {
+        ArrayList<String> rankedInstances = new ArrayList<>(instances);
+        Map<String, Double> scores = new HashMap<>();
+
+        for (String instance : instances) {
+            InstanceStats stats = getStats(instance);
+
+            scores.put(instance, stats.getScore() + (stats.isHealthy() ? 0 : FAILURE_PENALTY * UNHEALTHY_THRESHOLD));
+        }
+
+        rankedInstances.sort((a, b) -> Double.compare(scores.get(a), scores.get(b)));
+
+        return rankedInstances;
+    }
+
+    private void probeUnhealthyInstances(List<String> instances, IHealthProbe healthProbe) {
+        long now = System.currentTimeMillis();
+
+        for (String instance : instances) {
+            InstanceStats stats = getStats(instance);
+
+            if (stats.shouldProbe(now)) {
+                Promise.create(a -> {
+                    if (healthProbe.isHealthy(instance)) {
+                        stats.onProbeSucceeded();
+                    }
+                });
+            }
+        }
+    }
+
+    private <T> Attempt<T> submit(ExecutorCompletionService<Attempt<T>> completionService,
+                                  String instance,
+                                  IInstanceRequest<T> instanceRequest) {
+        Attempt<T> attempt = new Attempt<>(instance);
+
+        completionService.submit(RefreshTrace.wrap(() -> attempt.run(instanceRequest)), attempt);
+
+        return attempt;
+    }
+
+    private void cancel(List<? extends Attempt<?>> attempts, Attempt<?> winner) {
+        for (Attempt<?> attempt : attempts) {
+            if (attempt != winner) {
+                attempt.isCancelled = true;
+                HttpClient.getInstance().cancel(attempt);
+            }
+        }
+    }
+
+    private InstanceStats getStats(String instance) {
+        return instanceStats.computeIfAbsent(instance, k -> new InstanceStats());
+    }
+
+    interface IInstanceRequest<T> {
+        //The tag identifies the request's HTTP calls, so they can be cancelled
+        T execute(String instance, Object tag)
+                throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException;
+    }
+
+    interface IHealthProbe {
+        boolean isHealthy(String instance);
+    }
+
+    private class Attempt<T> {
+        private final String instance;
+        private volatile boolean isCancelled = false;
+        private T result;
+        private Exception error;
+
+        private Attempt(String instance) {
+            this.instance = instance;
+        }
+
+        private void run(IInstanceRequest<T> instanceRequest) {
+            long start = System.currentTimeMillis();
+
+            try {
+                result = instanceRequest.execute(instance, this);
+
+                getStats(instance).onSuccess(System.currentTimeMillis() - start);
+            } catch (NotModifiedException e) {
+                error = e;
+
+                getStats(instance).onSuccess(System.currentTimeMillis() - start);
+            } catch (Exception e) {
+                error = e;
+
+                //A cancelled loser says nothing about the instance
+                if (!isCancelled) {
+                    getStats(instance).onFailure(System.currentTimeMillis());
+                }
+            }
+        }
+    }
+
+    private static class InstanceStats {
+        private final long[] latencies = new long[LATENCY_WINDOW];
+        private int latencyCount = 0;
+        private int latencyPosition = 0;
+        private double ewma = 0;
+        private int consecutiveFailures = 0;
+        private long nextProbeAt = 0;
+
+        private synchronized void onSuccess(long latency) {
+            updateEwma(latency);
+
+            latencies[latencyPosition] = latency;
+            latencyPosition = (latencyPosition + 1) % LATENCY_WINDOW;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_WINDOW);
+
+            consecutiveFailures = 0;
+        }
+
+        private synchronized void onFailure(long now) {
+            updateEwma(FAILURE_PENALTY);
+
+            if (++consecutiveFailures == UNHEALTHY_THRESHOLD) {
+                nextProbeAt = now + PROBE_INTERVAL;
+            }
+        }
+
+        private synchronized void onProbeSucceeded() {
+            consecutiveFailures = 0;
+        }
+
+        private synchronized boolean shouldProbe(long now) {
+            if (isHealthy() || now < nextProbeAt) {
+                return false;
+            }
+
+            nextProbeAt = now + PROBE_INTERVAL;
+
+            return true;
+        }
+
+        private synchronized boolean isHealthy() {
+            return consecutiveFailures < UNHEALTHY_THRESHOLD;
+        }
+
+        //Instances without samples score 0, so they are tried before falling back on latency
+        private synchronized double getScore() {
+            return ewma;
+        }
+
+        private synchronized long getHedgeDelay() {
+            if (latencyCount < MIN_DEADLINE_SAMPLES) {
+                return DEFAULT_HEDGE_DELAY;
+            }
+
+            long[] sortedLatencies = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sortedLatencies);
+
+            long p95 = sortedLatencies[(int) Math.ceil(0.95 * latencyCount) - 1];
+
+            return Math.max(MIN_HEDGE_DELAY, Math.min(MAX_HEDGE_DELAY, p95));
+        }
+
+        private void updateEwma(long latency) {
+            ewma = ewma == 0 ? latency : EWMA_ALPHA * latency + (1 - EWMA_ALPHA) * ewma;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api.openmeteo;
+
+/**
+ * Builds the single forecast request used by {@link OpenMeteo}.
+ * Only the variables read when building {@link com.ominous.quickweather.data.CurrentWeather} are requested.
+ */
+final class OpenMeteoRequestPlanner {
+    //Values that are only needed for the current conditions
+    private final static String[] CURRENT_VARIABLES = {
+            "temperature_2m",
+            "apparent_temperature",
+            "visibility",
+            "windspeed_10m",
+            "winddirection_10m",
+            "weathercode"
+    };
+
+    //Used by the current conditions, the hourly and trihourly forecasts, and the daily summaries
+    private final static String[] HOURLY_VARIABLES = {
+            "temperature_2m",
+            "relativehumidity_2m",
+            "dewpoint_2m",
+            "precipitation_probability",
+            "rain",
+            "showers",
+            "snowfall",
+            "pressure_msl",
+            "windspeed_10m",
+            "winddirection_10m",
+            "uv_index",
+            "is_day",
+            "weathercode"
+    };
+
+    private final static String[] DAILY_VARIABLES = {
+            "weathercode",
+            "temperature_2m_max",
+            "temperature_2m_min",
+            "uv_index_max",
+            "rain_sum",
+            "showers_sum",
+            "snowfall_sum",
+            "precipitation_probability_max",
+            "windspeed_10m_max",
+            "winddirection_10m_dominant",
+            "sunrise",
+            "sunset"
+    };
+
+    //The daily forecast shows 8 days, and each day summarizes a full day of hourly data,
+    //so hourly data starts at midnight and cannot be trimmed further
+    private final static int FORECAST_DAYS = 8;
+
+    private final static String UNITS = "&temperature_unit=fahrenheit&windspeed_unit=mph&precipitation_unit=inch&timeformat=unixtime&timezone=auto";
+
+    private OpenMeteoRequestPlanner() {
+
+    }
+
+    static String getForecastUrl(String instance, String apiKey, String latitudes, String longitudes) {
+        return buildUrl(instance, apiKey, latitudes, longitudes,
+                CURRENT_VARIABLES, HOURLY_VARIABLES, DAILY_VARIABLES, FORECAST_DAYS);
+    }
+
+    static String getConnectionTestUrl(String instance, String apiKey, String latitude, String longitude) {
+        return buildUrl(instance, apiKey, latitude, longitude,
+                new String[]{"temperature_2m"}, null, null, 1);
+    }
+
+    private static String buildUrl(String instance,
+                                   String apiKey,
+                                   String latitudes,
+                                   String longitudes,
+                                   String[] currentVariables,
+                                   String[] hourlyVariables,
+                                   String[] dailyVariables,
+                                   int forecastDays) {
+        StringBuilder url = new StringBuilder(instance)
+                .append("/v1/forecast?latitude=").append(latitudes)
+                .append("&longitude=").append(longitudes);
+
+        appendVariables(url, "current", currentVariables);
+        appendVariables(url, "hourly", hourlyVariables);
+        appendVariables(url, "daily", dailyVariables);
+
+        url.append(UNITS).append("&forecast_days=").append(forecastDays);
+
+        if (!apiKey.isEmpty()) {
+            url.append("&apikey=").append(apiKey);
+        }
+
+        return url.toString();
+    }
+
+    private static void appendVariables(StringBuilder url, String parameter, String[] variables) {
+        if (variables != null && variables.length > 0) {
+            url.append('&').append(parameter).append('=').append(String.join(",", variables));
+        }
+    }
+}
@@ -19,13 +19,12 @@
 
 package com.ominous.quickweather.api.openweather;
 
+import com.ominous.quickweather.processor.GenerateJsonReader;
 import com.ominous.tylerutils.annotation.JSONFieldName;
 
-import java.util.Calendar;
-import java.util.TimeZone;
-
+@GenerateJsonReader
 public class OpenWeatherForecast {
-    public final long timestamp = Calendar.getInstance(TimeZone.getTimeZone("GMT")).getTimeInMillis();
+    public final long timestamp = System.currentTimeMillis();
     public ForecastData[] list;
 
     public static class ForecastData {
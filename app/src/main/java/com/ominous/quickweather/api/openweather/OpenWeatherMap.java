@@ -23,36 +23,44 @@ import android.content.Context;
 import android.content.res.Resources;
 
 import com.ominous.quickweather.R;
+import com.ominous.quickweather.api.HttpClient;
+import com.ominous.quickweather.api.IWeatherProvider;
+import com.ominous.quickweather.api.JsonReaderUtils;
+import com.ominous.quickweather.api.NotModifiedException;
 import com.ominous.quickweather.data.CurrentWeather;
 import com.ominous.quickweather.data.PrecipType;
+import com.ominous.quickweather.data.RefreshTrace;
 import com.ominous.quickweather.pref.OwmApiVersion;
+import com.ominous.quickweather.pref.WeatherPreferences;
 import com.ominous.quickweather.util.WeatherUtils;
 import com.ominous.tylerutils.http.HttpException;
-import com.ominous.tylerutils.http.HttpRequest;
-import com.ominous.tylerutils.util.JsonUtils;
 import com.ominous.tylerutils.util.StringUtils;
 import com.ominous.tylerutils.work.ParallelThreadManager;
 
 import org.json.JSONException;
-import org.json.JSONObject;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.TimeZone;
 import java.util.concurrent.ConcurrentHashMap;
 
 import androidx.annotation.DrawableRes;
+import androidx.annotation.VisibleForTesting;
 
-public class OpenWeatherMap {
+public class OpenWeatherMap implements IWeatherProvider {
     private final static String uriFormatOneCall = "https://api.openweathermap.org/data/%5$s/onecall?appid=%1$s&lat=%2$f&lon=%3$f&lang=%4$s&units=imperial";
     private final static String uriFormatForecast = "https://api.openweathermap.org/data/2.5/forecast?appid=%1$s&lat=%2$f&lon=%3$f&lang=%4$s&units=imperial";
     private final static String uriFormatWeather = "https://api.openweathermap.org/data/2.5/weather?appid=%1$s&lat=%2$f&lon=%3$f&lang=%4$s&units=imperial";
 
-    private final static String USER_AGENT = "QuickWeather - https://play.google.com/store/apps/details?id=com.ominous.quickweather";
+    private final static int MAX_CACHED_DESCRIPTIONS = 256;
+
+    private final static int[][] iconResByCode = buildIconResTable();
+
+    private final ConcurrentHashMap<String, String> shortDescriptions = new ConcurrentHashMap<>();
 
     private static OpenWeatherMap instance;
 
@@ -88,14 +96,12 @@ public class OpenWeatherMap {
             ParallelThreadManager.execute(
                     () -> {
                         try {
-                            new HttpRequest(
+                            HttpClient.getInstance().get(
                                     String.format(Locale.US, uriFormatOneCall, apiKey,
                                             33.749,
                                             -84.388,
                                             getLang(Locale.getDefault()),
-                                            "3.0"))
-                                    .addHeader("User-Agent", USER_AGENT)
-                                    .fetch();
+                                            "3.0"));
 
                             results.put(OwmApiVersion.ONECALL_3_0, true);
                         } catch (HttpException e) {
@@ -106,14 +112,12 @@ public class OpenWeatherMap {
                     },
                     () -> {
                         try {
-                            new HttpRequest(
+                            HttpClient.getInstance().get(
                                     String.format(Locale.US, uriFormatWeather, apiKey,
                                             33.749,
                                             -84.388,
                                             getLang(Locale.getDefault())
-                                    ))
-                                    .addHeader("User-Agent", USER_AGENT)
-                                    .fetch();
+                                    ));
 
                             results.put(OwmApiVersion.WEATHER_2_5, true);
                         } catch (HttpException e) {
@@ -142,60 +146,137 @@ public class OpenWeatherMap {
         return null;
     }
 
+    //Icons are looked up by condition id first, since a few conditions have a more specific icon
     public int getIconFromCode(String icon, Integer weatherId) {
-        if (icon != null) {
-            int resId = weatherId != null ? getIconRes(weatherId.toString() + icon.charAt(2)) : R.drawable.ic_error_outline_white_24dp;
+        if (icon != null && icon.length() == 3) {
+            boolean isDay = icon.charAt(2) == 'd';
+            int resId = weatherId != null ? getIconRes(weatherId, isDay) : R.drawable.ic_error_outline_white_24dp;
+
+            if (resId == R.drawable.ic_error_outline_white_24dp) {
+                int iconCode = (icon.charAt(0) - '0') * 10 + icon.charAt(1) - '0';
 
-            return resId == R.drawable.ic_error_outline_white_24dp ? getIconRes(icon) : resId;
+                resId = iconCode >= 0 && iconCode < iconResByCode.length ?
+                        (isDay ? iconResByCode[iconCode][0] : iconResByCode[iconCode][1]) :
+                        R.drawable.ic_error_outline_white_24dp;
+            }
+
+            return resId;
         } else {
             return R.drawable.ic_error_outline_white_24dp;
         }
+    }
+
+    @Override
+    public void onLocaleChanged() {
+        shortDescriptions.clear();
+    }
+
+    //The descriptions come localized from the API, so only the formatting is cached per locale
+    private String getShortDescription(WeatherUtils weatherUtils, String[] weatherDescriptions) {
+        if (weatherDescriptions.length != 1 || weatherDescriptions[0] == null) {
+            return weatherUtils.getWeatherDescription(weatherDescriptions);
+        }
+
+        String shortDescription = shortDescriptions.get(weatherDescriptions[0]);
+
+        if (shortDescription == null) {
+            shortDescription = weatherUtils.getWeatherDescription(weatherDescriptions);
+
+            if (shortDescriptions.size() < MAX_CACHED_DESCRIPTIONS) {
+                shortDescriptions.put(weatherDescriptions[0], shortDescription);
+            }
+        }
 
+        return shortDescription;
     }
 
+    @Override
+    public String getInstanceKey(WeatherPreferences weatherPreferences) {
+        return null;
+    }
+
+    @Override
+    public CurrentWeather getCurrentWeather(Context context,
+                                            WeatherPreferences weatherPreferences,
+                                            double latitude,
+                                            double longitude,
+                                            boolean ifModified)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        if (weatherPreferences.getOwmApiVersion() != OwmApiVersion.ONECALL_3_0) {
+            throw new IllegalArgumentException("Illegal OwmApiVersion provided");
+        }
+
+        return getCurrentWeatherFromOneCall(context,
+                latitude,
+                longitude,
+                weatherPreferences.getOWMAPIKey(),
+                ifModified);
+    }
+
+    //With ifModified, throws NotModifiedException when neither response has changed since the last request
     public CurrentWeather getCurrentWeatherFromOneCall(
             Context context,
             double latitude,
             double longitude,
-            String apiKey)
+            String apiKey,
+            boolean ifModified)
             throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
-        ConcurrentHashMap<Integer, JSONObject> results = new ConcurrentHashMap<>(2);
+        ConcurrentHashMap<Integer, Object> results = new ConcurrentHashMap<>(2);
         ConcurrentHashMap<Integer, Exception> exceptions = new ConcurrentHashMap<>(2);
 
+        String oneCallUrl = String.format(Locale.US, uriFormatOneCall, apiKey,
+                latitude,
+                longitude,
+                getLang(Locale.getDefault()),
+                "3.0");
+        String forecastUrl = String.format(Locale.US, uriFormatForecast, apiKey,
+                latitude,
+                longitude,
+                getLang(Locale.getDefault()));
+
+        HttpClient.IResponseReader<OpenWeatherOneCall> oneCallReader =
+                body -> JsonReaderUtils.read(body.charStream(), OpenWeatherOneCallJsonReader::read);
+        HttpClient.IResponseReader<OpenWeatherForecast> forecastReader =
+                body -> JsonReaderUtils.read(body.charStream(), OpenWeatherForecastJsonReader::read);
+
         try {
             ParallelThreadManager.execute(
-                    () -> {
+                    RefreshTrace.wrap(() -> {
                         try {
-                            results.put(1, new JSONObject(new HttpRequest(
-                                    String.format(Locale.US, uriFormatOneCall, apiKey,
-                                            latitude,
-                                            longitude,
-                                            getLang(Locale.getDefault()),
-                                            "3.0"))
-                                    .addHeader("User-Agent", USER_AGENT)
-                                    .fetch()));
+                            results.put(1, ifModified ?
+                                    HttpClient.getInstance().getIfModified(oneCallUrl, oneCallReader) :
+                                    HttpClient.getInstance().get(oneCallUrl, oneCallReader));
                         } catch (HttpException | IOException | JSONException e) {
                             exceptions.put(1, e);
                         }
-                    },
-                    () -> {
+                    }),
+                    RefreshTrace.wrap(() -> {
                         try {
-                            results.put(2, new JSONObject(new HttpRequest(
-                                    String.format(Locale.US, uriFormatForecast, apiKey,
-                                            latitude,
-                                            longitude,
-                                            getLang(Locale.getDefault())))
-                                    .addHeader("User-Agent", USER_AGENT)
-                                    .fetch()));
+                            results.put(2, ifModified ?
+                                    HttpClient.getInstance().getIfModified(forecastUrl, forecastReader) :
+                                    HttpClient.getInstance().get(forecastUrl, forecastReader));
                         } catch (HttpException | IOException | JSONException e) {
                             exceptions.put(2, e);
                         }
-                    }
+                    })
                 );
         } catch (InterruptedException e) {
             throw new RuntimeException(e);
         }
 
+        //Both responses are needed, so an unchanged one is only skipped if the other is unchanged too.
+        //Otherwise it is read back from the HTTP cache, which was just revalidated.
+        if (exceptions.get(1) instanceof NotModifiedException &&
+                exceptions.get(2) instanceof NotModifiedException) {
+            throw (NotModifiedException) exceptions.get(1);
+        } else if (exceptions.get(1) instanceof NotModifiedException && exceptions.get(2) == null) {
+            exceptions.remove(1);
+            results.put(1, HttpClient.getInstance().get(oneCallUrl, oneCallReader));
+        } else if (exceptions.get(2) instanceof NotModifiedException && exceptions.get(1) == null) {
+            exceptions.remove(2);
+            results.put(2, HttpClient.getInstance().get(forecastUrl, forecastReader));
+        }
+
         if (!exceptions.isEmpty()) {
             Exception lastException = exceptions.values().iterator().next();
 
@@ -210,19 +291,28 @@ public class OpenWeatherMap {
             }
         }
 
-        OpenWeatherOneCall openWeatherOneCall = JsonUtils.deserialize(
-                OpenWeatherOneCall.class,
-                results.get(1));
+        OpenWeatherOneCall openWeatherOneCall = (OpenWeatherOneCall) results.get(1);
+        OpenWeatherForecast openWeatherForecast = (OpenWeatherForecast) results.get(2);
 
-        OpenWeatherForecast openWeatherForecast = JsonUtils.deserialize(
-                OpenWeatherForecast.class,
-                results.get(2));
+        if (openWeatherOneCall == null || openWeatherForecast == null) {
+            throw new JSONException("Unexpected OpenWeatherMap response");
+        }
 
+        return getCurrentWeather(context, latitude, longitude, openWeatherOneCall, openWeatherForecast);
+    }
+
+    @VisibleForTesting(otherwise = VisibleForTesting.PRIVATE)
+    public CurrentWeather getCurrentWeather(Context context,
+                                            double latitude,
+                                            double longitude,
+                                            OpenWeatherOneCall openWeatherOneCall,
+                                            OpenWeatherForecast openWeatherForecast) {
+        long startNanos = System.nanoTime();
         WeatherUtils weatherUtils = WeatherUtils.getInstance(context);
         CurrentWeather currentWeather = new CurrentWeather();
 
         currentWeather.timezone = TimeZone.getTimeZone(openWeatherOneCall.timezone);
-        currentWeather.timestamp = Calendar.getInstance(currentWeather.timezone).getTimeInMillis();
+        currentWeather.timestamp = System.currentTimeMillis();
         currentWeather.latitude = latitude;
         currentWeather.longitude = longitude;
 
@@ -244,8 +334,7 @@ public class OpenWeatherMap {
                     weatherDescriptions[i] = openWeatherOneCall.current.weather[i].description;
                 }
 
-                weatherDescription = WeatherUtils.getInstance(context)
-                        .getWeatherDescription(weatherDescriptions);
+                weatherDescription = getShortDescription(weatherUtils, weatherDescriptions);
                 weatherLongDescription =
                         getCurrentWeatherLongDescription(context,
                                 openWeatherOneCall,
@@ -257,7 +346,9 @@ public class OpenWeatherMap {
                 weatherLongDescription = context.getString(R.string.text_error);
             }
 
-            currentWeather.current = new CurrentWeather.DataPoint(
+            CurrentWeather.Series current = new CurrentWeather.Series(CurrentWeather.SeriesType.CURRENT, 1);
+
+            current.addCurrent(
                     openWeatherOneCall.current.dt * 1000L,
                     openWeatherOneCall.current.temp,
                     openWeatherOneCall.current.feels_like,
@@ -278,10 +369,12 @@ public class OpenWeatherMap {
                     weatherUtils.getPrecipitationType(
                             openWeatherOneCall.current.rain == null ? 0 : openWeatherOneCall.current.rain.volume,
                             openWeatherOneCall.current.snow == null ? 0 : openWeatherOneCall.current.snow.volume));
+
+            currentWeather.current = current.get(0);
         }
 
         if (openWeatherOneCall.daily != null) {
-            currentWeather.daily = new CurrentWeather.DataPoint[openWeatherOneCall.daily.length];
+            currentWeather.daily = new CurrentWeather.Series(CurrentWeather.SeriesType.DAILY, openWeatherOneCall.daily.length);
 
             for (int i = 0, l = openWeatherOneCall.daily.length; i < l; i++) {
                 double precipitationIntensity = weatherUtils.getPrecipitationIntensity(
@@ -308,8 +401,7 @@ public class OpenWeatherMap {
                         weatherDescriptions[ii] = openWeatherOneCall.daily[i].weather[ii].description;
                     }
 
-                    weatherDescription = WeatherUtils.getInstance(context)
-                            .getWeatherDescription(weatherDescriptions);
+                    weatherDescription = getShortDescription(weatherUtils, weatherDescriptions);
                     weatherLongDescription = WeatherUtils.getInstance(context)
                             .getWeatherDescription(weatherDescriptions,
                                     openWeatherOneCall.daily[i].dew_point,
@@ -325,7 +417,7 @@ public class OpenWeatherMap {
                     weatherLongDescription = context.getString(R.string.text_error);
                 }
 
-                currentWeather.daily[i] = new CurrentWeather.DataPoint(
+                currentWeather.daily.addDaily(
                         openWeatherOneCall.daily[i].dt * 1000L,
                         openWeatherOneCall.daily[i].temp.max,
                         openWeatherOneCall.daily[i].temp.min,
@@ -351,10 +443,10 @@ public class OpenWeatherMap {
         }
 
         if (openWeatherOneCall.hourly != null) {
-            currentWeather.hourly = new CurrentWeather.DataPoint[openWeatherOneCall.hourly.length];
+            currentWeather.hourly = new CurrentWeather.Series(CurrentWeather.SeriesType.HOURLY, openWeatherOneCall.hourly.length);
 
             for (int i = 0, l = openWeatherOneCall.hourly.length; i < l; i++) {
-                currentWeather.hourly[i] = new CurrentWeather.DataPoint(
+                currentWeather.hourly.addHourly(
                         openWeatherOneCall.hourly[i].dt * 1000L,
                         openWeatherOneCall.hourly[i].temp,
                         openWeatherOneCall.hourly[i].weather != null && openWeatherOneCall.hourly[i].weather.length > 1 ?
@@ -395,7 +487,7 @@ public class OpenWeatherMap {
         }
 
         if (openWeatherForecast.list != null) {
-            currentWeather.trihourly = new CurrentWeather.DataPoint[openWeatherForecast.list.length];
+            currentWeather.trihourly = new CurrentWeather.Series(CurrentWeather.SeriesType.TRIHOURLY, openWeatherForecast.list.length);
 
             for (int i = 0, l = openWeatherForecast.list.length; i < l; i++) {
                 int weatherIconRes;
@@ -413,14 +505,14 @@ public class OpenWeatherMap {
                         weatherDescriptions[ii] = openWeatherForecast.list[i].weather[ii].description;
                     }
 
-                    weatherDescription = weatherUtils.getWeatherDescription(weatherDescriptions);
+                    weatherDescription = getShortDescription(weatherUtils, weatherDescriptions);
                 } else {
                     weatherIconRes = R.drawable.ic_error_outline_white_24dp;
                     weatherDescription = context.getString(R.string.text_error);
                 }
 
 
-                currentWeather.trihourly[i] = new CurrentWeather.DataPoint(
+                currentWeather.trihourly.addTrihourly(
                         openWeatherForecast.list[i].dt * 1000L,
                         openWeatherForecast.list[i].main != null ? openWeatherForecast.list[i].main.temp : 0,
                         weatherIconRes,
@@ -436,6 +528,8 @@ public class OpenWeatherMap {
             }
         }
 
+        RefreshTrace.recordStage(RefreshTrace.Stage.TRANSFORM, startNanos);
+
         return currentWeather;
     }
 
@@ -459,7 +553,7 @@ public class OpenWeatherMap {
             if (startingPrecipitation > 0 && endingPrecipitation == 0) {
                 for (int i = 0, l = openWeatherOneCall.minutely.length; i < l; i++) {
                     if (openWeatherOneCall.minutely[i].precipitation == 0) {
-                        int mins = (int) (openWeatherOneCall.minutely[i].dt - Calendar.getInstance(TimeZone.getTimeZone("UTC")).getTimeInMillis() / 1000) / 60;
+                        int mins = (int) (openWeatherOneCall.minutely[i].dt - System.currentTimeMillis() / 1000) / 60;
 
                         mins = (int) BigDecimal.valueOf(mins / 5.).setScale(0, RoundingMode.HALF_UP).doubleValue() * 5;
 
@@ -476,7 +570,7 @@ public class OpenWeatherMap {
                     endingPrecipitation > 0) {
                 for (int i = 0, l = openWeatherOneCall.minutely.length; i < l; i++) {
                     if (openWeatherOneCall.minutely[i].precipitation > 0) {
-                        int mins = (int) (openWeatherOneCall.minutely[i].dt - Calendar.getInstance(TimeZone.getTimeZone("UTC")).getTimeInMillis() / 1000) / 60;
+                        int mins = (int) (openWeatherOneCall.minutely[i].dt - System.currentTimeMillis() / 1000) / 60;
 
                         mins = (int) BigDecimal.valueOf(mins / 5.).setScale(0, RoundingMode.HALF_UP).doubleValue() * 5;
 
@@ -496,29 +590,33 @@ public class OpenWeatherMap {
     }
 
     @DrawableRes
-    private int getIconRes(String weathercode) {
-        return switch (weathercode) {
-            case "01d" -> R.drawable.sun;
-            case "01n" -> R.drawable.moon_25;
-            case "02d", "03d", "04d" -> R.drawable.cloud_sun;
-            case "02n", "03n", "04n" -> R.drawable.cloud_moon;
-            case "09d" -> R.drawable.cloud_drizzle_sun;
-            case "09n" -> R.drawable.cloud_drizzle_moon;
-            case "10d" -> R.drawable.cloud_rain_sun;
-            case "10n" -> R.drawable.cloud_rain_moon;
-            case "11d" -> R.drawable.cloud_rain_lightning_sun;
-            case "11n" -> R.drawable.cloud_rain_lightning_moon;
-            case "13d" -> R.drawable.cloud_snow_sun;
-            case "13n" -> R.drawable.cloud_snow_moon;
-            case "50d" -> R.drawable.cloud_fog_sun;
-            case "50n" -> R.drawable.cloud_fog_moon;
-            case "611d", "612d", "613d" -> R.drawable.cloud_hail_sun;
-            case "611n", "612n", "613n" -> R.drawable.cloud_hail_moon;
-            case "781d", "781n" -> R.drawable.tornado;
+    private static int getIconRes(int weatherId, boolean isDay) {
+        return switch (weatherId) {
+            case 611, 612, 613 -> isDay ? R.drawable.cloud_hail_sun : R.drawable.cloud_hail_moon;
+            case 781 -> R.drawable.tornado;
             default -> R.drawable.ic_error_outline_white_24dp;
         };
     }
 
+    //Indexed by the number of the icon code, then day and night
+    private static int[][] buildIconResTable() {
+        int[][] iconResByCode = new int[51][];
+
+        Arrays.fill(iconResByCode, new int[]{R.drawable.ic_error_outline_white_24dp, R.drawable.ic_error_outline_white_24dp});
+
+        iconResByCode[1] = new int[]{R.drawable.sun, R.drawable.moon_25};
+        iconResByCode[2] = new int[]{R.drawable.cloud_sun, R.drawable.cloud_moon};
+        iconResByCode[3] = iconResByCode[2];
+        iconResByCode[4] = iconResByCode[2];
+        iconResByCode[9] = new int[]{R.drawable.cloud_drizzle_sun, R.drawable.cloud_drizzle_moon};
+        iconResByCode[10] = new int[]{R.drawable.cloud_rain_sun, R.drawable.cloud_rain_moon};
+        iconResByCode[11] = new int[]{R.drawable.cloud_rain_lightning_sun, R.drawable.cloud_rain_lightning_moon};
+        iconResByCode[13] = new int[]{R.drawable.cloud_snow_sun, R.drawable.cloud_snow_moon};
+        iconResByCode[50] = new int[]{R.drawable.cloud_fog_sun, R.drawable.cloud_fog_moon};
+
+        return iconResByCode;
+    }
+
     public static class OpenWeatherMapException extends RuntimeException {
         public OpenWeatherMapException(String message) {
             super(message);
@@ -19,11 +19,13 @@
 
 package com.ominous.quickweather.api.openweather;
 
+import com.ominous.quickweather.processor.GenerateJsonReader;
 import com.ominous.tylerutils.annotation.JSONFieldName;
 
 import java.io.Serializable;
 
 @SuppressWarnings("WeakerAccess,unused")
+@GenerateJsonReader
 public class OpenWeatherOneCall {
     public String timezone;
     public DataPoint current;
@@ -0,0 +1,293 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.ominous.quickweather.api.rainviewer;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.ominous.quickweather.pref.RadarQuality;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Picks the radar tile resolution, the number of animation frames and the prefetch depth from
+ * the measured tile latency and the throughput of all tile requests in flight together, as the
+ * tiles are small and fetched several at a time. Metered networks and low memory devices are kept
+ * off the 512px tiles. The level only moves one step at a time, with separate thresholds to
+ * step up and down, and stays for a minimum duration, so it does not flap.
+ */
+public class AdaptiveRadarQuality {
+    private final static String TILE_HOST = "tilecache.rainviewer.com";
+    private final static int MIN_SAMPLES = 4;
+    private final static int TILES_PER_SAMPLE = 8;
+    private final static double SMOOTHING = 0.2;
+    private final static long MIN_LEVEL_DURATION = TimeUnit.MINUTES.toMillis(2);
+    private final static int LOW_MEMORY_CLASS = 128; //megabytes
+
+    private final ConnectivityManager connectivityManager;
+    private final boolean isLowMemoryDevice;
+
+    private Level adaptiveLevel = Level.STANDARD;
+    private long levelChangeTime = 0; //milliseconds, elapsed realtime
+    private double latency = 0; //milliseconds, smoothed
+    private double throughput = 0; //bytes per second, smoothed
+    private int sampleCount = 0;
+    private int requestsInFlight = 0;
+    private long busyStartTime = 0; //milliseconds, elapsed realtime
+    private long windowBusyTime = 0; //milliseconds
+    private long windowBytes = 0;
+    private int windowTiles = 0;
+
+    private static AdaptiveRadarQuality instance;
+
+    private AdaptiveRadarQuality(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+
+        connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        isLowMemoryDevice = activityManager == null ||
+                activityManager.isLowRamDevice() ||
+                activityManager.getMemoryClass() < LOW_MEMORY_CLASS;
+    }
+
+    public static synchronized AdaptiveRadarQuality getInstance(Context context) {
+        if (instance == null) {
+            instance = new AdaptiveRadarQuality(context.getApplicationContext());
+        }
+
+        return instance;
+    }
+
+    //The fixed qualities keep their tile size and animate every frame
+    public Level getLevel(RadarQuality radarQuality) {
+        return switch (radarQuality) {
+            case HIGH -> Level.DETAILED;
+            case LOW -> Level.STANDARD;
+            case AUTO -> getAdaptiveLevel();
+        };
+    }
+
+    private synchronized Level getAdaptiveLevel() {
+        Level maxLevel = isConstrained() ? Level.STANDARD : Level.DETAILED;
+        Level level = adaptiveLevel;
+        long now = SystemClock.elapsedRealtime();
+
+        if (level.compareTo(maxLevel) > 0) {
+            level = maxLevel;
+        } else if (sampleCount >= MIN_SAMPLES && now - levelChangeTime >= MIN_LEVEL_DURATION) {
+            if (level.ordinal() > 0 && (throughput < level.minThroughput || latency > level.maxLatency)) {
+                level = Level.values()[level.ordinal() - 1];
+            } else if (level.compareTo(maxLevel) < 0) {
+                Level nextLevel = Level.values()[level.ordinal() + 1];
+
+                if (throughput > nextLevel.enterThroughput && latency < nextLevel.enterLatency) {
+                    level = nextLevel;
+                }
+            }
+        }
+
+        if (level != adaptiveLevel) {
+            adaptiveLevel = level;
+            levelChangeTime = now;
+            //Tiles of another size perform differently, so the new level is measured on its own
+            sampleCount = 0;
+            busyStartTime = now;
+            windowBusyTime = 0;
+            windowBytes = 0;
+            windowTiles = 0;
+        }
+
+        return level;
+    }
+
+    private boolean isConstrained() {
+        return isLowMemoryDevice || connectivityManager == null || connectivityManager.isActiveNetworkMetered();
+    }
+
+    private synchronized void onRequestStarted(long now) {
+        if (requestsInFlight++ == 0) {
+            busyStartTime = now;
+        }
+    }
+
+    //The window only counts the time with at least one tile in flight, so its throughput is
+    //shared by the concurrent requests rather than split between them
+    private synchronized void onRequestFinished(long now, long latencyMillis, long bytes) {
+        if (--requestsInFlight == 0) {
+            windowBusyTime += now - busyStartTime;
+        }
+
+        if (latencyMillis < 0) {
+            return;
+        }
+
+        latency = windowTiles == 0 && sampleCount == 0 ? latencyMillis : latency + SMOOTHING * (latencyMillis - latency);
+        windowBytes += bytes;
+
+        if (++windowTiles >= TILES_PER_SAMPLE) {
+            long busyTime = windowBusyTime + (requestsInFlight > 0 ? now - busyStartTime : 0);
+            double sampleThroughput = windowBytes * 1000. / Math.max(1, busyTime);
+
+            throughput = sampleCount == 0 ? sampleThroughput : throughput + SMOOTHING * (sampleThroughput - throughput);
+            sampleCount++;
+
+            busyStartTime = now;
+            windowBusyTime = 0;
+            windowBytes = 0;
+            windowTiles = 0;
+        }
+    }
+
+    //A network interceptor, so tiles served from a cache are not measured
+    public Interceptor getInterceptor() {
+        return chain -> {
+            if (!TILE_HOST.equals(chain.request().url().host())) {
+                return chain.proceed(chain.request());
+            }
+
+            long startTime = SystemClock.elapsedRealtime();
+            Response response;
+
+            onRequestStarted(startTime);
+
+            try {
+                response = chain.proceed(chain.request());
+            } catch (IOException | RuntimeException e) {
+                onRequestFinished(SystemClock.elapsedRealtime(), -1, 0);
+                throw e;
+            }
+
+            ResponseBody body = response.body();
+
+            if (response.code() != 200 || body == null) {
+                onRequestFinished(SystemClock.elapsedRealtime(), -1, 0);
+                return response;
+            }
+
+            return response.newBuilder()
+                    .body(new MeasuredResponseBody(body, SystemClock.elapsedRealtime() - startTime))
+                    .build();
+        };
+    }
+
+    //Unfinished or failed bodies still end the request, but are not measured
+    private class MeasuredResponseBody extends ResponseBody {
+        private final ResponseBody body;
+        private final BufferedSource source;
+
+        MeasuredResponseBody(ResponseBody body, long latencyMillis) {
+            this.body = body;
+            this.source = Okio.buffer(new ForwardingSource(body.source()) {
+                private long bytes = 0;
+                private boolean isFinished = false;
+
+                @Override
+                public long read(@NonNull Buffer sink, long byteCount) throws IOException {
+                    long read;
+
+                    try {
+                        read = super.read(sink, byteCount);
+                    } catch (IOException e) {
+                        finish(-1);
+                        throw e;
+                    }
+
+                    if (read == -1) {
+                        finish(latencyMillis);
+                    } else {
+                        bytes += read;
+                    }
+
+                    return read;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    finish(-1);
+                    super.close();
+                }
+
+                private void finish(long sampleLatency) {
+                    if (!isFinished) {
+                        isFinished = true;
+                        onRequestFinished(SystemClock.elapsedRealtime(), sampleLatency, bytes);
+                    }
+                }
+            });
+        }
+
+        @Nullable
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() {
+            return body.contentLength();
+        }
+
+        @NonNull
+        @Override
+        public BufferedSource source() {
+            return source;
+        }
+    }
+
+    public enum Level {
+        //tile size, frames, prefetched frames, then the throughput (bytes per second, all tiles in
+        //flight together) and latency (milliseconds) to stay at the level and to step up to it.
+        //A 256px tile is usually 5 to 30 KB and a 512px tile 20 to 100 KB
+        MINIMAL(256, 6, 3, 0, Long.MAX_VALUE, 0, Long.MAX_VALUE),
+        STANDARD(256, Integer.MAX_VALUE, Integer.MAX_VALUE, 48 * 1024, 1500, 96 * 1024, 800),
+        DETAILED(512, Integer.MAX_VALUE, Integer.MAX_VALUE, 192 * 1024, 800, 384 * 1024, 400);
+
+        public final int tileSize;
+        public final int frameCount;
+        public final int prefetchDepth;
+        private final long minThroughput;
+        private final long maxLatency;
+        private final long enterThroughput;
+        private final long enterLatency;
+
+        Level(int tileSize, int frameCount, int prefetchDepth, long minThroughput, long maxLatency, long enterThroughput, long enterLatency) {
+            this.tileSize = tileSize;
+            this.frameCount = frameCount;
+            this.prefetchDepth = prefetchDepth;
+            this.minThroughput = minThroughput;
+            this.maxLatency = maxLatency;
+            this.enterThroughput = enterThroughput;
+            this.enterLatency = enterLatency;
+        }
+    }
+}
@@ -0,0 +1,380 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.ominous.quickweather.api.rainviewer;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Okio;
+
+/**
+ * Radar tiles on disk, keyed by frame path, quality, zoom, position, theme and options. A frame
+ * path always returns the same image, so tiles are served without revalidation until the frame
+ * drops out of the RainViewer manifest. The least recently used tiles are evicted to stay within
+ * the byte budget.
+ */
+public class RainViewerTileCache {
+    private final static String TILE_HOST = "tilecache.rainviewer.com";
+    private final static String CACHE_DIRECTORY = "radar";
+    private final static String TEMP_EXTENSION = ".tmp";
+    private final static long MAX_CACHE_SIZE = 48 * 1024 * 1024;
+    private final static MediaType MEDIA_TYPE_PNG = MediaType.get("image/png");
+
+    private final File cacheDirectory;
+    //Relative path to size in bytes, least recently used first
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final AtomicLong hitCount = new AtomicLong(0);
+    private final AtomicLong missCount = new AtomicLong(0);
+    private long cacheSize = 0;
+    private boolean isLoaded = false;
+
+    private static RainViewerTileCache instance;
+
+    private RainViewerTileCache(Context context) {
+        cacheDirectory = new File(context.getCacheDir(), CACHE_DIRECTORY);
+    }
+
+    public static synchronized RainViewerTileCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new RainViewerTileCache(context.getApplicationContext());
+        }
+
+        return instance;
+    }
+
+    public boolean contains(String url) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        String entry = httpUrl == null ? null : getEntry(httpUrl);
+
+        return entry != null && containsEntry(entry);
+    }
+
+    //Removes the frames that are no longer in the manifest, given by their paths
+    public void retainFrames(Collection<String> framePaths) {
+        HashSet<String> frameDirectories = new HashSet<>(framePaths.size());
+
+        for (String framePath : framePaths) {
+            frameDirectories.add(getFrameDirectory(framePath));
+        }
+
+        ArrayList<File> removedDirectories = new ArrayList<>();
+
+        synchronized (this) {
+            loadEntries();
+
+            for (Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<String, Long> entry = iterator.next();
+                String frameDirectory = entry.getKey().substring(0, entry.getKey().indexOf('/'));
+
+                if (!frameDirectories.contains(frameDirectory)) {
+                    cacheSize -= entry.getValue();
+                    iterator.remove();
+                }
+            }
+
+            File[] directories = cacheDirectory.listFiles(File::isDirectory);
+
+            if (directories != null) {
+                for (File directory : directories) {
+                    if (!frameDirectories.contains(directory.getName())) {
+                        removedDirectories.add(directory);
+                    }
+                }
+            }
+        }
+
+        for (File directory : removedDirectories) {
+            deleteDirectory(directory);
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public synchronized long getSize() {
+        loadEntries();
+
+        return cacheSize;
+    }
+
+    public String getReport() {
+        long hits = getHitCount();
+        long requests = hits + getMissCount();
+
+        return String.format(Locale.US, "Radar tiles: hits=%d misses=%d hitRate=%.1f%% size=%dKB",
+                hits,
+                requests - hits,
+                requests == 0 ? 0. : 100. * hits / requests,
+                getSize() / 1024);
+    }
+
+    //An application interceptor, so a hit never opens a connection
+    public Interceptor getInterceptor() {
+        return chain -> {
+            Request request = chain.request();
+            String entry = getEntry(request.url());
+
+            if (entry == null) {
+                return chain.proceed(request);
+            }
+
+            File tileFile = new File(cacheDirectory, entry);
+
+            if (containsEntry(entry)) {
+                hitCount.incrementAndGet();
+
+                try {
+                    return buildResponse(request, tileFile);
+                } catch (IOException e) {
+                    //the file is gone, so the tile is downloaded again
+                    removeEntry(entry);
+                }
+            }
+
+            missCount.incrementAndGet();
+
+            Response response = chain.proceed(request);
+            ResponseBody body = response.body();
+
+            if (response.code() != 200 || body == null) {
+                return response;
+            }
+
+            byte[] tile;
+
+            try (response) {
+                tile = body.bytes();
+            }
+
+            putEntry(entry, tileFile, tile);
+
+            return response.newBuilder()
+                    .body(ResponseBody.create(tile, body.contentType()))
+                    .build();
+        };
+    }
+
+    private synchronized boolean containsEntry(String entry) {
+        loadEntries();
+
+        return entries.get(entry) != null;
+    }
+
+    private synchronized void removeEntry(String entry) {
+        Long size = entries.remove(entry);
+
+        if (size != null) {
+            cacheSize -= size;
+        }
+    }
+
+    //The tile is written to a temporary file first, so a partial tile is never served
+    private void putEntry(String entry, File tileFile, byte[] tile) {
+        File parentDirectory = tileFile.getParentFile();
+        File tempFile = new File(tileFile.getPath() + TEMP_EXTENSION);
+
+        if (parentDirectory == null || (!parentDirectory.isDirectory() && !parentDirectory.mkdirs())) {
+            return;
+        }
+
+        try (FileOutputStream outputStream = new FileOutputStream(tempFile)) {
+            outputStream.write(tile);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            return;
+        }
+
+        ArrayList<String> evictedEntries = new ArrayList<>();
+
+        synchronized (this) {
+            loadEntries();
+
+            if (!tempFile.renameTo(tileFile)) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+                return;
+            }
+
+            Long previousSize = entries.put(entry, (long) tile.length);
+            cacheSize += tile.length - (previousSize == null ? 0 : previousSize);
+
+            for (Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+                 cacheSize > MAX_CACHE_SIZE && iterator.hasNext(); ) {
+                Map.Entry<String, Long> eldest = iterator.next();
+
+                cacheSize -= eldest.getValue();
+                evictedEntries.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+
+        for (String evictedEntry : evictedEntries) {
+            //noinspection ResultOfMethodCallIgnored
+            new File(cacheDirectory, evictedEntry).delete();
+        }
+    }
+
+    //Restores the access order from the modification times, which are updated on every hit
+    private void loadEntries() {
+        if (isLoaded) {
+            return;
+        }
+
+        isLoaded = true;
+
+        File[] directories = cacheDirectory.listFiles(File::isDirectory);
+
+        if (directories == null) {
+            return;
+        }
+
+        ArrayList<File> tileFiles = new ArrayList<>();
+
+        for (File directory : directories) {
+            File[] files = directory.listFiles();
+
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(TEMP_EXTENSION)) {
+                        //noinspection ResultOfMethodCallIgnored
+                        file.delete();
+                    } else {
+                        tileFiles.add(file);
+                    }
+                }
+            }
+        }
+
+        long[] lastModified = new long[tileFiles.size()];
+        Integer[] order = new Integer[tileFiles.size()];
+
+        for (int i = 0, l = tileFiles.size(); i < l; i++) {
+            lastModified[i] = tileFiles.get(i).lastModified();
+            order[i] = i;
+        }
+
+        Arrays.sort(order, (a, b) -> Long.compare(lastModified[a], lastModified[b]));
+
+        for (Integer i : order) {
+            File tileFile = tileFiles.get(i);
+
+            entries.put(tileFile.getParentFile().getName() + '/' + tileFile.getName(), tileFile.length());
+            cacheSize += tileFile.length();
+        }
+    }
+
+    private static Response buildResponse(Request request, File tileFile) throws IOException {
+        long length = tileFile.length();
+        ResponseBody body = ResponseBody.create(Okio.buffer(Okio.source(tileFile)), MEDIA_TYPE_PNG, length);
+
+        //noinspection ResultOfMethodCallIgnored
+        tileFile.setLastModified(System.currentTimeMillis());
+
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(body)
+                .build();
+    }
+
+    //Tile URLs are https://tilecache.rainviewer.com<frame path>/<size>/<z>/<x>/<y>/<theme>/<options>.png
+    private static String getEntry(HttpUrl url) {
+        List<String> pathSegments = url.pathSegments();
+        int n = pathSegments.size();
+
+        if (!TILE_HOST.equals(url.host()) || n < 7) {
+            return null;
+        }
+
+        for (int i = n - 6; i < n - 2; i++) {
+            if (!isNumeric(pathSegments.get(i))) {
+                return null;
+            }
+        }
+
+        return getFrameDirectory("/" + String.join("/", pathSegments.subList(0, n - 6))) + '/' +
+                sanitize(String.join("_", pathSegments.subList(n - 6, n)));
+    }
+
+    private static String getFrameDirectory(String framePath) {
+        return sanitize(framePath);
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+
+    private static boolean isNumeric(String segment) {
+        if (segment.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0, l = segment.length(); i < l; i++) {
+            if (!Character.isDigit(segment.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static void deleteDirectory(@NonNull File directory) {
+        File[] files = directory.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+            }
+        }
+
+        //noinspection ResultOfMethodCallIgnored
+        directory.delete();
+    }
+}
@@ -0,0 +1,344 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.ominous.quickweather.api.rainviewer;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.ominous.quickweather.api.HttpClient;
+import com.ominous.tylerutils.async.Promise;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Downloads the tiles of every radar frame for the visible viewport before the animation plays.
+ * Frames are fetched starting at the frame due next, with a limited number of requests in flight.
+ * The downloaded tiles are stored in the {@link RainViewerTileCache}, which MapLibre reads from.
+ */
+public class RainViewerTilePrefetcher {
+    private final static int MAX_CONCURRENT_REQUESTS = 4;
+    private final static int MAX_TILES_PER_FRAME = 48;
+    private final static int MAX_ZOOM = 22;
+    private final static double MAX_LATITUDE = 85.0511;
+
+    private final RainViewerTileCache tileCache;
+    private final AdaptiveRadarQuality adaptiveRadarQuality;
+
+    private static RainViewerTilePrefetcher instance;
+
+    private OkHttpClient okHttpClient;
+    private IPrefetchListener prefetchListener;
+    private List<String> currentUrlTemplates;
+    private List<Tile> currentTiles;
+    private int currentDepth;
+    private ArrayList<ArrayDeque<String>> pendingTiles;
+    private int[] remainingTiles;
+    private int totalTiles;
+    private int completedTiles;
+    private int requestsInFlight;
+    private int priorityFrame;
+    private Object generation;
+
+    private RainViewerTilePrefetcher(Context context) {
+        tileCache = RainViewerTileCache.getInstance(context);
+        adaptiveRadarQuality = AdaptiveRadarQuality.getInstance(context);
+    }
+
+    public static synchronized RainViewerTilePrefetcher getInstance(Context context) {
+        if (instance == null) {
+            instance = new RainViewerTilePrefetcher(context.getApplicationContext());
+        }
+
+        return instance;
+    }
+
+    //Tiles go to the tile cache, so they are kept out of the shared API response cache
+    private synchronized OkHttpClient getOkHttpClient() {
+        if (okHttpClient == null) {
+            okHttpClient = HttpClient.getInstance().getOkHttpClient().newBuilder()
+                    .cache(null)
+                    .addInterceptor(tileCache.getInterceptor())
+                    .addNetworkInterceptor(adaptiveRadarQuality.getInterceptor())
+                    .build();
+        }
+
+        return okHttpClient;
+    }
+
+    //The templates contain {z}, {x} and {y}, in the same format as the RasterSource TileSet.
+    //Only the frames within depth of the priority frame are downloaded, the others are left to MapLibre
+    public synchronized void prefetch(List<String> urlTemplates, List<Tile> tiles, int priorityFrame, int depth, IPrefetchListener prefetchListener) {
+        this.prefetchListener = prefetchListener;
+        this.priorityFrame = priorityFrame;
+
+        if (urlTemplates.equals(currentUrlTemplates) && tiles.equals(currentTiles) && depth == currentDepth) {
+            if (isReady()) {
+                prefetchListener.onComplete();
+            }
+
+            return;
+        }
+
+        cancelRequests();
+
+        currentUrlTemplates = new ArrayList<>(urlTemplates);
+        currentTiles = new ArrayList<>(tiles);
+        currentDepth = depth;
+        generation = new Object();
+
+        int frames = urlTemplates.size();
+
+        remainingTiles = new int[frames];
+        totalTiles = Math.min(frames, depth) * tiles.size();
+        completedTiles = 0;
+
+        for (int frame = 0; frame < frames; frame++) {
+            if (Math.floorMod(frame - priorityFrame, frames) < depth) {
+                remainingTiles[frame] = tiles.size();
+            }
+        }
+
+        prefetchListener.onProgress(completedTiles, totalTiles);
+
+        List<String> scanUrlTemplates = currentUrlTemplates;
+        List<Tile> scanTiles = currentTiles;
+        Object scanGeneration = generation;
+
+        //Checking the tile cache reads the disk, so the pending tiles are found off the main thread
+        Promise.create(a -> {
+            findPendingTiles(scanUrlTemplates, scanTiles, priorityFrame, depth, scanGeneration);
+        });
+    }
+
+    //Moves the tiles of the given frame, and the frames after it, to the front of the queue
+    public synchronized void prioritize(int frame) {
+        priorityFrame = frame;
+    }
+
+    public synchronized void cancel() {
+        cancelRequests();
+
+        currentUrlTemplates = null;
+        currentTiles = null;
+        prefetchListener = null;
+    }
+
+    //Without a prefetch in progress, nothing holds back the animation
+    public synchronized boolean isReady() {
+        return remainingTiles == null || completedTiles >= totalTiles;
+    }
+
+    public synchronized boolean isFrameReady(int frame) {
+        return remainingTiles == null || frame >= remainingTiles.length || remainingTiles[frame] == 0;
+    }
+
+    private void findPendingTiles(List<String> urlTemplates, List<Tile> tiles, int scanPriorityFrame, int depth, Object scanGeneration) {
+        int frames = urlTemplates.size();
+        ArrayList<ArrayDeque<String>> framesPendingTiles = new ArrayList<>(frames);
+
+        for (int frame = 0; frame < frames; frame++) {
+            ArrayDeque<String> framePendingTiles = new ArrayDeque<>(tiles.size());
+
+            if (Math.floorMod(frame - scanPriorityFrame, frames) < depth) {
+                for (Tile tile : tiles) {
+                    String url = tile.getUrl(urlTemplates.get(frame));
+
+                    if (!tileCache.contains(url)) {
+                        framePendingTiles.add(url);
+                    }
+                }
+            }
+
+            framesPendingTiles.add(framePendingTiles);
+        }
+
+        onPendingTilesFound(framesPendingTiles, scanGeneration);
+    }
+
+    private synchronized void onPendingTilesFound(ArrayList<ArrayDeque<String>> framesPendingTiles, Object scanGeneration) {
+        if (scanGeneration != generation) {
+            return;
+        }
+
+        pendingTiles = framesPendingTiles;
+
+        for (int frame = 0, frames = pendingTiles.size(); frame < frames; frame++) {
+            completedTiles += remainingTiles[frame] - pendingTiles.get(frame).size();
+            remainingTiles[frame] = pendingTiles.get(frame).size();
+        }
+
+        if (prefetchListener != null) {
+            prefetchListener.onProgress(completedTiles, totalTiles);
+
+            if (isReady()) {
+                prefetchListener.onComplete();
+            }
+        }
+
+        dispatch();
+    }
+
+    private void cancelRequests() {
+        if (generation != null) {
+            HttpClient.getInstance().cancel(generation);
+        }
+
+        generation = null;
+        pendingTiles = null;
+        remainingTiles = null;
+        requestsInFlight = 0;
+    }
+
+    private void dispatch() {
+        if (pendingTiles == null) {
+            return;
+        }
+
+        for (int frames = pendingTiles.size(); requestsInFlight < MAX_CONCURRENT_REQUESTS; ) {
+            int frame = -1;
+            String url = null;
+
+            for (int i = 0; i < frames && url == null; i++) {
+                frame = (priorityFrame + i) % frames;
+                url = pendingTiles.get(frame).poll();
+            }
+
+            if (url == null) {
+                return;
+            }
+
+            requestsInFlight++;
+
+            enqueue(url, frame, generation);
+        }
+    }
+
+    private void enqueue(String url, int frame, Object requestGeneration) {
+        Request request = new Request.Builder()
+                .url(url)
+                .tag(requestGeneration)
+                .build();
+
+        getOkHttpClient().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                onTileFetched(frame, requestGeneration);
+            }
+
+            //The tile cache interceptor has already stored the tile
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+                onTileFetched(frame, requestGeneration);
+            }
+        });
+    }
+
+    //Failed tiles are counted as fetched, MapLibre retries them when the frame is shown
+    private synchronized void onTileFetched(int frame, Object requestGeneration) {
+        if (requestGeneration != generation) {
+            return;
+        }
+
+        requestsInFlight--;
+        completedTiles++;
+
+        remainingTiles[frame]--;
+
+        if (prefetchListener != null) {
+            prefetchListener.onProgress(completedTiles, totalTiles);
+
+            if (isReady()) {
+                prefetchListener.onComplete();
+            }
+        }
+
+        dispatch();
+    }
+
+    //MapLibre covers raster sources with the rounded zoom level. The tiles closest to the center
+    //come first, as they are the first to be seen
+    public static List<Tile> getVisibleTiles(double north, double south, double west, double east, double zoom) {
+        int z = Math.max(0, Math.min(MAX_ZOOM, (int) Math.round(zoom)));
+        int n = 1 << z;
+
+        int minX = getTileX(west, n);
+        int tileCountX = Math.min(n, Math.floorMod(getTileX(east, n) - minX, n) + 1);
+        int minY = getTileY(north, n);
+        int maxY = getTileY(south, n);
+
+        double centerX = minX + tileCountX / 2.0;
+        double centerY = (minY + maxY + 1) / 2.0;
+
+        ArrayList<Tile> tiles = new ArrayList<>(tileCountX * (maxY - minY + 1));
+
+        for (int i = 0; i < tileCountX; i++) {
+            for (int y = minY; y <= maxY; y++) {
+                tiles.add(new Tile(z, (minX + i) % n, y));
+            }
+        }
+
+        tiles.sort(Comparator.comparingDouble(tile -> {
+            double dx = Math.floorMod(tile.x() - minX, n) + 0.5 - (centerX - minX);
+            double dy = tile.y() + 0.5 - centerY;
+
+            return dx * dx + dy * dy;
+        }));
+
+        return tiles.size() > MAX_TILES_PER_FRAME ? new ArrayList<>(tiles.subList(0, MAX_TILES_PER_FRAME)) : tiles;
+    }
+
+    private static int getTileX(double longitude, int n) {
+        return Math.floorMod((int) Math.floor((longitude + 180.0) / 360.0 * n), n);
+    }
+
+    private static int getTileY(double latitude, int n) {
+        double radians = Math.toRadians(Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude)));
+        int y = (int) Math.floor((1 - Math.log(Math.tan(radians) + 1 / Math.cos(radians)) / Math.PI) / 2 * n);
+
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    public record Tile(int z, int x, int y) {
+        public String getUrl(String urlTemplate) {
+            return urlTemplate
+                    .replace("{z}", Integer.toString(z))
+                    .replace("{x}", Integer.toString(x))
+                    .replace("{y}", Integer.toString(y));
+        }
+    }
+
+    //Called from the OkHttp threads
+    public interface IPrefetchListener {
+        void onProgress(int completedTiles, int totalTiles);
+
+        void onComplete();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api.replay;
+
+import androidx.annotation.NonNull;
+
+import com.ominous.quickweather.api.HttpClient;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Answers requests from recorded responses, stored as
+ * {@code <host>/<last path segment>_<query fingerprint>.json} under the recording directory, so
+ * requests to the same endpoint with other locations or options do not share a recording. Only
+ * hosts with a recording directory are intercepted, so everything else still goes to the network.
+ */
+public class ReplayInterceptor implements Interceptor {
+    private final static Set<String> IGNORED_PARAMETERS = Set.of("apikey", "appid");
+
+    private final File recordingDirectory;
+    private final long latency; //milliseconds
+    private final double failureRate;
+    private final int failureCode;
+    private final Random random = new Random();
+
+    public ReplayInterceptor(File recordingDirectory, long latency, double failureRate, int failureCode) {
+        this.recordingDirectory = recordingDirectory;
+        this.latency = latency;
+        this.failureRate = failureRate;
+        this.failureCode = failureCode;
+    }
+
+    @NonNull
+    @Override
+    public Response intercept(@NonNull Chain chain) throws IOException {
+        Request request = chain.request();
+        File hostDirectory = new File(recordingDirectory, request.url().host());
+
+        if (!hostDirectory.isDirectory()) {
+            return chain.proceed(request);
+        }
+
+        if (latency > 0) {
+            try {
+                Thread.sleep(latency);
+            } catch (InterruptedException e) {
+                //a cancelled call is interrupted, the same as a real socket read would be
+                throw new InterruptedIOException();
+            }
+        }
+
+        if (failureRate > 0 && random.nextDouble() < failureRate) {
+            return buildResponse(request, failureCode, "Replayed Failure", new byte[0]);
+        }
+
+        File recording = new File(hostDirectory, getRecordingName(request.url()));
+
+        if (!recording.isFile()) {
+            return buildResponse(request, 404, "Not Recorded: " + recording.getName(), new byte[0]);
+        }
+
+        return buildResponse(request, 200, "OK", readRecording(recording));
+    }
+
+    //The fingerprint covers the sorted query parameters, without the API keys, so the same
+    //recording is used whatever key or parameter order the request has
+    public static String getRecordingName(HttpUrl url) {
+        ArrayList<String> parameters = new ArrayList<>(url.querySize());
+
+        for (int i = 0, l = url.querySize(); i < l; i++) {
+            String name = url.queryParameterName(i);
+
+            if (!IGNORED_PARAMETERS.contains(name)) {
+                parameters.add(name + '=' + url.queryParameterValue(i));
+            }
+        }
+
+        Collections.sort(parameters);
+
+        List<String> pathSegments = url.pathSegments();
+
+        return String.format(Locale.US, "%1$s_%2$08x.json",
+                pathSegments.get(pathSegments.size() - 1),
+                String.join("&", parameters).hashCode());
+    }
+
+    private static Response buildResponse(Request request, int code, String message, byte[] body) {
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(code)
+                .message(message)
+                .body(ResponseBody.create(body, HttpClient.MEDIA_TYPE_JSON))
+                .build();
+    }
+
+    private static byte[] readRecording(File recording) throws IOException {
+        byte[] bytes = new byte[(int) recording.length()];
+
+        try (InputStream inputStream = new FileInputStream(recording)) {
+            int offset = 0;
+
+            for (int read; offset < bytes.length && (read = inputStream.read(bytes, offset, bytes.length - offset)) != -1; ) {
+                offset += read;
+            }
+
+            if (offset < bytes.length) {
+                throw new IOException("Unexpected end of " + recording.getName());
+            }
+        }
+
+        return bytes;
+    }
+}
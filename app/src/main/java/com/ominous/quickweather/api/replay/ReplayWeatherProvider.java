@@ -0,0 +1,129 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api.replay;
+
+import android.content.Context;
+import android.util.Pair;
+
+import com.ominous.quickweather.api.HttpClient;
+import com.ominous.quickweather.api.IWeatherProvider;
+import com.ominous.quickweather.api.WeatherProviderRegistry;
+import com.ominous.quickweather.data.CurrentWeather;
+import com.ominous.quickweather.pref.WeatherPreferences;
+import com.ominous.quickweather.pref.WeatherProvider;
+import com.ominous.tylerutils.http.HttpException;
+
+import org.json.JSONException;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Wraps a provider so its requests are answered from recorded responses. The provider still
+ * parses and transforms the responses, and the results still go through the caches, so the
+ * whole refresh can be profiled and load-tested offline with a controlled latency and failure rate.
+ */
+public class ReplayWeatherProvider implements IWeatherProvider {
+    public final static String RECORDING_DIRECTORY = "replay";
+    private final static String CONFIG_FILE = "replay.properties";
+
+    private final IWeatherProvider weatherProvider;
+
+    public ReplayWeatherProvider(IWeatherProvider weatherProvider) {
+        this.weatherProvider = weatherProvider;
+    }
+
+    //Replays every provider from filesDir/replay when that directory exists. The latency (ms),
+    //failureRate (0-1) and failureCode are read from replay.properties in the same directory
+    public static void installIfRecorded(Context context) {
+        File recordingDirectory = new File(context.getFilesDir(), RECORDING_DIRECTORY);
+
+        if (!recordingDirectory.isDirectory()) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        File configFile = new File(recordingDirectory, CONFIG_FILE);
+
+        try {
+            if (configFile.isFile()) {
+                try (InputStream inputStream = new FileInputStream(configFile)) {
+                    properties.load(inputStream);
+                }
+            }
+
+            HttpClient.getInstance().addInterceptor(new ReplayInterceptor(
+                    recordingDirectory,
+                    Long.parseLong(properties.getProperty("latency", "0")),
+                    Double.parseDouble(properties.getProperty("failureRate", "0")),
+                    Integer.parseInt(properties.getProperty("failureCode", "503"))));
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        WeatherProviderRegistry weatherProviderRegistry = WeatherProviderRegistry.getInstance();
+
+        for (WeatherProvider weatherProvider : weatherProviderRegistry.getWeatherProviders()) {
+            weatherProviderRegistry.register(weatherProvider,
+                    new ReplayWeatherProvider(weatherProviderRegistry.get(weatherProvider)));
+        }
+    }
+
+    //Replayed failures must not open the breaker of the real server
+    @Override
+    public String getInstanceKey(WeatherPreferences weatherPreferences) {
+        String instanceKey = weatherProvider.getInstanceKey(weatherPreferences);
+
+        return instanceKey == null || instanceKey.isEmpty() ? "replay" : "replay:" + instanceKey;
+    }
+
+    @Override
+    public CurrentWeather getCurrentWeather(Context context,
+                                            WeatherPreferences weatherPreferences,
+                                            double latitude,
+                                            double longitude,
+                                            boolean ifModified)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        return weatherProvider.getCurrentWeather(context, weatherPreferences, latitude, longitude, ifModified);
+    }
+
+    @Override
+    public void onLocaleChanged() {
+        weatherProvider.onLocaleChanged();
+    }
+
+    @Override
+    public boolean supportsBatching() {
+        return weatherProvider.supportsBatching();
+    }
+
+    @Override
+    public List<CurrentWeather> getCurrentWeather(Context context,
+                                                  WeatherPreferences weatherPreferences,
+                                                  List<Pair<Double, Double>> locations)
+            throws IOException, JSONException, InstantiationException, IllegalAccessException, HttpException {
+        return weatherProvider.getCurrentWeather(context, weatherPreferences, locations);
+    }
+}
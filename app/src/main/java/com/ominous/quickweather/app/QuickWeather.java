@@ -26,6 +26,9 @@ import android.util.Log;
 import androidx.annotation.NonNull;
 import androidx.work.Configuration;
 
+import com.ominous.quickweather.BuildConfig;
+import com.ominous.quickweather.api.HttpClient;
+import com.ominous.quickweather.api.replay.ReplayWeatherProvider;
 import com.ominous.quickweather.util.ColorHelper;
 import com.ominous.quickweather.util.SSLHelper;
 
@@ -47,6 +50,14 @@ public class QuickWeather extends Application implements Configuration.Provider
         if (Build.VERSION.SDK_INT <= 24) {
             SSLHelper.addLetsEncryptRootCA(this);
         }
+
+        //Provider responses are revalidated against this cache instead of being downloaded again
+        HttpClient.getInstance().setCacheDirectory(getCacheDir());
+
+        //Debug builds can replay recorded responses to profile refreshes without a network
+        if (BuildConfig.DEBUG) {
+            ReplayWeatherProvider.installIfRecorded(this);
+        }
     }
 
     @NonNull
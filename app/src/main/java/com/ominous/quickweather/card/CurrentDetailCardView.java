@@ -28,10 +28,12 @@ import com.ominous.quickweather.activity.ForecastActivity;
 import com.ominous.quickweather.data.CurrentWeather;
 import com.ominous.quickweather.data.WeatherModel;
 import com.ominous.quickweather.pref.TemperatureUnit;
+import com.ominous.quickweather.util.ZoneTimeHelper;
 import com.ominous.tylerutils.util.ColorUtils;
 import com.ominous.tylerutils.util.ViewUtils;
 
-import java.util.Calendar;
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
 import java.util.Locale;
 
 public class CurrentDetailCardView extends BaseDetailCardView {
@@ -55,31 +57,30 @@ public class CurrentDetailCardView extends BaseDetailCardView {
         TemperatureUnit temperatureUnit = weatherPreferences.getTemperatureUnit();
         boolean isDarkModeActive = ColorUtils.isNightModeActive(getContext());
 
-        CurrentWeather.DataPoint data = weatherModel.currentWeather.daily[position];
+        CurrentWeather.DataPoint data = weatherModel.currentWeather.daily.get(position);
 
-        Calendar calendar = Calendar.getInstance(Locale.getDefault());
-        calendar.setTimeZone(weatherModel.currentWeather.timezone);
+        currentDate = data.getDt();
+        DayOfWeek dayOfWeek = ZoneTimeHelper.getInstance(weatherModel.currentWeather.timezone)
+                .getLocalDate(currentDate)
+                .getDayOfWeek();
 
-        currentDate = data.dt;
-        calendar.setTimeInMillis(currentDate);
+        forecastIcon.setImageResource(data.getWeatherIconRes());
 
-        forecastIcon.setImageResource(data.weatherIconRes);
+        forecastTitle.setText(position == 0 ? getContext().getString(R.string.text_today) : dayOfWeek.getDisplayName(TextStyle.SHORT, Locale.getDefault()));
 
-        forecastTitle.setText(position == 0 ? getContext().getString(R.string.text_today) : calendar.getDisplayName(Calendar.DAY_OF_WEEK, Calendar.SHORT, Locale.getDefault()));
+        forecastItem1.setText(weatherUtils.getTemperatureString(temperatureUnit, data.getMaxTemp(), 0));
+        forecastItem1.setTextColor(colorHelper.getColorFromTemperature(data.getMaxTemp(), true, isDarkModeActive));
 
-        forecastItem1.setText(weatherUtils.getTemperatureString(temperatureUnit, data.maxTemp, 0));
-        forecastItem1.setTextColor(colorHelper.getColorFromTemperature(data.maxTemp, true, isDarkModeActive));
+        forecastItem2.setText(weatherUtils.getTemperatureString(temperatureUnit, data.getMinTemp(), 0));
+        forecastItem2.setTextColor(colorHelper.getColorFromTemperature(data.getMinTemp(), true, isDarkModeActive));
 
-        forecastItem2.setText(weatherUtils.getTemperatureString(temperatureUnit, data.minTemp, 0));
-        forecastItem2.setTextColor(colorHelper.getColorFromTemperature(data.minTemp, true, isDarkModeActive));
-
-        forecastDescription.setText(data.weatherDescription);
+        forecastDescription.setText(data.getWeatherDescription());
 
         setContentDescription(getContext().getString(R.string.format_current_forecast_desc,
-                position == 0 ? getContext().getString(R.string.text_today) : calendar.getDisplayName(Calendar.DAY_OF_WEEK, Calendar.LONG, Locale.getDefault()),
-                data.weatherDescription,
-                weatherUtils.getTemperatureString(temperatureUnit, data.maxTemp, 0),
-                weatherUtils.getTemperatureString(temperatureUnit, data.minTemp, 0)
+                position == 0 ? getContext().getString(R.string.text_today) : dayOfWeek.getDisplayName(TextStyle.FULL, Locale.getDefault()),
+                data.getWeatherDescription(),
+                weatherUtils.getTemperatureString(temperatureUnit, data.getMaxTemp(), 0),
+                weatherUtils.getTemperatureString(temperatureUnit, data.getMinTemp(), 0)
         ));
     }
 
@@ -49,22 +49,22 @@ public class CurrentMainCardView extends BaseMainCardView {
         DistanceUnit shortDistanceUnit = weatherPreferences.getDistanceUnit(true);
         DistanceUnit longDistanceUnit = weatherPreferences.getDistanceUnit(false);
 
-        String temperatureString = weatherUtils.getTemperatureString(temperatureUnit, weatherModel.currentWeather.current.temp, 1);
-        String weatherString = weatherModel.currentWeather.current.weatherLongDescription;
-        String dewPointString = weatherUtils.getTemperatureString(temperatureUnit, weatherModel.currentWeather.current.dewPoint, 1);
-        String humidityString = LocaleUtils.getPercentageString(Locale.getDefault(), weatherModel.currentWeather.current.humidity / 100.0);
-        String feelsLikeString = getContext().getString(R.string.format_feelslike, weatherUtils.getTemperatureString(temperatureUnit, weatherModel.currentWeather.current.feelsLike, 1));
-        String pressureString = getContext().getString(R.string.format_pressure, weatherModel.currentWeather.current.pressure);
-        String uvIndexString = getContext().getString(R.string.format_uvi, weatherModel.currentWeather.current.uvi);
+        String temperatureString = weatherUtils.getTemperatureString(temperatureUnit, weatherModel.currentWeather.current.getTemp(), 1);
+        String weatherString = weatherModel.currentWeather.current.getWeatherLongDescription();
+        String dewPointString = weatherUtils.getTemperatureString(temperatureUnit, weatherModel.currentWeather.current.getDewPoint(), 1);
+        String humidityString = LocaleUtils.getPercentageString(Locale.getDefault(), weatherModel.currentWeather.current.getHumidity() / 100.0);
+        String feelsLikeString = getContext().getString(R.string.format_feelslike, weatherUtils.getTemperatureString(temperatureUnit, weatherModel.currentWeather.current.getFeelsLike(), 1));
+        String pressureString = getContext().getString(R.string.format_pressure, weatherModel.currentWeather.current.getPressure());
+        String uvIndexString = getContext().getString(R.string.format_uvi, weatherModel.currentWeather.current.getUvi());
         String visibilityString = getContext().getString(R.string.format_visibility,
-                weatherUtils.getVisibilityString(longDistanceUnit, weatherModel.currentWeather.current.visibility, false));
+                weatherUtils.getVisibilityString(longDistanceUnit, weatherModel.currentWeather.current.getVisibility(), false));
 
-        mainIcon.setImageResource(weatherModel.currentWeather.current.weatherIconRes);
+        mainIcon.setImageResource(weatherModel.currentWeather.current.getWeatherIconRes());
         mainTemperature.setText(temperatureString);
         mainDescription.setText(weatherString);
 
-        windIconTextView.getTextView().setText(weatherUtils.getWindSpeedString(speedUnit, weatherModel.currentWeather.current.windSpeed, weatherModel.currentWeather.current.windDeg, false));
-        rainIconTextView.getTextView().setText(weatherUtils.getPrecipitationString(shortDistanceUnit, weatherModel.currentWeather.current.precipitationIntensity, weatherModel.currentWeather.current.precipitationType, false));
+        windIconTextView.getTextView().setText(weatherUtils.getWindSpeedString(speedUnit, weatherModel.currentWeather.current.getWindSpeed(), weatherModel.currentWeather.current.getWindDeg(), false));
+        rainIconTextView.getTextView().setText(weatherUtils.getPrecipitationString(shortDistanceUnit, weatherModel.currentWeather.current.getPrecipitationIntensity(), weatherModel.currentWeather.current.getPrecipitationType(), false));
         uvIndexIconTextView.getTextView().setText(uvIndexString);
         dewPointIconTextView.getTextView().setText(getContext().getString(R.string.format_dewpoint, dewPointString));
         humidityIconTextView.getTextView().setText(getContext().getString(R.string.format_humidity, humidityString));
@@ -76,14 +76,14 @@ public class CurrentMainCardView extends BaseMainCardView {
                 temperatureString,
                 weatherString,
                 feelsLikeString,
-                weatherUtils.getPrecipitationString(shortDistanceUnit, weatherModel.currentWeather.current.precipitationIntensity, weatherModel.currentWeather.current.precipitationType, true),
-                weatherUtils.getWindSpeedString(speedUnit, weatherModel.currentWeather.current.windSpeed, weatherModel.currentWeather.current.windDeg, true),
+                weatherUtils.getPrecipitationString(shortDistanceUnit, weatherModel.currentWeather.current.getPrecipitationIntensity(), weatherModel.currentWeather.current.getPrecipitationType(), true),
+                weatherUtils.getWindSpeedString(speedUnit, weatherModel.currentWeather.current.getWindSpeed(), weatherModel.currentWeather.current.getWindDeg(), true),
                 humidityString,
                 pressureString,
                 dewPointString,
                 uvIndexString,
                 getContext().getString(R.string.format_visibility,
-                        weatherUtils.getVisibilityString(longDistanceUnit, weatherModel.currentWeather.current.visibility, true))
+                        weatherUtils.getVisibilityString(longDistanceUnit, weatherModel.currentWeather.current.getVisibility(), true))
         ));
     }
 }
\ No newline at end of file
@@ -26,6 +26,7 @@ import com.ominous.quickweather.R;
 import com.ominous.quickweather.data.CurrentWeather;
 import com.ominous.quickweather.data.WeatherModel;
 import com.ominous.quickweather.pref.TemperatureUnit;
+import com.ominous.quickweather.util.ZoneTimeHelper;
 import com.ominous.tylerutils.util.ColorUtils;
 import com.ominous.tylerutils.util.LocaleUtils;
 import com.ominous.tylerutils.util.ViewUtils;
@@ -54,46 +55,45 @@ public class ForecastDetailCardView extends BaseDetailCardView {
     public void update(WeatherModel weatherModel, int position) {
         TemperatureUnit temperatureUnit = weatherPreferences.getTemperatureUnit();
 
-        long thisDay = LocaleUtils.getStartOfDay(weatherModel.date, weatherModel.currentWeather.timezone);
+        long thisDay = ZoneTimeHelper.getInstance(weatherModel.currentWeather.timezone)
+                .getStartOfDay(weatherModel.date.getTime());
         CurrentWeather.DataPoint data = null;
+        int firstIndex = weatherModel.currentWeather.trihourly.indexOfFirstAtOrAfter(thisDay);
 
-        for (int i = 0, l = weatherModel.currentWeather.trihourly.length; i < l; i++) {
-            if (weatherModel.currentWeather.trihourly[i].dt >= thisDay) {
-                data = weatherModel.currentWeather.trihourly[i + position];
-                i = l;
-            }
+        if (firstIndex < weatherModel.currentWeather.trihourly.size()) {
+            data = weatherModel.currentWeather.trihourly.get(firstIndex + position);
         }
 
         if (data != null) {
             String hourText = LocaleUtils.formatHour(
                     getContext(),
                     Locale.getDefault(),
-                    new Date(data.dt),
+                    new Date(data.getDt()),
                     weatherModel.currentWeather.timezone);
 
-            forecastIcon.setImageResource(data.weatherIconRes);
+            forecastIcon.setImageResource(data.getWeatherIconRes());
 
             forecastTitle.setText(hourText);
 
-            forecastItem1.setText(weatherUtils.getTemperatureString(temperatureUnit, data.temp, 0));
-            forecastItem1.setTextColor(colorHelper.getColorFromTemperature(data.temp, true, ColorUtils.isNightModeActive(getContext())));
+            forecastItem1.setText(weatherUtils.getTemperatureString(temperatureUnit, data.getTemp(), 0));
+            forecastItem1.setTextColor(colorHelper.getColorFromTemperature(data.getTemp(), true, ColorUtils.isNightModeActive(getContext())));
 
-            forecastDescription.setText(data.weatherDescription);
+            forecastDescription.setText(data.getWeatherDescription());
 
-            if (data.pop > 0) {
-                forecastItem2.setText(LocaleUtils.getPercentageString(Locale.getDefault(), data.pop  / 100.));
-                forecastItem2.setTextColor(colorHelper.getPrecipColor(data.precipitationType));
+            if (data.getPop() > 0) {
+                forecastItem2.setText(LocaleUtils.getPercentageString(Locale.getDefault(), data.getPop()  / 100.));
+                forecastItem2.setTextColor(colorHelper.getPrecipColor(data.getPrecipitationType()));
             } else {
                 forecastItem2.setText(null);
             }
 
             setContentDescription(getContext().getString(R.string.format_forecast_detail_desc,
                     hourText,
-                    data.weatherDescription,
-                    weatherUtils.getTemperatureString(temperatureUnit, data.temp, 0),
+                    data.getWeatherDescription(),
+                    weatherUtils.getTemperatureString(temperatureUnit, data.getTemp(), 0),
                     getContext().getString(R.string.format_precipitation_chance,
-                            LocaleUtils.getPercentageString(Locale.getDefault(), data.pop / 100.),
-                            weatherUtils.getPrecipitationTypeString(data.precipitationType))
+                            LocaleUtils.getPercentageString(Locale.getDefault(), data.getPop() / 100.),
+                            weatherUtils.getPrecipitationTypeString(data.getPrecipitationType()))
             ));
         }
     }
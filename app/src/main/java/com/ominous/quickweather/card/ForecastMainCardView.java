@@ -29,16 +29,14 @@ import com.ominous.quickweather.pref.SpeedUnit;
 import com.ominous.quickweather.pref.TemperatureUnit;
 import com.ominous.quickweather.pref.WeatherPreferences;
 import com.ominous.quickweather.util.WeatherUtils;
+import com.ominous.quickweather.util.ZoneTimeHelper;
 import com.ominous.tylerutils.util.LocaleUtils;
 
-import java.util.Calendar;
-import java.util.Date;
+import java.time.format.TextStyle;
 import java.util.Locale;
 
 //TODO Add cloud cover
 public class ForecastMainCardView extends BaseMainCardView {
-    private final Calendar calendar = Calendar.getInstance(Locale.getDefault());
-
     public ForecastMainCardView(Context context) {
         super(context);
 
@@ -51,12 +49,13 @@ public class ForecastMainCardView extends BaseMainCardView {
         super.update(weatherModel, position);
 
         int day = -1;
-        long thisDate = LocaleUtils.getStartOfDay(weatherModel.date, weatherModel.currentWeather.timezone);
+        ZoneTimeHelper.Day thisDay = ZoneTimeHelper.getInstance(weatherModel.currentWeather.timezone)
+                .getDay(weatherModel.date.getTime());
         CurrentWeather.DataPoint thisDailyData = null;
-        for (int i = 0, l = weatherModel.currentWeather.daily.length; i < l; i++) {
-            CurrentWeather.DataPoint dailyData = weatherModel.currentWeather.daily[i];
+        for (int i = 0, l = weatherModel.currentWeather.daily.size(); i < l; i++) {
+            CurrentWeather.DataPoint dailyData = weatherModel.currentWeather.daily.get(i);
 
-            if (LocaleUtils.getStartOfDay(new Date(dailyData.dt), weatherModel.currentWeather.timezone) == thisDate) {
+            if (thisDay.contains(dailyData.getDt())) {
                 thisDailyData = dailyData;
                 day = i;
                 i = l;
@@ -64,41 +63,39 @@ public class ForecastMainCardView extends BaseMainCardView {
         }
 
         if (thisDailyData != null) {
-            calendar.setTimeInMillis(thisDailyData.dt);
-
             WeatherUtils weatherUtils = WeatherUtils.getInstance(getContext());
             WeatherPreferences weatherPreferences = WeatherPreferences.getInstance(getContext());
             TemperatureUnit temperatureUnit = weatherPreferences.getTemperatureUnit();
             SpeedUnit speedUnit = weatherPreferences.getSpeedUnit();
             DistanceUnit shortDistanceUnit = weatherPreferences.getDistanceUnit(true);
 
-            String weatherString = thisDailyData.weatherLongDescription;
-            String maxTemperatureString = weatherUtils.getTemperatureString(temperatureUnit, thisDailyData.maxTemp, 0);
-            String minTemperatureString = weatherUtils.getTemperatureString(temperatureUnit, thisDailyData.minTemp, 0);
-            String dewPointString = weatherUtils.getTemperatureString(temperatureUnit, thisDailyData.dewPoint, 1);
-            String humidityString = LocaleUtils.getPercentageString(Locale.getDefault(), thisDailyData.humidity / 100.0);
-            String pressureString = getContext().getString(R.string.format_pressure, thisDailyData.pressure);
-            String uvIndexString = getContext().getString(R.string.format_uvi, thisDailyData.uvi);
+            String weatherString = thisDailyData.getWeatherLongDescription();
+            String maxTemperatureString = weatherUtils.getTemperatureString(temperatureUnit, thisDailyData.getMaxTemp(), 0);
+            String minTemperatureString = weatherUtils.getTemperatureString(temperatureUnit, thisDailyData.getMinTemp(), 0);
+            String dewPointString = weatherUtils.getTemperatureString(temperatureUnit, thisDailyData.getDewPoint(), 1);
+            String humidityString = LocaleUtils.getPercentageString(Locale.getDefault(), thisDailyData.getHumidity() / 100.0);
+            String pressureString = getContext().getString(R.string.format_pressure, thisDailyData.getPressure());
+            String uvIndexString = getContext().getString(R.string.format_uvi, thisDailyData.getUvi());
 
-            mainIcon.setImageResource(thisDailyData.weatherIconRes);
+            mainIcon.setImageResource(thisDailyData.getWeatherIconRes());
 
             mainTemperature.setText(getContext().getString(R.string.format_forecast_temp, maxTemperatureString, minTemperatureString));
             mainDescription.setText(weatherString);
 
-            windIconTextView.getTextView().setText(weatherUtils.getWindSpeedString(speedUnit, thisDailyData.windSpeed, thisDailyData.windDeg, false));
-            rainIconTextView.getTextView().setText(weatherUtils.getPrecipitationString(shortDistanceUnit, thisDailyData.precipitationIntensity, thisDailyData.precipitationType, false));
+            windIconTextView.getTextView().setText(weatherUtils.getWindSpeedString(speedUnit, thisDailyData.getWindSpeed(), thisDailyData.getWindDeg(), false));
+            rainIconTextView.getTextView().setText(weatherUtils.getPrecipitationString(shortDistanceUnit, thisDailyData.getPrecipitationIntensity(), thisDailyData.getPrecipitationType(), false));
             uvIndexIconTextView.getTextView().setText(uvIndexString);
             dewPointIconTextView.getTextView().setText(getContext().getString(R.string.format_dewpoint, dewPointString));
             humidityIconTextView.getTextView().setText(getContext().getString(R.string.format_humidity, humidityString));
             pressureIconTextView.getTextView().setText(pressureString);
 
             setContentDescription(getContext().getString(R.string.format_forecast_desc,
-                    day == 0 ? getContext().getString(R.string.text_today) : calendar.getDisplayName(Calendar.DAY_OF_WEEK, Calendar.LONG, Locale.getDefault()),
+                    day == 0 ? getContext().getString(R.string.text_today) : thisDay.date().getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.getDefault()),
                     weatherString,
                     maxTemperatureString,
                     minTemperatureString,
-                    weatherUtils.getPrecipitationString(shortDistanceUnit, thisDailyData.precipitationIntensity, thisDailyData.precipitationType, true),
-                    weatherUtils.getWindSpeedString(speedUnit, thisDailyData.windSpeed, thisDailyData.windDeg, true),
+                    weatherUtils.getPrecipitationString(shortDistanceUnit, thisDailyData.getPrecipitationIntensity(), thisDailyData.getPrecipitationType(), true),
+                    weatherUtils.getWindSpeedString(speedUnit, thisDailyData.getWindSpeed(), thisDailyData.getWindDeg(), true),
                     humidityString,
                     pressureString,
                     dewPointString,
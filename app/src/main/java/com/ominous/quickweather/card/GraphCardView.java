@@ -48,6 +48,7 @@ import com.ominous.quickweather.pref.WeatherPreferences;
 import com.ominous.quickweather.util.ColorHelper;
 import com.ominous.quickweather.util.GraphHelper;
 import com.ominous.quickweather.util.WeatherUtils;
+import com.ominous.quickweather.util.ZoneTimeHelper;
 import com.ominous.tylerutils.async.Promise;
 import com.ominous.tylerutils.util.ColorUtils;
 import com.ominous.tylerutils.util.LocaleUtils;
@@ -188,10 +189,10 @@ public class GraphCardView extends BaseCardView {
         ArrayList<PrecipitationGraphPoint> precipitationPoints = new ArrayList<>(48);
 
         //need to keep the longs short or the cast to float and back will break
-        long start = response.hourly[0].dt / 1000L;
+        long start = response.hourly.getDt(0) / 1000L;
 
         for (int i = 0, l = 48; i < l; i++) {
-            long x = response.hourly[i].dt / 1000L - start;
+            long x = response.hourly.getDt(i) / 1000L - start;
 
             temperaturePoints.add(new TemperatureGraphPoint(
                     colorHelper,
@@ -199,12 +200,12 @@ public class GraphCardView extends BaseCardView {
                     temperatureUnit,
                     isDarkModeActive,
                     x,
-                    (float) response.hourly[i].temp));
+                    (float) response.hourly.getTemp(i)));
             precipitationPoints.add(new PrecipitationGraphPoint(
                     colorHelper,
                     x,
-                    Math.min((float) response.hourly[i].precipitationIntensity, 2f),
-                    response.hourly[i].precipitationType
+                    Math.min((float) response.hourly.getPrecipitationIntensity(i), 2f),
+                    response.hourly.getPrecipitationType(i)
             ));
         }
 
@@ -235,13 +236,14 @@ public class GraphCardView extends BaseCardView {
         final TreeSet<PrecipitationGraphPoint> precipitationPointsSet = new TreeSet<>(pointXComparator);
 
         //need to keep the longs short or the cast to float and back will break
-        long start = LocaleUtils.getStartOfDay(weatherModel.date, weatherModel.currentWeather.timezone) / 1000L;
+        long start = ZoneTimeHelper.getInstance(weatherModel.currentWeather.timezone)
+                .getStartOfDay(weatherModel.date.getTime()) / 1000L;
         long end = start + 23 * ONE_HOUR;
 
-        for (int i = 0, l = weatherModel.currentWeather.hourly.length; i < l; i++) {
-            if (weatherModel.currentWeather.hourly[i].dt / 1000L >= start &&
-                    weatherModel.currentWeather.hourly[i].dt / 1000L <= end) {
-                long x = weatherModel.currentWeather.hourly[i].dt / 1000L - start;
+        for (int i = 0, l = weatherModel.currentWeather.hourly.size(); i < l; i++) {
+            if (weatherModel.currentWeather.hourly.getDt(i) / 1000L >= start &&
+                    weatherModel.currentWeather.hourly.getDt(i) / 1000L <= end) {
+                long x = weatherModel.currentWeather.hourly.getDt(i) / 1000L - start;
 
                 temperaturePointsSet.add(new TemperatureGraphPoint(
                         colorHelper,
@@ -249,20 +251,20 @@ public class GraphCardView extends BaseCardView {
                         temperatureUnit,
                         isDarkModeActive,
                         x,
-                        (float) weatherModel.currentWeather.hourly[i].temp));
+                        (float) weatherModel.currentWeather.hourly.getTemp(i)));
                 precipitationPointsSet.add(new PrecipitationGraphPoint(
                         colorHelper,
                         x,
-                        Math.min((float) weatherModel.currentWeather.hourly[i].precipitationIntensity, 2f),
-                        weatherModel.currentWeather.hourly[i].precipitationType
+                        Math.min((float) weatherModel.currentWeather.hourly.getPrecipitationIntensity(i), 2f),
+                        weatherModel.currentWeather.hourly.getPrecipitationType(i)
                 ));
             }
         }
 
-        for (int i = 0, l = weatherModel.currentWeather.trihourly.length; i < l; i++) {
-            if (weatherModel.currentWeather.trihourly[i].dt / 1000L >= start &&
-                    weatherModel.currentWeather.trihourly[i].dt / 1000L <= end) {
-                long x = weatherModel.currentWeather.trihourly[i].dt / 1000L - start;
+        for (int i = 0, l = weatherModel.currentWeather.trihourly.size(); i < l; i++) {
+            if (weatherModel.currentWeather.trihourly.getDt(i) / 1000L >= start &&
+                    weatherModel.currentWeather.trihourly.getDt(i) / 1000L <= end) {
+                long x = weatherModel.currentWeather.trihourly.getDt(i) / 1000L - start;
 
                 temperaturePointsSet.add(new TemperatureGraphPoint(
                         colorHelper,
@@ -270,12 +272,12 @@ public class GraphCardView extends BaseCardView {
                         temperatureUnit,
                         isDarkModeActive,
                         x,
-                        (float) weatherModel.currentWeather.trihourly[i].temp));
+                        (float) weatherModel.currentWeather.trihourly.getTemp(i)));
                 precipitationPointsSet.add(new PrecipitationGraphPoint(
                         colorHelper,
                         x,
-                        Math.min((float) weatherModel.currentWeather.trihourly[i].precipitationIntensity / 3, 2f),
-                        weatherModel.currentWeather.trihourly[i].precipitationType
+                        Math.min((float) weatherModel.currentWeather.trihourly.getPrecipitationIntensity(i) / 3, 2f),
+                        weatherModel.currentWeather.trihourly.getPrecipitationType(i)
                 ));
             }
         }
@@ -38,15 +38,19 @@ import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 
 import com.ominous.quickweather.R;
+import com.ominous.quickweather.data.CelestialCache;
+import com.ominous.quickweather.data.WeatherDatabase;
 import com.ominous.quickweather.data.WeatherModel;
 import com.ominous.quickweather.util.GraphHelper;
 import com.ominous.quickweather.util.WeatherUtils;
+import com.ominous.quickweather.util.ZoneTimeHelper;
 import com.ominous.tylerutils.async.Promise;
 import com.ominous.tylerutils.util.LocaleUtils;
 import com.ominous.tylerutils.util.ViewUtils;
 
+import java.time.DayOfWeek;
+import java.time.format.TextStyle;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
 
@@ -137,39 +141,38 @@ public class SunMoonCardView extends BaseCardView {
         if (weatherModel.date == null) {
             dayIndex = 0;
         } else {
-            for (int i = 0, l = weatherModel.currentWeather.daily.length; i < l; i++) {
-                if (weatherModel.currentWeather.daily[i].dt >= weatherModel.date.getTime()) {
-                    dayIndex = i;
-                    break;
-                }
+            int index = weatherModel.currentWeather.daily.indexOfFirstAtOrAfter(weatherModel.date.getTime());
+
+            if (index < weatherModel.currentWeather.daily.size()) {
+                dayIndex = index;
             }
         }
 
-        Calendar calendar = Calendar.getInstance(Locale.getDefault());
-        calendar.setTimeZone(weatherModel.currentWeather.timezone);
-        calendar.setTimeInMillis(weatherModel.currentWeather.daily[dayIndex].dt);
+        DayOfWeek dayOfWeek = ZoneTimeHelper.getInstance(weatherModel.currentWeather.timezone)
+                .getLocalDate(weatherModel.currentWeather.daily.getDt(dayIndex))
+                .getDayOfWeek();
 
         String sunrise = LocaleUtils.formatTime(getContext(),
                 Locale.getDefault(),
-                new Date(weatherModel.currentWeather.daily[dayIndex].sunrise),
+                new Date(weatherModel.currentWeather.daily.getSunrise(dayIndex)),
                 weatherModel.currentWeather.timezone);
         String sunset = LocaleUtils.formatTime(getContext(),
                 Locale.getDefault(),
-                new Date(weatherModel.currentWeather.daily[dayIndex].sunset),
+                new Date(weatherModel.currentWeather.daily.getSunset(dayIndex)),
                 weatherModel.currentWeather.timezone);
         String moonrise = LocaleUtils.formatTime(getContext(),
                 Locale.getDefault(),
-                new Date(weatherModel.currentWeather.daily[dayIndex].moonrise),
+                new Date(weatherModel.currentWeather.daily.getMoonrise(dayIndex)),
                 weatherModel.currentWeather.timezone);
         String moonset = LocaleUtils.formatTime(getContext(),
                 Locale.getDefault(),
-                new Date(weatherModel.currentWeather.daily[dayIndex].moonset),
+                new Date(weatherModel.currentWeather.daily.getMoonset(dayIndex)),
                 weatherModel.currentWeather.timezone);
         String moonphase = WeatherUtils.getInstance(getContext())
-                .getMoonPhaseString(weatherModel.currentWeather.daily[dayIndex].moonPhase);
+                .getMoonPhaseString(weatherModel.currentWeather.daily.getMoonPhase(dayIndex));
 
         setContentDescription(getContext().getString(R.string.card_sunmoon_desc,
-                dayIndex == 0 ? getContext().getString(R.string.text_today) : calendar.getDisplayName(Calendar.DAY_OF_WEEK, Calendar.SHORT, Locale.getDefault()),
+                dayIndex == 0 ? getContext().getString(R.string.text_today) : dayOfWeek.getDisplayName(TextStyle.SHORT, Locale.getDefault()),
                 sunrise,
                 sunset,
                 moonrise,
@@ -236,35 +239,31 @@ public class SunMoonCardView extends BaseCardView {
         ArrayList<CelestialGraphPoint> celestialPoints = new ArrayList<>(24);
         ArrayList<CelestialGraphPoint> horizonPoints = new ArrayList<>(24);
 
-        Calendar currentTime = Calendar.getInstance(weatherModel.currentWeather.timezone);
-        currentTime.setTimeInMillis(weatherModel.currentWeather.timestamp);
-        int currentMonth = currentTime.get(Calendar.MONTH);
-
-        Calendar riseTime = Calendar.getInstance(weatherModel.currentWeather.timezone);
-        riseTime.setTimeInMillis(isSun ?
-                weatherModel.currentWeather.daily[dayIndex].sunrise :
-                weatherModel.currentWeather.daily[dayIndex].moonrise);
+        ZoneTimeHelper zoneTimeHelper = ZoneTimeHelper.getInstance(weatherModel.currentWeather.timezone);
 
-        Calendar setTime = Calendar.getInstance(weatherModel.currentWeather.timezone);
-        setTime.setTimeInMillis(isSun ?
-                weatherModel.currentWeather.daily[dayIndex].sunset :
-                weatherModel.currentWeather.daily[dayIndex].moonset);
+        WeatherDatabase.CelestialEvents celestialEvents = CelestialCache.getInstance(getContext())
+                .getCelestialEvents(weatherModel.currentWeather.latitude,
+                        weatherModel.currentWeather.longitude,
+                        weatherModel.currentWeather.timezone,
+                        zoneTimeHelper.getLocalDate(weatherModel.currentWeather.daily.getDt(dayIndex)));
 
-        boolean is24HourSun = weatherModel.currentWeather.daily[0].sunrise == 0 &&
-                ((weatherModel.weatherLocation.latitude < 0 && (currentMonth <= 3 || currentMonth >= 9)) ||
-                        (weatherModel.weatherLocation.latitude > 0 && (currentMonth >= 3 && currentMonth <= 9)));
+        long riseTime = isSun ?
+                weatherModel.currentWeather.daily.getSunrise(dayIndex) :
+                weatherModel.currentWeather.daily.getMoonrise(dayIndex);
+        long setTime = isSun ?
+                weatherModel.currentWeather.daily.getSunset(dayIndex) :
+                weatherModel.currentWeather.daily.getMoonset(dayIndex);
 
-        boolean is24HourDarkness = weatherModel.currentWeather.daily[0].sunrise == 0 &&
-                ((weatherModel.weatherLocation.latitude > 0 && (currentMonth <= 3 || currentMonth >= 9)) ||
-                        (weatherModel.weatherLocation.latitude < 0 && (currentMonth >= 3 && currentMonth <= 9)));
+        boolean is24HourSun = celestialEvents.isSunAlwaysUp;
+        boolean is24HourDarkness = celestialEvents.isSunAlwaysDown;
 
-        float riseXcoord = riseTime.get(Calendar.HOUR_OF_DAY) + riseTime.get(Calendar.MINUTE) / 60f;
-        float setXcoord = setTime.get(Calendar.HOUR_OF_DAY) + setTime.get(Calendar.MINUTE) / 60f;
+        float riseXcoord = zoneTimeHelper.getHourOfDay(riseTime);
+        float setXcoord = zoneTimeHelper.getHourOfDay(setTime);
 
         float offset = is24HourSun ? 12 : is24HourDarkness ? 0 : 12 - (riseXcoord + setXcoord) / 2f;
         float riseYCoord = is24HourSun ? 0 : is24HourDarkness ? 2 : 1f - (float) Math.cos(FRAC * (riseXcoord + offset));
 
-        if (riseTime.after(setTime)) {
+        if (riseTime > setTime) {
             offset += 12;
         }
 
@@ -292,7 +291,7 @@ public class SunMoonCardView extends BaseCardView {
         Paint textPaint = getTextPaint();
         Paint textOutlinePaint = getTextOutlinePaint();
 
-        float sunX = currentTime.get(Calendar.HOUR_OF_DAY) + currentTime.get(Calendar.MINUTE) / 60f;
+        float sunX = zoneTimeHelper.getHourOfDay(weatherModel.currentWeather.timestamp);
         float sunY = 1f - (float) Math.cos(FRAC * (sunX + offset));
 
         float sunXCoord = graphHelper.getXCoord(graphBounds, graphRegion, sunX);
@@ -320,7 +319,7 @@ public class SunMoonCardView extends BaseCardView {
         graphHelper.plotLinesOnCanvas(graphRegion, strokePaint, graphBounds, horizonCurve);
         graphHelper.eraseCircle(eraseRegion);
 
-        double moonPhase = weatherModel.currentWeather.daily[dayIndex].moonPhase;
+        double moonPhase = weatherModel.currentWeather.daily.getMoonPhase(dayIndex);
 
         if (isSun) {
             sunMoonRes = R.drawable.sun;
@@ -357,12 +356,12 @@ public class SunMoonCardView extends BaseCardView {
 
         String riseLabel = LocaleUtils.formatTime(getContext(),
                 Locale.getDefault(),
-                riseTime.after(setTime) ? setTime.getTime() : riseTime.getTime(),
+                new Date(Math.min(riseTime, setTime)),
                 weatherModel.currentWeather.timezone);
 
         String setLabel = LocaleUtils.formatTime(getContext(),
                 Locale.getDefault(),
-                riseTime.after(setTime) ? riseTime.getTime() : setTime.getTime(),
+                new Date(Math.max(riseTime, setTime)),
                 weatherModel.currentWeather.timezone);
 
         textPaint.setTextAlign(Paint.Align.LEFT);
@@ -0,0 +1,187 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.data;
+
+import android.content.Context;
+
+import com.ominous.tylerutils.async.Promise;
+
+import org.shredzone.commons.suncalc.MoonIllumination;
+import org.shredzone.commons.suncalc.MoonTimes;
+import org.shredzone.commons.suncalc.SunTimes;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * Sun and moon events per quantized location and local date. The events only depend on the
+ * location and the date, so they are computed once, stored in the database and shared by the
+ * providers and the cards.
+ */
+public class CelestialCache {
+    public final static int QUANTIZATION = 100; //0.01 degrees, about 1km
+    private final static int MAX_MEMORY_ENTRIES = 128;
+    private final static int RETAINED_PAST_DAYS = 7;
+
+    private final LinkedHashMap<Key, WeatherDatabase.CelestialEvents> memoryCache =
+            new LinkedHashMap<>(32, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Key, WeatherDatabase.CelestialEvents> eldest) {
+                    return size() > MAX_MEMORY_ENTRIES;
+                }
+            };
+    private final WeatherDatabase.CelestialEventsDao celestialEventsDao;
+
+    private static CelestialCache instance;
+
+    private CelestialCache(Context context) {
+        celestialEventsDao = WeatherDatabase.getInstance(context).celestialEventsDao();
+    }
+
+    public static synchronized CelestialCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new CelestialCache(context.getApplicationContext());
+        }
+
+        return instance;
+    }
+
+    //Reads from the database on a miss, so this must not be called on the main thread
+    public WeatherDatabase.CelestialEvents getCelestialEvents(double latitude, double longitude, TimeZone timeZone, LocalDate day) {
+        Key key = new Key(quantize(latitude), quantize(longitude), getDateKey(day));
+        WeatherDatabase.CelestialEvents celestialEvents = getFromMemory(key);
+
+        if (celestialEvents == null) {
+            loadFromDatabase(key.latitudeKey, key.longitudeKey);
+            celestialEvents = getFromMemory(key);
+        }
+
+        if (celestialEvents == null) {
+            celestialEvents = compute(key, timeZone, day);
+
+            putInMemory(celestialEvents);
+            celestialEventsDao.insert(Collections.singletonList(celestialEvents));
+        }
+
+        return celestialEvents;
+    }
+
+    //Computes the events for the days starting at firstDay in the background, so later refreshes
+    //find them in the cache
+    public void prefetch(double latitude, double longitude, TimeZone timeZone, LocalDate firstDay, int days) {
+        int latitudeKey = quantize(latitude);
+        int longitudeKey = quantize(longitude);
+
+        Promise.create(a -> {
+            loadFromDatabase(latitudeKey, longitudeKey);
+
+            ArrayList<WeatherDatabase.CelestialEvents> computedEvents = new ArrayList<>(days);
+
+            for (int i = 0; i < days; i++) {
+                LocalDate day = firstDay.plusDays(i);
+                Key key = new Key(latitudeKey, longitudeKey, getDateKey(day));
+
+                if (getFromMemory(key) == null) {
+                    WeatherDatabase.CelestialEvents celestialEvents = compute(key, timeZone, day);
+
+                    putInMemory(celestialEvents);
+                    computedEvents.add(celestialEvents);
+                }
+            }
+
+            if (!computedEvents.isEmpty()) {
+                celestialEventsDao.insert(computedEvents);
+            }
+
+            celestialEventsDao.deleteBefore(getDateKey(firstDay.minusDays(RETAINED_PAST_DAYS)));
+        }, Throwable::printStackTrace);
+    }
+
+    private void loadFromDatabase(int latitudeKey, int longitudeKey) {
+        List<WeatherDatabase.CelestialEvents> storedEvents =
+                celestialEventsDao.getCelestialEvents(latitudeKey, longitudeKey);
+
+        for (WeatherDatabase.CelestialEvents celestialEvents : storedEvents) {
+            putInMemory(celestialEvents);
+        }
+    }
+
+    private synchronized WeatherDatabase.CelestialEvents getFromMemory(Key key) {
+        return memoryCache.get(key);
+    }
+
+    private synchronized void putInMemory(WeatherDatabase.CelestialEvents celestialEvents) {
+        memoryCache.put(new Key(celestialEvents.latitudeKey, celestialEvents.longitudeKey, celestialEvents.date), celestialEvents);
+    }
+
+    //Uses the quantized location so the stored events do not depend on which caller computed them
+    private static WeatherDatabase.CelestialEvents compute(Key key, TimeZone timeZone, LocalDate day) {
+        double latitude = key.latitudeKey / (double) QUANTIZATION;
+        double longitude = key.longitudeKey / (double) QUANTIZATION;
+
+        MoonTimes moonTimes = MoonTimes.compute()
+                .timezone(timeZone)
+                .on(day.getYear(), day.getMonthValue(), day.getDayOfMonth())
+                .at(latitude, longitude)
+                .execute();
+
+        MoonIllumination moonIllumination = MoonIllumination.compute()
+                .timezone(timeZone)
+                .on(day.getYear(), day.getMonthValue(), day.getDayOfMonth())
+                .execute();
+
+        SunTimes sunTimes = SunTimes.compute()
+                .timezone(timeZone)
+                .on(day.getYear(), day.getMonthValue(), day.getDayOfMonth())
+                .at(latitude, longitude)
+                .oneDay()
+                .execute();
+
+        Date moonRise = moonTimes.getRise();
+        Date moonSet = moonTimes.getSet();
+
+        return new WeatherDatabase.CelestialEvents(
+                key.latitudeKey,
+                key.longitudeKey,
+                key.date,
+                moonRise == null ? 0L : moonRise.getTime(),
+                moonSet == null ? 0L : moonSet.getTime(),
+                (moonIllumination.getPhase() + 180.0) / 360.0,
+                sunTimes.isAlwaysUp(),
+                sunTimes.isAlwaysDown());
+    }
+
+    private static int quantize(double degrees) {
+        return (int) Math.round(degrees * QUANTIZATION);
+    }
+
+    private static int getDateKey(LocalDate day) {
+        return day.getYear() * 10000 + day.getMonthValue() * 100 + day.getDayOfMonth();
+    }
+
+    private record Key(int latitudeKey, int longitudeKey, int date) {
+    }
+}
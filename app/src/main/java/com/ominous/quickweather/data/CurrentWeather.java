@@ -19,55 +19,102 @@
 
 package com.ominous.quickweather.data;
 
-import java.io.Serial;
-import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.TimeZone;
 
 import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
 
-public class CurrentWeather implements Serializable {
-    @Serial
-    private final static long serialVersionUID = 2;
+public class CurrentWeather {
     public long timestamp; //milliseconds
     public TimeZone timezone;
     public DataPoint current;
-    public DataPoint[] daily;
-    public DataPoint[] hourly;
-    public DataPoint[] trihourly;
+    public Series daily;
+    public Series hourly;
+    public Series trihourly;
     public Alert[] alerts;
     public double latitude;
     public double longitude;
 
-    public static class DataPoint implements Serializable {
-        public final long dt; // timestamp, milliseconds
-        public double minTemp; // Fahrenheit
-        public double maxTemp; // Fahrenheit
-        public double temp; // Fahrenheit
-        public double feelsLike; // Fahrenheit
-        public int visibility; // meters, max of 10000
-        public int humidity; // percent, 0-100
-        public double windSpeed; // mph
-        public int windDeg; // bearing, degrees from north
-        public int pressure; // hPa
-        public double dewPoint; // Fahrenheit
-        public double uvi; // index, 0-11+
-        public int pop; // percent, 0-100
-        public int weatherCode; // OpenWeatherMap weather code
-        @DrawableRes
-        public int weatherIconRes;
-        public String weatherDescription;
-        public String weatherLongDescription;
-        public final double precipitationIntensity; // mm
-        public final PrecipType precipitationType;
-        public long sunrise; // timestamp, milliseconds
-        public long sunset; // timestamp, milliseconds
-        public long moonrise; // timestamp, milliseconds
-        public long moonset; // timestamp, milliseconds
-        public double moonPhase; // 0,1: "new moon", 0.25: "first quarter moon",
-                                 // 0.5: "full moon", 0.75: "last quarter moon"
-
-        //current
-        public DataPoint(
+    public enum SeriesType {
+        CURRENT,
+        DAILY,
+        HOURLY,
+        TRIHOURLY
+    }
+
+    /**
+     * A forecast series stored as one primitive column per field. Only the columns used by the
+     * series type are allocated, and descriptions are stored as indexes into a per-series table.
+     */
+    public static class Series implements Iterable<DataPoint> {
+        private final static PrecipType[] PRECIP_TYPES = PrecipType.values();
+
+        public final SeriesType type;
+        int size;
+        final long[] dt; // timestamp, milliseconds
+        final double[] minTemp; // Fahrenheit
+        final double[] maxTemp; // Fahrenheit
+        final double[] temp; // Fahrenheit
+        final double[] feelsLike; // Fahrenheit
+        final int[] visibility; // meters, max of 10000
+        final int[] humidity; // percent, 0-100
+        final double[] windSpeed; // mph
+        final int[] windDeg; // bearing, degrees from north
+        final int[] pressure; // hPa
+        final double[] dewPoint; // Fahrenheit
+        final double[] uvi; // index, 0-11+
+        final int[] pop; // percent, 0-100
+        final int[] weatherCode; // OpenWeatherMap weather code
+        final int[] weatherIconRes;
+        final int[] weatherDescription; // index into strings
+        final int[] weatherLongDescription; // index into strings
+        final double[] precipitationIntensity; // mm
+        final byte[] precipitationType; // PrecipType ordinal, -1 if null
+        final long[] sunrise; // timestamp, milliseconds
+        final long[] sunset; // timestamp, milliseconds
+        final long[] moonrise; // timestamp, milliseconds
+        final long[] moonset; // timestamp, milliseconds
+        final double[] moonPhase; // 0,1: "new moon", 0.25: "first quarter moon",
+                                  // 0.5: "full moon", 0.75: "last quarter moon"
+        final ArrayList<String> strings = new ArrayList<>();
+
+        public Series(SeriesType type, int capacity) {
+            boolean isCurrent = type == SeriesType.CURRENT;
+            boolean isDaily = type == SeriesType.DAILY;
+            boolean isHourly = type == SeriesType.HOURLY;
+            boolean isTrihourly = type == SeriesType.TRIHOURLY;
+
+            this.type = type;
+            this.dt = new long[capacity];
+            this.minTemp = isDaily ? new double[capacity] : null;
+            this.maxTemp = isDaily ? new double[capacity] : null;
+            this.temp = isDaily ? null : new double[capacity];
+            this.feelsLike = isCurrent ? new double[capacity] : null;
+            this.visibility = isCurrent ? new int[capacity] : null;
+            this.humidity = isTrihourly ? null : new int[capacity];
+            this.windSpeed = isTrihourly ? null : new double[capacity];
+            this.windDeg = isTrihourly ? null : new int[capacity];
+            this.pressure = isCurrent || isDaily ? new int[capacity] : null;
+            this.dewPoint = isCurrent || isDaily ? new double[capacity] : null;
+            this.uvi = isTrihourly ? null : new double[capacity];
+            this.pop = isCurrent ? null : new int[capacity];
+            this.weatherCode = isTrihourly ? null : new int[capacity];
+            this.weatherIconRes = isHourly ? null : new int[capacity];
+            this.weatherDescription = isHourly ? null : new int[capacity];
+            this.weatherLongDescription = isCurrent || isDaily ? new int[capacity] : null;
+            this.precipitationIntensity = new double[capacity];
+            this.precipitationType = new byte[capacity];
+            this.sunrise = isDaily ? new long[capacity] : null;
+            this.sunset = isDaily ? new long[capacity] : null;
+            this.moonrise = isDaily ? new long[capacity] : null;
+            this.moonset = isDaily ? new long[capacity] : null;
+            this.moonPhase = isDaily ? new double[capacity] : null;
+        }
+
+        public void addCurrent(
                 long dt,
                 double temp,
                 double feelsLike,
@@ -84,26 +131,27 @@ public class CurrentWeather implements Serializable {
                 String weatherLongDescription,
                 double precipitationIntensity,
                 PrecipType precipitationType) {
-            this.dt = dt;
-            this.temp = temp;
-            this.feelsLike = feelsLike;
-            this.visibility = visibility;
-            this.humidity = humidity;
-            this.windSpeed = windSpeed;
-            this.windDeg = windDeg;
-            this.pressure = pressure;
-            this.dewPoint = dewPoint;
-            this.uvi = uvi;
-            this.weatherCode = weatherCode;
-            this.weatherIconRes = weatherIconRes;
-            this.weatherDescription = weatherDescription;
-            this.weatherLongDescription = weatherLongDescription;
-            this.precipitationIntensity = precipitationIntensity;
-            this.precipitationType = precipitationType;
-        }
-
-        //daily
-        public DataPoint(
+            int i = nextIndex(SeriesType.CURRENT);
+
+            this.dt[i] = dt;
+            this.temp[i] = temp;
+            this.feelsLike[i] = feelsLike;
+            this.visibility[i] = visibility;
+            this.humidity[i] = humidity;
+            this.windSpeed[i] = windSpeed;
+            this.windDeg[i] = windDeg;
+            this.pressure[i] = pressure;
+            this.dewPoint[i] = dewPoint;
+            this.uvi[i] = uvi;
+            this.weatherCode[i] = weatherCode;
+            this.weatherIconRes[i] = weatherIconRes;
+            this.weatherDescription[i] = intern(weatherDescription);
+            this.weatherLongDescription[i] = intern(weatherLongDescription);
+            this.precipitationIntensity[i] = precipitationIntensity;
+            this.precipitationType[i] = toOrdinal(precipitationType);
+        }
+
+        public void addDaily(
                 long dt,
                 double maxTemp,
                 double minTemp,
@@ -125,31 +173,32 @@ public class CurrentWeather implements Serializable {
                 long moonrise,
                 long moonset,
                 double moonPhase) {
-            this.dt = dt;
-            this.maxTemp = maxTemp;
-            this.minTemp = minTemp;
-            this.humidity = humidity;
-            this.windSpeed = windSpeed;
-            this.windDeg = windDeg;
-            this.pressure = pressure;
-            this.dewPoint = dewPoint;
-            this.uvi = uvi;
-            this.pop = pop;
-            this.weatherCode = weatherCode;
-            this.weatherIconRes = weatherIconRes;
-            this.weatherDescription = weatherDescription;
-            this.weatherLongDescription = weatherLongDescription;
-            this.precipitationIntensity = precipitationIntensity;
-            this.precipitationType = precipitationType;
-            this.sunrise = sunrise;
-            this.sunset = sunset;
-            this.moonrise = moonrise;
-            this.moonset = moonset;
-            this.moonPhase = moonPhase;
-        }
-
-        //hourly
-        public DataPoint(
+            int i = nextIndex(SeriesType.DAILY);
+
+            this.dt[i] = dt;
+            this.maxTemp[i] = maxTemp;
+            this.minTemp[i] = minTemp;
+            this.humidity[i] = humidity;
+            this.windSpeed[i] = windSpeed;
+            this.windDeg[i] = windDeg;
+            this.pressure[i] = pressure;
+            this.dewPoint[i] = dewPoint;
+            this.uvi[i] = uvi;
+            this.pop[i] = pop;
+            this.weatherCode[i] = weatherCode;
+            this.weatherIconRes[i] = weatherIconRes;
+            this.weatherDescription[i] = intern(weatherDescription);
+            this.weatherLongDescription[i] = intern(weatherLongDescription);
+            this.precipitationIntensity[i] = precipitationIntensity;
+            this.precipitationType[i] = toOrdinal(precipitationType);
+            this.sunrise[i] = sunrise;
+            this.sunset[i] = sunset;
+            this.moonrise[i] = moonrise;
+            this.moonset[i] = moonset;
+            this.moonPhase[i] = moonPhase;
+        }
+
+        public void addHourly(
                 long dt,
                 double temp,
                 int weatherCode,
@@ -160,20 +209,21 @@ public class CurrentWeather implements Serializable {
                 int pop,
                 double precipitationIntensity,
                 PrecipType precipitationType) {
-            this.dt = dt;
-            this.temp = temp;
-            this.weatherCode = weatherCode;
-            this.humidity = humidity;
-            this.windSpeed = windSpeed;
-            this.windDeg = windDeg;
-            this.uvi = uvi;
-            this.pop = pop;
-            this.precipitationIntensity = precipitationIntensity;
-            this.precipitationType = precipitationType;
-        }
-
-        //trihourly
-        public DataPoint(
+            int i = nextIndex(SeriesType.HOURLY);
+
+            this.dt[i] = dt;
+            this.temp[i] = temp;
+            this.weatherCode[i] = weatherCode;
+            this.humidity[i] = humidity;
+            this.windSpeed[i] = windSpeed;
+            this.windDeg[i] = windDeg;
+            this.uvi[i] = uvi;
+            this.pop[i] = pop;
+            this.precipitationIntensity[i] = precipitationIntensity;
+            this.precipitationType[i] = toOrdinal(precipitationType);
+        }
+
+        public void addTrihourly(
                 long dt,
                 double temp,
                 int weatherIconRes,
@@ -181,18 +231,311 @@ public class CurrentWeather implements Serializable {
                 int pop,
                 double precipitationIntensity,
                 PrecipType precipitationType) {
-            this.dt = dt;
-            this.temp = temp;
-            this.weatherIconRes = weatherIconRes;
-            this.weatherDescription = weatherDescription;
-            this.pop = pop;
-            this.precipitationIntensity = precipitationIntensity;
-            this.precipitationType = precipitationType;
+            int i = nextIndex(SeriesType.TRIHOURLY);
+
+            this.dt[i] = dt;
+            this.temp[i] = temp;
+            this.weatherIconRes[i] = weatherIconRes;
+            this.weatherDescription[i] = intern(weatherDescription);
+            this.pop[i] = pop;
+            this.precipitationIntensity[i] = precipitationIntensity;
+            this.precipitationType[i] = toOrdinal(precipitationType);
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public DataPoint get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+            }
+
+            return new DataPoint(this, index);
+        }
+
+        //index of the first point at or after the timestamp, or size() if there is none
+        public int indexOfFirstAtOrAfter(long timestamp) {
+            int low = 0;
+            int high = size;
+
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+
+                if (dt[mid] < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+
+            return low;
+        }
+
+        public long getDt(int i) {
+            return dt[i];
+        }
+
+        public double getMinTemp(int i) {
+            return minTemp == null ? 0 : minTemp[i];
+        }
+
+        public double getMaxTemp(int i) {
+            return maxTemp == null ? 0 : maxTemp[i];
+        }
+
+        public double getTemp(int i) {
+            return temp == null ? 0 : temp[i];
+        }
+
+        public double getFeelsLike(int i) {
+            return feelsLike == null ? 0 : feelsLike[i];
+        }
+
+        public int getVisibility(int i) {
+            return visibility == null ? 0 : visibility[i];
+        }
+
+        public int getHumidity(int i) {
+            return humidity == null ? 0 : humidity[i];
+        }
+
+        public double getWindSpeed(int i) {
+            return windSpeed == null ? 0 : windSpeed[i];
+        }
+
+        public int getWindDeg(int i) {
+            return windDeg == null ? 0 : windDeg[i];
+        }
+
+        public int getPressure(int i) {
+            return pressure == null ? 0 : pressure[i];
+        }
+
+        public double getDewPoint(int i) {
+            return dewPoint == null ? 0 : dewPoint[i];
+        }
+
+        public double getUvi(int i) {
+            return uvi == null ? 0 : uvi[i];
+        }
+
+        public int getPop(int i) {
+            return pop == null ? 0 : pop[i];
+        }
+
+        public int getWeatherCode(int i) {
+            return weatherCode == null ? 0 : weatherCode[i];
+        }
+
+        @DrawableRes
+        public int getWeatherIconRes(int i) {
+            return weatherIconRes == null ? 0 : weatherIconRes[i];
+        }
+
+        public String getWeatherDescription(int i) {
+            return weatherDescription == null ? null : getString(weatherDescription[i]);
+        }
+
+        public String getWeatherLongDescription(int i) {
+            return weatherLongDescription == null ? null : getString(weatherLongDescription[i]);
+        }
+
+        public double getPrecipitationIntensity(int i) {
+            return precipitationIntensity[i];
+        }
+
+        public PrecipType getPrecipitationType(int i) {
+            byte ordinal = precipitationType[i];
+            return ordinal >= 0 && ordinal < PRECIP_TYPES.length ? PRECIP_TYPES[ordinal] : null;
+        }
+
+        public long getSunrise(int i) {
+            return sunrise == null ? 0 : sunrise[i];
+        }
+
+        public long getSunset(int i) {
+            return sunset == null ? 0 : sunset[i];
+        }
+
+        public long getMoonrise(int i) {
+            return moonrise == null ? 0 : moonrise[i];
+        }
+
+        public long getMoonset(int i) {
+            return moonset == null ? 0 : moonset[i];
+        }
+
+        public double getMoonPhase(int i) {
+            return moonPhase == null ? 0 : moonPhase[i];
+        }
+
+        @NonNull
+        @Override
+        public Iterator<DataPoint> iterator() {
+            return new Iterator<>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public DataPoint next() {
+                    if (next >= size) {
+                        throw new NoSuchElementException();
+                    }
+
+                    return new DataPoint(Series.this, next++);
+                }
+            };
+        }
+
+        int intern(String string) {
+            if (string == null) {
+                return -1;
+            }
+
+            int index = strings.indexOf(string);
+
+            if (index < 0) {
+                index = strings.size();
+                strings.add(string);
+            }
+
+            return index;
+        }
+
+        private String getString(int index) {
+            return index < 0 ? null : strings.get(index);
+        }
+
+        private int nextIndex(SeriesType expectedType) {
+            if (type != expectedType) {
+                throw new IllegalStateException("Cannot add a " + expectedType + " point to a " + type + " series");
+            }
+
+            return size++;
+        }
+
+        static byte toOrdinal(PrecipType precipType) {
+            return precipType == null ? -1 : (byte) precipType.ordinal();
+        }
+    }
+
+    /**
+     * A view of a single point in a {@link Series}.
+     */
+    public static class DataPoint {
+        final Series series;
+        final int index;
+
+        DataPoint(Series series, int index) {
+            this.series = series;
+            this.index = index;
+        }
+
+        public long getDt() {
+            return series.getDt(index);
+        }
+
+        public double getMinTemp() {
+            return series.getMinTemp(index);
+        }
+
+        public double getMaxTemp() {
+            return series.getMaxTemp(index);
+        }
+
+        public double getTemp() {
+            return series.getTemp(index);
+        }
+
+        public double getFeelsLike() {
+            return series.getFeelsLike(index);
+        }
+
+        public int getVisibility() {
+            return series.getVisibility(index);
+        }
+
+        public int getHumidity() {
+            return series.getHumidity(index);
+        }
+
+        public double getWindSpeed() {
+            return series.getWindSpeed(index);
+        }
+
+        public int getWindDeg() {
+            return series.getWindDeg(index);
+        }
+
+        public int getPressure() {
+            return series.getPressure(index);
+        }
+
+        public double getDewPoint() {
+            return series.getDewPoint(index);
+        }
+
+        public double getUvi() {
+            return series.getUvi(index);
+        }
+
+        public int getPop() {
+            return series.getPop(index);
+        }
+
+        public int getWeatherCode() {
+            return series.getWeatherCode(index);
+        }
+
+        @DrawableRes
+        public int getWeatherIconRes() {
+            return series.getWeatherIconRes(index);
+        }
+
+        public String getWeatherDescription() {
+            return series.getWeatherDescription(index);
+        }
+
+        public String getWeatherLongDescription() {
+            return series.getWeatherLongDescription(index);
+        }
+
+        public double getPrecipitationIntensity() {
+            return series.getPrecipitationIntensity(index);
+        }
+
+        public PrecipType getPrecipitationType() {
+            return series.getPrecipitationType(index);
+        }
+
+        public long getSunrise() {
+            return series.getSunrise(index);
+        }
+
+        public long getSunset() {
+            return series.getSunset(index);
+        }
+
+        public long getMoonrise() {
+            return series.getMoonrise(index);
+        }
+
+        public long getMoonset() {
+            return series.getMoonset(index);
+        }
+
+        public double getMoonPhase() {
+            return series.getMoonPhase(index);
         }
     }
 
     //TODO clean up alert, create constructor
-    public static class Alert implements Serializable {
+    public static class Alert {
         public String senderName;
         public String event;
         public long start; //seconds
@@ -227,6 +570,23 @@ public class CurrentWeather implements Serializable {
         }
     }
 
+    //Shares the series and alerts, which are not modified once built
+    public CurrentWeather withTimestamp(long timestamp) {
+        CurrentWeather copy = new CurrentWeather();
+
+        copy.timestamp = timestamp;
+        copy.timezone = this.timezone;
+        copy.current = this.current;
+        copy.daily = this.daily;
+        copy.hourly = this.hourly;
+        copy.trihourly = this.trihourly;
+        copy.alerts = this.alerts;
+        copy.latitude = this.latitude;
+        copy.longitude = this.longitude;
+
+        return copy;
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null) {
@@ -0,0 +1,264 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.data;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.TimeZone;
+
+//Frozen copy of the layout that older versions wrote to .ser files, only used to migrate them
+final class LegacyCurrentWeather implements Serializable {
+    @Serial
+    private final static long serialVersionUID = 2;
+    private final static String LEGACY_CLASS_NAME = "com.ominous.quickweather.data.CurrentWeather";
+    private final static Map<String, Class<?>> LEGACY_CLASSES = Map.of(
+            LEGACY_CLASS_NAME, LegacyCurrentWeather.class,
+            LEGACY_CLASS_NAME + "$DataPoint", DataPoint.class,
+            LEGACY_CLASS_NAME + "$Alert", Alert.class,
+            "[L" + LEGACY_CLASS_NAME + "$DataPoint;", DataPoint[].class,
+            "[L" + LEGACY_CLASS_NAME + "$Alert;", Alert[].class);
+
+    long timestamp;
+    TimeZone timezone;
+    DataPoint current;
+    DataPoint[] daily;
+    DataPoint[] hourly;
+    DataPoint[] trihourly;
+    Alert[] alerts;
+    double latitude;
+    double longitude;
+
+    static CurrentWeather readFromFile(File file) throws IOException {
+        try (ObjectInputStream objectInputStream = new LegacyObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            Object object = objectInputStream.readObject();
+
+            if (!(object instanceof LegacyCurrentWeather legacyCurrentWeather)) {
+                throw new InvalidClassException("Unexpected legacy cache content");
+            }
+
+            return legacyCurrentWeather.toCurrentWeather();
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private CurrentWeather toCurrentWeather() {
+        CurrentWeather currentWeather = new CurrentWeather();
+
+        currentWeather.timestamp = timestamp;
+        currentWeather.timezone = timezone;
+        currentWeather.latitude = latitude;
+        currentWeather.longitude = longitude;
+
+        if (current != null) {
+            CurrentWeather.Series currentSeries = new CurrentWeather.Series(CurrentWeather.SeriesType.CURRENT, 1);
+
+            currentSeries.addCurrent(
+                    current.dt,
+                    current.temp,
+                    current.feelsLike,
+                    current.visibility,
+                    current.humidity,
+                    current.windSpeed,
+                    current.windDeg,
+                    current.pressure,
+                    current.dewPoint,
+                    current.uvi,
+                    current.weatherCode,
+                    current.weatherIconRes,
+                    current.weatherDescription,
+                    current.weatherLongDescription,
+                    current.precipitationIntensity,
+                    current.precipitationType);
+
+            currentWeather.current = currentSeries.get(0);
+        }
+
+        if (daily != null) {
+            currentWeather.daily = new CurrentWeather.Series(CurrentWeather.SeriesType.DAILY, daily.length);
+
+            for (DataPoint dataPoint : daily) {
+                currentWeather.daily.addDaily(
+                        dataPoint.dt,
+                        dataPoint.maxTemp,
+                        dataPoint.minTemp,
+                        dataPoint.humidity,
+                        dataPoint.windSpeed,
+                        dataPoint.windDeg,
+                        dataPoint.pressure,
+                        dataPoint.dewPoint,
+                        dataPoint.uvi,
+                        dataPoint.pop,
+                        dataPoint.weatherCode,
+                        dataPoint.weatherIconRes,
+                        dataPoint.weatherDescription,
+                        dataPoint.weatherLongDescription,
+                        dataPoint.precipitationIntensity,
+                        dataPoint.precipitationType,
+                        dataPoint.sunrise,
+                        dataPoint.sunset,
+                        dataPoint.moonrise,
+                        dataPoint.moonset,
+                        dataPoint.moonPhase);
+            }
+        }
+
+        if (hourly != null) {
+            currentWeather.hourly = new CurrentWeather.Series(CurrentWeather.SeriesType.HOURLY, hourly.length);
+
+            for (DataPoint dataPoint : hourly) {
+                currentWeather.hourly.addHourly(
+                        dataPoint.dt,
+                        dataPoint.temp,
+                        dataPoint.weatherCode,
+                        dataPoint.humidity,
+                        dataPoint.windSpeed,
+                        dataPoint.windDeg,
+                        dataPoint.uvi,
+                        dataPoint.pop,
+                        dataPoint.precipitationIntensity,
+                        dataPoint.precipitationType);
+            }
+        }
+
+        if (trihourly != null) {
+            currentWeather.trihourly = new CurrentWeather.Series(CurrentWeather.SeriesType.TRIHOURLY, trihourly.length);
+
+            for (DataPoint dataPoint : trihourly) {
+                currentWeather.trihourly.addTrihourly(
+                        dataPoint.dt,
+                        dataPoint.temp,
+                        dataPoint.weatherIconRes,
+                        dataPoint.weatherDescription,
+                        dataPoint.pop,
+                        dataPoint.precipitationIntensity,
+                        dataPoint.precipitationType);
+            }
+        }
+
+        if (alerts != null) {
+            currentWeather.alerts = new CurrentWeather.Alert[alerts.length];
+
+            for (int i = 0, l = alerts.length; i < l; i++) {
+                CurrentWeather.Alert alert = new CurrentWeather.Alert();
+
+                alert.senderName = alerts[i].senderName;
+                alert.event = alerts[i].event;
+                alert.start = alerts[i].start;
+                alert.end = alerts[i].end;
+                alert.description = alerts[i].description;
+
+                currentWeather.alerts[i] = alert;
+            }
+        }
+
+        return currentWeather;
+    }
+
+    //Field names and types must stay identical to the old CurrentWeather.DataPoint
+    static final class DataPoint implements Serializable {
+        long dt;
+        double minTemp;
+        double maxTemp;
+        double temp;
+        double feelsLike;
+        int visibility;
+        int humidity;
+        double windSpeed;
+        int windDeg;
+        int pressure;
+        double dewPoint;
+        double uvi;
+        int pop;
+        int weatherCode;
+        int weatherIconRes;
+        String weatherDescription;
+        String weatherLongDescription;
+        double precipitationIntensity;
+        PrecipType precipitationType;
+        long sunrise;
+        long sunset;
+        long moonrise;
+        long moonset;
+        double moonPhase;
+    }
+
+    //Field names and types must stay identical to the old CurrentWeather.Alert
+    static final class Alert implements Serializable {
+        String senderName;
+        String event;
+        long start;
+        long end;
+        String description;
+    }
+
+    //Reads the old class names into the frozen classes above
+    private static class LegacyObjectInputStream extends ObjectInputStream {
+        LegacyObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected ObjectStreamClass readClassDescriptor() throws IOException, ClassNotFoundException {
+            ObjectStreamClass streamDescriptor = super.readClassDescriptor();
+            Class<?> legacyClass = LEGACY_CLASSES.get(streamDescriptor.getName());
+
+            if (legacyClass == null) {
+                return streamDescriptor;
+            }
+
+            ObjectStreamClass legacyDescriptor = ObjectStreamClass.lookup(legacyClass);
+
+            if (!hasSameFields(streamDescriptor, legacyDescriptor)) {
+                throw new InvalidClassException(streamDescriptor.getName(), "Legacy layout mismatch");
+            }
+
+            return legacyDescriptor;
+        }
+
+        private static boolean hasSameFields(ObjectStreamClass streamDescriptor, ObjectStreamClass legacyDescriptor) {
+            ObjectStreamField[] streamFields = streamDescriptor.getFields();
+            ObjectStreamField[] legacyFields = legacyDescriptor.getFields();
+
+            if (streamFields.length != legacyFields.length) {
+                return false;
+            }
+
+            for (int i = 0, l = streamFields.length; i < l; i++) {
+                if (!streamFields[i].getName().equals(legacyFields[i].getName()) ||
+                        streamFields[i].getTypeCode() != legacyFields[i].getTypeCode()) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
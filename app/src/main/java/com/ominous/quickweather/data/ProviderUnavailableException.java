@@ -0,0 +1,31 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.data;
+
+//Thrown without calling the provider while its circuit breaker is open
+public class ProviderUnavailableException extends RuntimeException {
+    public final long retryAt; //timestamp, milliseconds
+
+    public ProviderUnavailableException(long retryAt) {
+        super("Weather provider unavailable until " + retryAt);
+
+        this.retryAt = retryAt;
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.ominous.quickweather.data;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import com.ominous.tylerutils.async.Promise;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Rolling per-stage percentiles and a bounded, persisted history of weather refreshes.
+ * Shown on the diagnostics dialog, so slow refreshes can be reported with data.
+ */
+public class RefreshMetrics {
+    private final static String HISTORY_FILE = "refresh_metrics.json";
+    private final static int WINDOW_SIZE = 200;
+    private final static int MAX_HISTORY = 50;
+    private final static int TOTAL = RefreshTrace.Stage.values().length;
+
+    //One ring buffer per stage, and one for the whole refresh, in nanoseconds
+    private final long[][] windows = new long[TOTAL + 1][WINDOW_SIZE];
+    private final int[] windowCounts = new int[TOTAL + 1];
+    private final int[] windowPositions = new int[TOTAL + 1];
+    private final ArrayDeque<Entry> history = new ArrayDeque<>(MAX_HISTORY);
+    private final AtomicFile historyFile;
+    private boolean isLoaded = false;
+    private long historyVersion = 0;
+    private long writtenVersion = 0;
+
+    private static RefreshMetrics instance;
+
+    private RefreshMetrics(Context context) {
+        historyFile = new AtomicFile(new File(context.getFilesDir(), HISTORY_FILE));
+    }
+
+    public static synchronized RefreshMetrics getInstance(Context context) {
+        if (instance == null) {
+            instance = new RefreshMetrics(context.getApplicationContext());
+        }
+
+        return instance;
+    }
+
+    //Refreshes finish on the main thread, so the history file is read and written off it
+    public void record(Entry entry) {
+        Promise.create(a -> {
+            String historyJson;
+            long version;
+
+            synchronized (this) {
+                loadHistory();
+                addEntry(entry);
+
+                historyJson = getHistoryJson();
+                version = ++historyVersion;
+            }
+
+            writeHistory(historyJson, version);
+        });
+    }
+
+    public synchronized void recordStage(RefreshTrace.Stage stage, long nanos) {
+        addSample(stage.ordinal(), nanos);
+    }
+
+    //Milliseconds, or -1 without samples. A null stage means the whole refresh.
+    public synchronized long getPercentile(RefreshTrace.Stage stage, double percentile) {
+        loadHistory();
+
+        int window = stage == null ? TOTAL : stage.ordinal();
+        int count = windowCounts[window];
+
+        if (count == 0) {
+            return -1;
+        }
+
+        long[] samples = Arrays.copyOf(windows[window], count);
+        Arrays.sort(samples);
+
+        int rank = (int) Math.ceil(percentile / 100. * count) - 1;
+
+        return samples[Math.max(0, Math.min(count - 1, rank))] / 1_000_000;
+    }
+
+    public synchronized List<Entry> getHistory() {
+        loadHistory();
+
+        return new ArrayList<>(history);
+    }
+
+    public String getReport() {
+        StringBuilder report = new StringBuilder();
+        List<Entry> entries = getHistory();
+        int[] cacheTierCounts = new int[RefreshTrace.CacheTier.values().length];
+        long totalBytes = 0;
+        int totalRetries = 0;
+
+        for (Entry entry : entries) {
+            cacheTierCounts[entry.cacheTier.ordinal()]++;
+            totalBytes += entry.bytesReceived;
+            totalRetries += entry.retries;
+        }
+
+        report.append(String.format(Locale.US, "%-12s %7s %7s %7s\n", "Stage (ms)", "p50", "p90", "p99"));
+
+        for (RefreshTrace.Stage stage : RefreshTrace.Stage.values()) {
+            appendPercentiles(report, stage.name(), stage);
+        }
+
+        appendPercentiles(report, "TOTAL", null);
+
+        report.append("\nCache tiers:");
+
+        for (RefreshTrace.CacheTier cacheTier : RefreshTrace.CacheTier.values()) {
+            report.append(' ').append(cacheTier.name()).append('=').append(cacheTierCounts[cacheTier.ordinal()]);
+        }
+
+        report.append(String.format(Locale.US, "\nRefreshes: %d, received: %d kB, retries: %d\n\n",
+                entries.size(), totalBytes / 1024, totalRetries));
+
+        SimpleDateFormat dateFormat = new SimpleDateFormat("MM-dd HH:mm:ss", Locale.US);
+
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+
+            report.append(String.format(Locale.US, "%s %s %s %d ms %d kB %d retries\n",
+                    dateFormat.format(new Date(entry.timestamp)),
+                    entry.status.name(),
+                    entry.cacheTier.name(),
+                    entry.totalDuration / 1_000_000,
+                    entry.bytesReceived / 1024,
+                    entry.retries));
+        }
+
+        return report.toString();
+    }
+
+    private void appendPercentiles(StringBuilder report, String name, RefreshTrace.Stage stage) {
+        report.append(String.format(Locale.US, "%-12s %7d %7d %7d\n",
+                name,
+                getPercentile(stage, 50),
+                getPercentile(stage, 90),
+                getPercentile(stage, 99)));
+    }
+
+    private void addEntry(Entry entry) {
+        for (int i = 0; i < TOTAL; i++) {
+            if (entry.stageDurations[i] > 0) {
+                addSample(i, entry.stageDurations[i]);
+            }
+        }
+
+        addSample(TOTAL, entry.totalDuration);
+
+        if (history.size() == MAX_HISTORY) {
+            history.removeFirst();
+        }
+
+        history.addLast(entry);
+    }
+
+    private void addSample(int window, long nanos) {
+        windows[window][windowPositions[window]] = nanos;
+        windowPositions[window] = (windowPositions[window] + 1) % WINDOW_SIZE;
+        windowCounts[window] = Math.min(windowCounts[window] + 1, WINDOW_SIZE);
+    }
+
+    //The history is small, so it is read on first use and replayed into the windows
+    private void loadHistory() {
+        if (isLoaded) {
+            return;
+        }
+
+        isLoaded = true;
+
+        try {
+            JSONArray historyArray = new JSONArray(new String(historyFile.readFully(), StandardCharsets.UTF_8));
+
+            for (int i = 0, l = historyArray.length(); i < l; i++) {
+                addEntry(Entry.fromJson(historyArray.getJSONObject(i)));
+            }
+        } catch (IOException | JSONException | IllegalArgumentException e) {
+            //A missing or unreadable history starts over
+        }
+    }
+
+    private String getHistoryJson() {
+        JSONArray historyArray = new JSONArray();
+
+        try {
+            for (Entry entry : history) {
+                historyArray.put(entry.toJson());
+            }
+        } catch (JSONException e) {
+            //
+        }
+
+        return historyArray.toString();
+    }
+
+    //Writes can finish out of order, so an older history never replaces a newer one
+    private void writeHistory(String historyJson, long version) {
+        synchronized (historyFile) {
+            if (version <= writtenVersion) {
+                return;
+            }
+
+            writtenVersion = version;
+
+            FileOutputStream outputStream = null;
+
+            try {
+                outputStream = historyFile.startWrite();
+                outputStream.write(historyJson.getBytes(StandardCharsets.UTF_8));
+                historyFile.finishWrite(outputStream);
+            } catch (IOException e) {
+                if (outputStream != null) {
+                    historyFile.failWrite(outputStream);
+                }
+            }
+        }
+    }
+
+    public record Entry(long timestamp,
+                        WeatherModel.WeatherStatus status,
+                        RefreshTrace.CacheTier cacheTier,
+                        long[] stageDurations,
+                        long totalDuration,
+                        long bytesReceived,
+                        int retries) {
+        private JSONObject toJson() throws JSONException {
+            JSONArray stageDurationArray = new JSONArray();
+
+            for (long stageDuration : stageDurations) {
+                stageDurationArray.put(stageDuration);
+            }
+
+            return new JSONObject()
+                    .put("timestamp", timestamp)
+                    .put("status", status.name())
+                    .put("cacheTier", cacheTier.name())
+                    .put("stageDurations", stageDurationArray)
+                    .put("totalDuration", totalDuration)
+                    .put("bytesReceived", bytesReceived)
+                    .put("retries", retries);
+        }
+
+        private static Entry fromJson(JSONObject jsonObject) throws JSONException {
+            JSONArray stageDurationArray = jsonObject.getJSONArray("stageDurations");
+            long[] stageDurations = new long[TOTAL];
+
+            for (int i = 0, l = Math.min(TOTAL, stageDurationArray.length()); i < l; i++) {
+                stageDurations[i] = stageDurationArray.getLong(i);
+            }
+
+            return new Entry(
+                    jsonObject.getLong("timestamp"),
+                    WeatherModel.WeatherStatus.valueOf(jsonObject.getString("status")),
+                    RefreshTrace.CacheTier.valueOf(jsonObject.getString("cacheTier")),
+                    stageDurations,
+                    jsonObject.getLong("totalDuration"),
+                    jsonObject.getLong("bytesReceived"),
+                    jsonObject.getInt("retries"));
+        }
+    }
+}
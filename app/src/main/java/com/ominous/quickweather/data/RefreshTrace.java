@@ -0,0 +1,171 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.ominous.quickweather.data;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings for a single weather refresh. The trace is bound to the refreshing thread, so the
+ * network layer and the providers can record into it without it being passed around.
+ * Stages that run in parallel, like the two OpenWeatherMap requests, add up their durations.
+ */
+public class RefreshTrace {
+    private final static ThreadLocal<RefreshTrace> currentTrace = new ThreadLocal<>();
+
+    public final long startTime; //timestamp, milliseconds
+    private final long startNanos;
+    private final RefreshMetrics refreshMetrics;
+    private final long[] stageDurations = new long[Stage.values().length]; //nanoseconds
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final AtomicInteger retries = new AtomicInteger();
+    private volatile CacheTier cacheTier = CacheTier.NONE;
+    private volatile long postedNanos = -1;
+    private boolean isFinished = false;
+
+    private RefreshTrace(RefreshMetrics refreshMetrics) {
+        this.refreshMetrics = refreshMetrics;
+        this.startTime = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+    }
+
+    public static RefreshTrace begin(RefreshMetrics refreshMetrics) {
+        RefreshTrace refreshTrace = new RefreshTrace(refreshMetrics);
+
+        currentTrace.set(refreshTrace);
+
+        return refreshTrace;
+    }
+
+    public static RefreshTrace current() {
+        return currentTrace.get();
+    }
+
+    //Carries the current trace over to a worker thread
+    public static Runnable wrap(Runnable runnable) {
+        RefreshTrace refreshTrace = currentTrace.get();
+
+        return () -> {
+            RefreshTrace previousTrace = currentTrace.get();
+            currentTrace.set(refreshTrace);
+
+            try {
+                runnable.run();
+            } finally {
+                currentTrace.set(previousTrace);
+            }
+        };
+    }
+
+    //Records the time since startNanos, which came from System.nanoTime()
+    public static void recordStage(Stage stage, long startNanos) {
+        RefreshTrace refreshTrace = currentTrace.get();
+
+        if (refreshTrace != null) {
+            refreshTrace.addStageDuration(stage, System.nanoTime() - startNanos);
+        }
+    }
+
+    public static void recordBytesReceived(long bytes) {
+        RefreshTrace refreshTrace = currentTrace.get();
+
+        if (refreshTrace != null && bytes > 0) {
+            refreshTrace.bytesReceived.addAndGet(bytes);
+        }
+    }
+
+    public static void recordRetry() {
+        RefreshTrace refreshTrace = currentTrace.get();
+
+        if (refreshTrace != null) {
+            refreshTrace.retries.incrementAndGet();
+        }
+    }
+
+    public static void recordCacheTier(CacheTier cacheTier) {
+        RefreshTrace refreshTrace = currentTrace.get();
+
+        if (refreshTrace != null) {
+            refreshTrace.cacheTier = cacheTier;
+        }
+    }
+
+    //A stage that completes after the refresh, like the background file cache write,
+    //still counts towards the stage percentiles
+    public synchronized void addStageDuration(Stage stage, long nanos) {
+        if (isFinished) {
+            refreshMetrics.recordStage(stage, nanos);
+        } else {
+            stageDurations[stage.ordinal()] += nanos;
+        }
+    }
+
+    public void onPosted() {
+        postedNanos = System.nanoTime();
+    }
+
+    public long getPostedNanos() {
+        return postedNanos;
+    }
+
+    //May be called from any thread, once the refresh has been delivered
+    public synchronized void finish(WeatherModel.WeatherStatus status) {
+        if (!isFinished) {
+            isFinished = true;
+
+            refreshMetrics.record(new RefreshMetrics.Entry(
+                    startTime,
+                    status,
+                    cacheTier,
+                    stageDurations.clone(),
+                    System.nanoTime() - startNanos,
+                    bytesReceived.get(),
+                    retries.get()));
+        }
+    }
+
+    //Removes the trace from the refreshing thread, which may be reused by the next task
+    public void detach() {
+        if (currentTrace.get() == this) {
+            currentTrace.remove();
+        }
+    }
+
+    public enum Stage {
+        LOCATION,
+        NETWORK,
+        PARSE,
+        TRANSFORM,
+        CACHE_WRITE,
+        DELIVERY
+    }
+
+    public enum CacheTier {
+        //The refresh failed before any data was found
+        NONE,
+        //Served from the in-memory WeatherCache
+        MEMORY,
+        //Served from the snapshot file cache
+        DISK,
+        //The provider confirmed the cached copy, or OkHttp served it from its cache
+        HTTP,
+        //Downloaded from the provider
+        NETWORK
+    }
+}
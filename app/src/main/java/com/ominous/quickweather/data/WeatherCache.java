@@ -0,0 +1,249 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.data;
+
+import android.content.ComponentCallbacks2;
+import android.util.Pair;
+
+import com.ominous.quickweather.pref.WeatherProvider;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory LRU cache of {@link CurrentWeather}, bounded by entry count and estimated heap size.
+ * Each kind of data has its own freshness per provider, so a caller that only needs the daily
+ * forecast can be served by an entry whose current conditions are already too old.
+ */
+public class WeatherCache {
+    private final static long MINUTE = 60 * 1000;
+
+    private final LinkedHashMap<Pair<Double, Double>, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private long currentBytes = 0;
+    private long hitCount = 0;
+    private long missCount = 0;
+    private long expiredCount = 0;
+    private long evictionCount = 0;
+
+    public WeatherCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    public synchronized CurrentWeather get(Pair<Double, Double> locationKey,
+                                           WeatherDataClass weatherDataClass,
+                                           long now) {
+        Entry entry = entries.get(locationKey);
+
+        if (entry == null) {
+            missCount++;
+            return null;
+        } else if (!entry.isFresh(weatherDataClass, now)) {
+            expiredCount++;
+            return null;
+        } else {
+            hitCount++;
+            return entry.currentWeather;
+        }
+    }
+
+    //Returns the entry regardless of its age
+    public synchronized CurrentWeather peek(Pair<Double, Double> locationKey) {
+        Entry entry = entries.get(locationKey);
+
+        return entry == null ? null : entry.currentWeather;
+    }
+
+    public synchronized void put(Pair<Double, Double> locationKey,
+                                 WeatherProvider weatherProvider,
+                                 CurrentWeather currentWeather) {
+        Entry entry = new Entry(weatherProvider, currentWeather, estimateSize(currentWeather));
+        Entry previousEntry = entries.put(locationKey, entry);
+
+        if (previousEntry != null) {
+            currentBytes -= previousEntry.size;
+        }
+
+        currentBytes += entry.size;
+
+        trimToSize(maxEntries, maxBytes);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) {
+            trimToSize(0, 0);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND ||
+                level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            trimToSize(1, maxBytes);
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            trimToSize(entries.size() / 2, currentBytes / 2);
+        }
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(entries.size(), currentBytes, hitCount, missCount, expiredCount, evictionCount);
+    }
+
+    private void trimToSize(int targetEntries, long targetBytes) {
+        Iterator<Map.Entry<Pair<Double, Double>, Entry>> iterator = entries.entrySet().iterator();
+
+        while (iterator.hasNext() && (entries.size() > targetEntries || currentBytes > targetBytes)) {
+            currentBytes -= iterator.next().getValue().size;
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    //Rough heap footprint, used only to keep the cache within its byte budget
+    static long estimateSize(CurrentWeather currentWeather) {
+        long size = 64;
+
+        size += estimateSize(currentWeather.current);
+        size += estimateSize(currentWeather.daily);
+        size += estimateSize(currentWeather.hourly);
+        size += estimateSize(currentWeather.trihourly);
+
+        if (currentWeather.alerts != null) {
+            for (CurrentWeather.Alert alert : currentWeather.alerts) {
+                size += 48 +
+                        estimateSize(alert.senderName) +
+                        estimateSize(alert.event) +
+                        estimateSize(alert.description);
+            }
+        }
+
+        return size;
+    }
+
+    private static long estimateSize(CurrentWeather.DataPoint dataPoint) {
+        return dataPoint == null ? 0 : 24 + estimateSize(dataPoint.series);
+    }
+
+    private static long estimateSize(CurrentWeather.Series series) {
+        long size = 0;
+
+        if (series != null) {
+            size += 160 +
+                    estimateSize(series.dt) +
+                    estimateSize(series.minTemp) +
+                    estimateSize(series.maxTemp) +
+                    estimateSize(series.temp) +
+                    estimateSize(series.feelsLike) +
+                    estimateSize(series.visibility) +
+                    estimateSize(series.humidity) +
+                    estimateSize(series.windSpeed) +
+                    estimateSize(series.windDeg) +
+                    estimateSize(series.pressure) +
+                    estimateSize(series.dewPoint) +
+                    estimateSize(series.uvi) +
+                    estimateSize(series.pop) +
+                    estimateSize(series.weatherCode) +
+                    estimateSize(series.weatherIconRes) +
+                    estimateSize(series.weatherDescription) +
+                    estimateSize(series.weatherLongDescription) +
+                    estimateSize(series.precipitationIntensity) +
+                    estimateSize(series.sunrise) +
+                    estimateSize(series.sunset) +
+                    estimateSize(series.moonrise) +
+                    estimateSize(series.moonset) +
+                    estimateSize(series.moonPhase) +
+                    (series.precipitationType == null ? 0 : 16 + series.precipitationType.length);
+
+            for (String string : series.strings) {
+                size += 4 + estimateSize(string);
+            }
+        }
+
+        return size;
+    }
+
+    private static long estimateSize(long[] column) {
+        return column == null ? 0 : 16 + 8L * column.length;
+    }
+
+    private static long estimateSize(double[] column) {
+        return column == null ? 0 : 16 + 8L * column.length;
+    }
+
+    private static long estimateSize(int[] column) {
+        return column == null ? 0 : 16 + 4L * column.length;
+    }
+
+    private static long estimateSize(String string) {
+        return string == null ? 0 : 40 + 2L * string.length();
+    }
+
+    public enum WeatherDataClass {
+        CURRENT,
+        HOURLY,
+        DAILY,
+        ALERTS
+    }
+
+    public record Stats(int entryCount,
+                        long byteCount,
+                        long hitCount,
+                        long missCount,
+                        long expiredCount,
+                        long evictionCount) {
+    }
+
+    private static class Entry {
+        private final WeatherProvider weatherProvider;
+        private final CurrentWeather currentWeather;
+        private final long size;
+
+        Entry(WeatherProvider weatherProvider, CurrentWeather currentWeather, long size) {
+            this.weatherProvider = weatherProvider;
+            this.currentWeather = currentWeather;
+            this.size = size;
+        }
+
+        boolean isFresh(WeatherDataClass weatherDataClass, long now) {
+            return WeatherCache.isFresh(weatherProvider, currentWeather, weatherDataClass, now);
+        }
+    }
+
+    public static boolean isFresh(WeatherProvider weatherProvider,
+                                  CurrentWeather currentWeather,
+                                  WeatherDataClass weatherDataClass,
+                                  long now) {
+        return now - currentWeather.timestamp < getTimeToLive(weatherProvider, weatherDataClass);
+    }
+
+    //OpenWeatherMap reports minutely precipitation, Open-Meteo updates its current conditions every 15 minutes
+    static long getTimeToLive(WeatherProvider weatherProvider, WeatherDataClass weatherDataClass) {
+        return switch (weatherDataClass) {
+            case CURRENT -> weatherProvider == WeatherProvider.OPENWEATHERMAP ? MINUTE : 5 * MINUTE;
+            case HOURLY -> weatherProvider == WeatherProvider.OPENWEATHERMAP ? 15 * MINUTE : 30 * MINUTE;
+            case DAILY -> 60 * MINUTE;
+            case ALERTS -> 5 * MINUTE;
+        };
+    }
+}
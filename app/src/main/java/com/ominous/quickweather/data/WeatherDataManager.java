@@ -21,6 +21,8 @@ package com.ominous.quickweather.data;
 
 import android.content.Context;
 import android.location.Location;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Pair;
 
 import androidx.annotation.NonNull;
@@ -28,13 +30,15 @@ import androidx.annotation.Nullable;
 import androidx.lifecycle.MutableLiveData;
 
 import com.ominous.quickweather.R;
-import com.ominous.quickweather.api.openmeteo.OpenMeteo;
-import com.ominous.quickweather.api.openweather.OpenWeatherMap;
+import com.ominous.quickweather.api.CircuitBreaker;
+import com.ominous.quickweather.api.IWeatherProvider;
+import com.ominous.quickweather.api.NotModifiedException;
+import com.ominous.quickweather.api.RetryPolicy;
+import com.ominous.quickweather.api.WeatherProviderRegistry;
 import com.ominous.quickweather.location.LocationDisabledException;
 import com.ominous.quickweather.location.LocationPermissionNotAvailableException;
 import com.ominous.quickweather.location.LocationUnavailableException;
 import com.ominous.quickweather.location.WeatherLocationManager;
-import com.ominous.quickweather.pref.OwmApiVersion;
 import com.ominous.quickweather.pref.WeatherPreferences;
 import com.ominous.quickweather.pref.WeatherProvider;
 import com.ominous.tylerutils.async.Promise;
@@ -42,41 +46,57 @@ import com.ominous.tylerutils.http.HttpException;
 
 import org.json.JSONException;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 public class WeatherDataManager {
-    private final Map<Pair<Double, Double>, CurrentWeather> currentWeatherCache = new HashMap<>();
-    private final int CACHE_EXPIRATION = 60 * 1000; //1 minute
-    private final int MAX_ATTEMPTS = 3;
-    private final int ATTEMPT_SLEEP_DURATION = 5000;
+    private final WeatherCache currentWeatherCache = new WeatherCache(MAX_CACHE_ENTRIES, MAX_CACHE_BYTES);
+    private final Map<FetchKey, FutureTask<CurrentWeather>> inFlightFetches = new ConcurrentHashMap<>();
+    private final Object[] locationLocks = new Object[LOCATION_LOCK_STRIPES];
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final RetryPolicy retryPolicy = new RetryPolicy(MAX_ATTEMPTS, RETRY_BASE_DELAY, RETRY_MAX_DELAY);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final static String SNAPSHOT_EXTENSION = ".snap";
+    private final static String LEGACY_EXTENSION = ".ser";
+    private final static int LOCATION_LOCK_STRIPES = 16;
+    private final static int MAX_CACHE_ENTRIES = 24;
+    private final static long MAX_CACHE_BYTES = 4 * 1024 * 1024;
+    private final static long MAX_STALE_AGE = 3 * 60 * 60 * 1000;
+    private final static int MAX_ATTEMPTS = 3;
+    private final static long RETRY_BASE_DELAY = 1000;
+    private final static long RETRY_MAX_DELAY = 8000;
+    private final static int BREAKER_FAILURE_THRESHOLD = 5;
+    private final static long BREAKER_OPEN_DURATION = 60 * 1000;
+    private final static long BREAKER_MAX_OPEN_DURATION = 30 * 60 * 1000;
 
     private WeatherProvider currentProvider = null;
+    private WeatherSnapshotCodec snapshotCodec = null;
 
-    private static WeatherDataManager instance;
+    private static volatile WeatherDataManager instance;
 
     private WeatherDataManager() {
-
+        for (int i = 0; i < LOCATION_LOCK_STRIPES; i++) {
+            locationLocks[i] = new Object();
+        }
     }
 
     public static WeatherDataManager getInstance() {
         if (instance == null) {
-            instance = new WeatherDataManager();
+            synchronized (WeatherDataManager.class) {
+                if (instance == null) {
+                    instance = new WeatherDataManager();
+                }
+            }
         }
 
         return instance;
@@ -92,164 +112,286 @@ public class WeatherDataManager {
                                                        @Nullable MutableLiveData<WeatherModel> weatherLiveData,
                                                        boolean isBackground,
                                                        Date date) {
+        return getWeatherAsync(context, weatherLiveData, isBackground, date, RefreshMode.BLOCKING);
+    }
+
+    public Promise<Void, WeatherModel> getWeatherAsync(Context context,
+                                                       @Nullable MutableLiveData<WeatherModel> weatherLiveData,
+                                                       boolean isBackground,
+                                                       Date date,
+                                                       RefreshMode refreshMode) {
         return Promise.create(a -> {
-            WeatherModel activeWeatherModel = weatherLiveData != null ? weatherLiveData.getValue() : null;
-            CurrentWeather activeWeather = activeWeatherModel != null ? activeWeatherModel.currentWeather : null;
-            WeatherDatabase.WeatherLocation activeLocation = activeWeatherModel != null ? activeWeatherModel.weatherLocation : null;
+            RefreshTrace refreshTrace = RefreshTrace.begin(RefreshMetrics.getInstance(context));
+
+            try {
+                WeatherModel weatherModel = getWeather(context, weatherLiveData, isBackground, date, refreshMode);
+
+                finishRefreshTrace(refreshTrace, weatherModel);
 
+                return weatherModel;
+            } finally {
+                refreshTrace.detach();
+            }
+        });
+    }
+
+    private WeatherModel getWeather(Context context,
+                                    @Nullable MutableLiveData<WeatherModel> weatherLiveData,
+                                    boolean isBackground,
+                                    Date date,
+                                    RefreshMode refreshMode) {
+        WeatherModel activeWeatherModel = weatherLiveData != null ? weatherLiveData.getValue() : null;
+        CurrentWeather activeWeather = activeWeatherModel != null ? activeWeatherModel.currentWeather : null;
+        WeatherDatabase.WeatherLocation activeLocation = activeWeatherModel != null ? activeWeatherModel.weatherLocation : null;
+
+        //In stale-while-revalidate mode the spinner is only shown if there is nothing to display
+        if (refreshMode == RefreshMode.BLOCKING) {
             updateLiveDataAndReturn(
                     weatherLiveData,
                     new WeatherModel(WeatherModel.WeatherStatus.UPDATING, null, null)
             );
+        }
 
-            try {
-                WeatherDatabase.WeatherLocation weatherLocation = WeatherDatabase.getInstance(context).locationDao().getSelected();
-                Pair<Double, Double> locationKey = getLocationPair(
-                        context,
-                        weatherLocation,
-                        weatherLiveData,
-                        isBackground
-                );
+        try {
+            WeatherDatabase.WeatherLocation weatherLocation = WeatherDatabase.getInstance(context).locationDao().getSelected();
+            long locationStartNanos = System.nanoTime();
+            Pair<Double, Double> locationKey = getLocationPair(
+                    context,
+                    weatherLocation,
+                    weatherLiveData,
+                    isBackground
+            );
 
-                if (locationKey == null) {
-                    return updateLiveDataAndReturn(
-                            weatherLiveData,
-                            new WeatherModel(
-                                    WeatherModel.WeatherStatus.ERROR_LOCATION_UNAVAILABLE,
-                                    context.getString(R.string.error_null_location),
-                                    new LocationUnavailableException()));
-                }
+            RefreshTrace.recordStage(RefreshTrace.Stage.LOCATION, locationStartNanos);
 
-                WeatherPreferences weatherPreferences = WeatherPreferences.getInstance(context);
-                WeatherProvider weatherProvider = weatherPreferences.getWeatherProvider();
+            if (locationKey == null) {
+                return updateLiveDataAndReturn(
+                        weatherLiveData,
+                        new WeatherModel(
+                                WeatherModel.WeatherStatus.ERROR_LOCATION_UNAVAILABLE,
+                                context.getString(R.string.error_null_location),
+                                new LocationUnavailableException()));
+            }
+
+            WeatherPreferences weatherPreferences = WeatherPreferences.getInstance(context);
+            WeatherProvider weatherProvider = weatherPreferences.getWeatherProvider();
 
+            synchronized (this) {
                 if (currentProvider == null) {
                     currentProvider = weatherProvider;
                 } else if (currentProvider != weatherProvider) {
                     currentProvider = weatherProvider;
                     clearCache(context);
                 }
+            }
 
-                if (currentWeatherCache.containsKey(locationKey)) {
-                    CurrentWeather previousWeather = currentWeatherCache.get(locationKey);
-
-                    if (previousWeather != null) {
-                        long now = Calendar.getInstance(previousWeather.timezone).getTimeInMillis();
-
-                        if (now - previousWeather.timestamp < CACHE_EXPIRATION) {
-                            return updateLiveDataAndReturn(weatherLiveData,
-                                    new WeatherModel(
-                                            previousWeather,
-                                            weatherLocation,
-                                            locationKey,
-                                            previousWeather.equals(activeWeather) && weatherLocation.equals(activeLocation) ?
-                                                    WeatherModel.WeatherStatus.NO_NEW_DATA :
-                                                    WeatherModel.WeatherStatus.SUCCESS,
-                                            date));
-                        }
-                    }
-                }
+            //The forecast screen only shows the daily and trihourly forecast
+            WeatherCache.WeatherDataClass requiredDataClass = date == null ?
+                    WeatherCache.WeatherDataClass.CURRENT :
+                    WeatherCache.WeatherDataClass.DAILY;
 
-                CurrentWeather cachedCurrentWeather = getCurrentWeatherFromFileCache(context, locationKey);
-
-                if (cachedCurrentWeather != null) {
-                    WeatherModel cachedWeatherModel = updateLiveDataAndReturn(
-                            weatherLiveData,
-                            new WeatherModel(
-                                    cachedCurrentWeather,
-                                    weatherLocation,
-                                    locationKey,
-                                    cachedCurrentWeather.equals(activeWeather) && weatherLocation.equals(activeLocation) ?
-                                            WeatherModel.WeatherStatus.NO_NEW_DATA :
-                                            WeatherModel.WeatherStatus.SUCCESS,
-                                    date));
-
-                    long now = Calendar.getInstance(cachedCurrentWeather.timezone).getTimeInMillis();
-
-                    if (now - cachedCurrentWeather.timestamp < CACHE_EXPIRATION) {
-                        return cachedWeatherModel;
-                    }
-                }
+            CurrentWeather previousWeather = currentWeatherCache.get(
+                    locationKey,
+                    requiredDataClass,
+                    System.currentTimeMillis());
+
+            if (previousWeather != null) {
+                RefreshTrace.recordCacheTier(RefreshTrace.CacheTier.MEMORY);
 
-                CurrentWeather currentWeather = getCurrentWeather(
-                        context,
-                        weatherProvider,
-                        weatherProvider == WeatherProvider.OPENMETEO ?
-                                weatherPreferences.getOpenMeteoAPIKey() :
-                                weatherPreferences.getOWMAPIKey(),
-                        weatherProvider == WeatherProvider.OPENMETEO ?
-                                weatherPreferences.getOpenMeteoInstance() :
-                                null,
-                        weatherProvider == WeatherProvider.OPENMETEO ?
-                                null :
-                                weatherPreferences.getOwmApiVersion(),
-                        locationKey);
-
-                if (currentWeather == null || currentWeather.current == null ||
-                        currentWeather.trihourly == null) {
-                    return updateLiveDataAndReturn(weatherLiveData,
-                            new WeatherModel(
-                                    WeatherModel.WeatherStatus.ERROR_OTHER,
-                                    context.getString(R.string.error_null_response),
-                                    new WeatherDataUnavailableException()));
-                } else {
-                    currentWeatherCache.put(locationKey, currentWeather);
-
-                    Promise.create(b -> {
-                        writeCurrentWeatherToFileCache(context, locationKey, currentWeather);
-                    });
-
-                    WeatherModel.WeatherStatus weatherStatus =
-                            currentWeather.equals(activeWeather) && weatherLocation.equals(activeLocation) ?
-                                    WeatherModel.WeatherStatus.NO_NEW_DATA :
-                                    WeatherModel.WeatherStatus.SUCCESS;
-
-                    return updateLiveDataAndReturn(weatherLiveData,
-                            new WeatherModel(
-                                    currentWeather,
-                                    weatherLocation,
-                                    locationKey,
-                                    weatherStatus,
-                                    date));
-                }
-            } catch (LocationPermissionNotAvailableException e) {
                 return updateLiveDataAndReturn(weatherLiveData,
                         new WeatherModel(
-                                WeatherModel.WeatherStatus.ERROR_LOCATION_ACCESS_DISALLOWED,
-                                context.getString(R.string.snackbar_background_location_notifications),
-                                e));
-            } catch (LocationDisabledException e) {
-                return updateLiveDataAndReturn(weatherLiveData,
+                                previousWeather,
+                                weatherLocation,
+                                locationKey,
+                                previousWeather.equals(activeWeather) && weatherLocation.equals(activeLocation) ?
+                                        WeatherModel.WeatherStatus.NO_NEW_DATA :
+                                        WeatherModel.WeatherStatus.SUCCESS,
+                                date));
+            }
+
+            CurrentWeather cachedCurrentWeather = currentWeatherCache.peek(locationKey);
+
+            if (cachedCurrentWeather != null) {
+                RefreshTrace.recordCacheTier(RefreshTrace.CacheTier.MEMORY);
+            } else if ((cachedCurrentWeather = getCurrentWeatherFromFileCache(context, locationKey)) != null) {
+                RefreshTrace.recordCacheTier(RefreshTrace.CacheTier.DISK);
+                currentWeatherCache.put(locationKey, weatherProvider, cachedCurrentWeather);
+            }
+
+            WeatherModel.Freshness cachedFreshness = null;
+
+            if (cachedCurrentWeather != null) {
+                long now = System.currentTimeMillis();
+
+                cachedFreshness = getFreshness(weatherProvider, cachedCurrentWeather, requiredDataClass, now);
+
+                WeatherModel cachedWeatherModel = updateLiveDataAndReturn(
+                        weatherLiveData,
                         new WeatherModel(
-                                WeatherModel.WeatherStatus.ERROR_LOCATION_DISABLED,
-                                context.getString(R.string.error_gps_disabled),
-                                e));
-            } catch (IOException e) {
+                                cachedCurrentWeather,
+                                weatherLocation,
+                                locationKey,
+                                cachedCurrentWeather.equals(activeWeather) && weatherLocation.equals(activeLocation) ?
+                                        WeatherModel.WeatherStatus.NO_NEW_DATA :
+                                        WeatherModel.WeatherStatus.SUCCESS,
+                                date,
+                                cachedFreshness,
+                                now - cachedCurrentWeather.timestamp,
+                                cachedFreshness != WeatherModel.Freshness.FRESH));
+
+                if (cachedFreshness == WeatherModel.Freshness.FRESH) {
+                    return cachedWeatherModel;
+                }
+            } else if (refreshMode == RefreshMode.STALE_WHILE_REVALIDATE) {
+                updateLiveDataAndReturn(
+                        weatherLiveData,
+                        new WeatherModel(WeatherModel.WeatherStatus.UPDATING, null, null)
+                );
+            }
+
+            CurrentWeather currentWeather;
+
+            //The HTTP layer downgrades this to HTTP if the response comes from its cache
+            RefreshTrace.recordCacheTier(RefreshTrace.CacheTier.NETWORK);
+
+            try {
+                currentWeather = fetchCurrentWeather(
+                        context,
+                        weatherPreferences,
+                        weatherProvider,
+                        locationKey,
+                        cachedCurrentWeather != null);
+            } catch (NotModifiedException e) {
+                //The provider has nothing newer than the cached copy, which is now confirmed current
+                RefreshTrace.recordCacheTier(RefreshTrace.CacheTier.HTTP);
+                CurrentWeather confirmedWeather = cachedCurrentWeather.withTimestamp(System.currentTimeMillis());
+
+                currentWeatherCache.put(locationKey, weatherProvider, confirmedWeather);
+
+                Promise.create(b -> {
+                    writeCurrentWeatherToFileCache(context, locationKey, confirmedWeather);
+                });
+
                 return updateLiveDataAndReturn(weatherLiveData,
                         new WeatherModel(
-                                WeatherModel.WeatherStatus.ERROR_OTHER,
-                                context.getString(R.string.error_connecting_api),
-                                e));
-            } catch (JSONException e) {
+                                confirmedWeather,
+                                weatherLocation,
+                                locationKey,
+                                WeatherModel.WeatherStatus.NO_NEW_DATA,
+                                date));
+            }
+
+            if (currentWeather == null) {
                 return updateLiveDataAndReturn(weatherLiveData,
                         new WeatherModel(
                                 WeatherModel.WeatherStatus.ERROR_OTHER,
-                                context.getString(R.string.error_unexpected_api_result),
-                                e));
-            } catch (InstantiationException | IllegalAccessException | NullPointerException e) {
+                                context.getString(R.string.error_null_response),
+                                new WeatherDataUnavailableException()));
+            } else if (refreshMode == RefreshMode.STALE_WHILE_REVALIDATE &&
+                    cachedFreshness == WeatherModel.Freshness.STALE &&
+                    hasSameContent(context, cachedCurrentWeather, currentWeather)) {
+                //The revalidated data matches what is already displayed, so only the freshness changes
                 return updateLiveDataAndReturn(weatherLiveData,
                         new WeatherModel(
-                                WeatherModel.WeatherStatus.ERROR_OTHER,
-                                context.getString(R.string.error_creating_result),
-                                e));
-            } catch (HttpException e) {
+                                currentWeather,
+                                weatherLocation,
+                                locationKey,
+                                WeatherModel.WeatherStatus.NO_NEW_DATA,
+                                date,
+                                WeatherModel.Freshness.FRESH,
+                                System.currentTimeMillis() - currentWeather.timestamp,
+                                false));
+            } else {
+                WeatherModel.WeatherStatus weatherStatus =
+                        currentWeather.equals(activeWeather) && weatherLocation.equals(activeLocation) ?
+                                WeatherModel.WeatherStatus.NO_NEW_DATA :
+                                WeatherModel.WeatherStatus.SUCCESS;
+
                 return updateLiveDataAndReturn(weatherLiveData,
                         new WeatherModel(
-                                WeatherModel.WeatherStatus.ERROR_OTHER,
-                                e.getMessage(),
-                                e));
+                                currentWeather,
+                                weatherLocation,
+                                locationKey,
+                                weatherStatus,
+                                date));
             }
-        });
+        } catch (LocationPermissionNotAvailableException e) {
+            return updateLiveDataAndReturn(weatherLiveData,
+                    new WeatherModel(
+                            WeatherModel.WeatherStatus.ERROR_LOCATION_ACCESS_DISALLOWED,
+                            context.getString(R.string.snackbar_background_location_notifications),
+                            e));
+        } catch (LocationDisabledException e) {
+            return updateLiveDataAndReturn(weatherLiveData,
+                    new WeatherModel(
+                            WeatherModel.WeatherStatus.ERROR_LOCATION_DISABLED,
+                            context.getString(R.string.error_gps_disabled),
+                            e));
+        } catch (ProviderUnavailableException e) {
+            return updateLiveDataAndReturn(weatherLiveData,
+                    new WeatherModel(
+                            WeatherModel.WeatherStatus.ERROR_PROVIDER_UNAVAILABLE,
+                            context.getString(R.string.error_provider_unavailable),
+                            e));
+        } catch (IOException e) {
+            return updateLiveDataAndReturn(weatherLiveData,
+                    new WeatherModel(
+                            WeatherModel.WeatherStatus.ERROR_OTHER,
+                            context.getString(R.string.error_connecting_api),
+                            e));
+        } catch (JSONException e) {
+            return updateLiveDataAndReturn(weatherLiveData,
+                    new WeatherModel(
+                            WeatherModel.WeatherStatus.ERROR_OTHER,
+                            context.getString(R.string.error_unexpected_api_result),
+                            e));
+        } catch (InstantiationException | IllegalAccessException | NullPointerException e) {
+            return updateLiveDataAndReturn(weatherLiveData,
+                    new WeatherModel(
+                            WeatherModel.WeatherStatus.ERROR_OTHER,
+                            context.getString(R.string.error_creating_result),
+                            e));
+        } catch (HttpException e) {
+            return updateLiveDataAndReturn(weatherLiveData,
+                    new WeatherModel(
+                            WeatherModel.WeatherStatus.ERROR_OTHER,
+                            e.getMessage(),
+                            e));
+        }
+    }
+
+    //Delivery is measured until the main thread has dispatched the last value posted to the LiveData
+    private void finishRefreshTrace(RefreshTrace refreshTrace, WeatherModel weatherModel) {
+        long postedNanos = refreshTrace.getPostedNanos();
+
+        if (postedNanos < 0) {
+            refreshTrace.finish(weatherModel.status);
+        } else {
+            mainHandler.post(() -> {
+                refreshTrace.addStageDuration(RefreshTrace.Stage.DELIVERY, System.nanoTime() - postedNanos);
+                refreshTrace.finish(weatherModel.status);
+            });
+        }
+    }
+
+    private WeatherModel.Freshness getFreshness(WeatherProvider weatherProvider,
+                                                CurrentWeather currentWeather,
+                                                WeatherCache.WeatherDataClass weatherDataClass,
+                                                long now) {
+        if (WeatherCache.isFresh(weatherProvider, currentWeather, weatherDataClass, now)) {
+            return WeatherModel.Freshness.FRESH;
+        } else if (now - currentWeather.timestamp < MAX_STALE_AGE) {
+            return WeatherModel.Freshness.STALE;
+        } else {
+            return WeatherModel.Freshness.EXPIRED;
+        }
+    }
+
+    //Compares the encoded snapshots, which do not include the fetch timestamp
+    private boolean hasSameContent(Context context, CurrentWeather oldWeather, CurrentWeather newWeather) {
+        WeatherSnapshotCodec codec = getSnapshotCodec(context);
+
+        return codec.getFingerprint(oldWeather) == codec.getFingerprint(newWeather);
     }
 
     private Pair<Double, Double> getLocationPair(Context context,
@@ -290,69 +432,263 @@ public class WeatherDataManager {
              WeatherModel weatherModel) {
         if (liveData != null) {
             liveData.postValue(weatherModel);
+
+            RefreshTrace refreshTrace = RefreshTrace.current();
+
+            if (refreshTrace != null) {
+                refreshTrace.onPosted();
+            }
         }
 
         return weatherModel;
     }
 
+    //Concurrent callers for the same provider and location share a single fetch
+    private CurrentWeather fetchCurrentWeather(Context context,
+                                               WeatherPreferences weatherPreferences,
+                                               WeatherProvider weatherProvider,
+                                               Pair<Double, Double> locationKey,
+                                               boolean ifModified) throws
+            JSONException, HttpException, IOException, InstantiationException, IllegalAccessException {
+        FetchKey fetchKey = new FetchKey(weatherProvider, locationKey);
+        FutureTask<CurrentWeather> newFetch = new FutureTask<>(() ->
+                fetchAndCacheCurrentWeather(context, weatherPreferences, weatherProvider, locationKey, ifModified));
+
+        FutureTask<CurrentWeather> existingFetch = inFlightFetches.putIfAbsent(fetchKey, newFetch);
+
+        if (existingFetch == null) {
+            try {
+                newFetch.run();
+            } finally {
+                inFlightFetches.remove(fetchKey, newFetch);
+            }
+        }
+
+        try {
+            return (existingFetch == null ? newFetch : existingFetch).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for weather", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if (cause instanceof NotModifiedException && !ifModified) {
+                //This caller has no copy of its own, but joined a conditional fetch that confirmed the cached one
+                CurrentWeather confirmedWeather = currentWeatherCache.peek(locationKey);
+
+                if (confirmedWeather == null) {
+                    confirmedWeather = getCurrentWeatherFromFileCache(context, locationKey);
+                }
+
+                return confirmedWeather != null ?
+                        confirmedWeather.withTimestamp(System.currentTimeMillis()) :
+                        fetchAndCacheCurrentWeather(context, weatherPreferences, weatherProvider, locationKey, false);
+            } else if (cause instanceof JSONException) {
+                throw (JSONException) cause;
+            } else if (cause instanceof HttpException) {
+                throw (HttpException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InstantiationException) {
+                throw (InstantiationException) cause;
+            } else if (cause instanceof IllegalAccessException) {
+                throw (IllegalAccessException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else {
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+
+    private CurrentWeather fetchAndCacheCurrentWeather(Context context,
+                                                       WeatherPreferences weatherPreferences,
+                                                       WeatherProvider weatherProvider,
+                                                       Pair<Double, Double> locationKey,
+                                                       boolean ifModified) throws
+            JSONException, HttpException, IOException, InstantiationException, IllegalAccessException {
+        CurrentWeather currentWeather = getCurrentWeather(
+                context,
+                weatherPreferences,
+                weatherProvider,
+                locationKey,
+                ifModified);
+
+        if (currentWeather == null || currentWeather.current == null ||
+                currentWeather.trihourly == null) {
+            return null;
+        }
+
+        currentWeatherCache.put(locationKey, weatherProvider, currentWeather);
+
+        RefreshTrace refreshTrace = RefreshTrace.current();
+
+        Promise.create(b -> {
+            long startNanos = System.nanoTime();
+
+            writeCurrentWeatherToFileCache(context, locationKey, currentWeather);
+
+            if (refreshTrace != null) {
+                refreshTrace.addStageDuration(RefreshTrace.Stage.CACHE_WRITE, System.nanoTime() - startNanos);
+            }
+        });
+
+        return currentWeather;
+    }
+
     private CurrentWeather getCurrentWeather(Context context,
+                                             WeatherPreferences weatherPreferences,
                                              @NonNull WeatherProvider weatherProvider,
-                                             String apiKey,
-                                             String weatherProviderInstance,
-                                             OwmApiVersion owmApiVersion,
-                                             Pair<Double, Double> locationKey) throws
+                                             Pair<Double, Double> locationKey,
+                                             boolean ifModified) throws
             JSONException, HttpException, IOException, InstantiationException, IllegalAccessException {
-        CurrentWeather newWeather = null;
+        IWeatherProvider provider = WeatherProviderRegistry.getInstance().get(weatherProvider);
+        CircuitBreaker circuitBreaker = getCircuitBreaker(weatherProvider, provider.getInstanceKey(weatherPreferences));
 
-        int attempt = 0;
-        HttpException lastException = null;
+        if (!circuitBreaker.allowRequest(System.currentTimeMillis())) {
+            throw new ProviderUnavailableException(circuitBreaker.getRetryAt());
+        }
 
-        do {
+        for (int attempt = 0; ; attempt++) {
             try {
-                if (weatherProvider == WeatherProvider.OPENWEATHERMAP) {
-                    if (owmApiVersion == OwmApiVersion.ONECALL_3_0) {
-                        newWeather = OpenWeatherMap.getInstance().getCurrentWeatherFromOneCall(
-                                context,
-                                locationKey.first,
-                                locationKey.second,
-                                apiKey);
-                    } else {
-                        throw new IllegalArgumentException("Illegal OwmApiVersion provided");
-                    }
-                } else if (weatherProvider == WeatherProvider.OPENMETEO) {
-                    newWeather = OpenMeteo.getInstance()
-                            .getCurrentWeather(context,
-                                    locationKey.first,
-                                    locationKey.second,
-                                    apiKey,
-                                    weatherProviderInstance);
-                } else {
-                    throw new IllegalArgumentException("Illegal WeatherProvider provided");
+                CurrentWeather newWeather = provider.getCurrentWeather(
+                        context,
+                        weatherPreferences,
+                        locationKey.first,
+                        locationKey.second,
+                        ifModified);
+
+                circuitBreaker.onSuccess();
+
+                return newWeather;
+            } catch (NotModifiedException e) {
+                circuitBreaker.onSuccess();
+
+                throw e;
+            } catch (HttpException | IOException e) {
+                long now = System.currentTimeMillis();
+                long retryDelay = onRequestFailed(circuitBreaker, e, attempt, now);
+
+                if (retryDelay < 0 || circuitBreaker.getState(now + retryDelay) == CircuitBreaker.State.OPEN) {
+                    throw e;
                 }
-            } catch (HttpException e) {
-                lastException = e;
+
+                RefreshTrace.recordRetry();
+
                 try {
-                    Thread.sleep(ATTEMPT_SLEEP_DURATION);
+                    Thread.sleep(retryDelay);
                 } catch (InterruptedException ie) {
-                    ie.printStackTrace();
+                    Thread.currentThread().interrupt();
+                    throw e;
                 }
-            } catch (IOException | JSONException | InstantiationException |
-                     IllegalAccessException e) {
+            } catch (JSONException | InstantiationException | IllegalAccessException e) {
                 throw e;
             } catch (Throwable e) {
                 throw new RuntimeException("Uncaught Exception occurred", e);
             }
-        } while (newWeather == null && attempt++ < MAX_ATTEMPTS);
+        }
+    }
+
+    //Updates the circuit breaker and returns the delay before retrying, or -1 to give up
+    private long onRequestFailed(CircuitBreaker circuitBreaker, Exception e, int attempt, long now) {
+        switch (retryPolicy.classify(e)) {
+            case RATE_LIMITED -> {
+                long retryAfter = RetryPolicy.getRetryAfter(e);
+
+                circuitBreaker.openUntil(now + (retryAfter >= 0 ? retryAfter : BREAKER_OPEN_DURATION));
+            }
+            case TRANSIENT -> circuitBreaker.onFailure(now);
+            case PERMANENT -> {
+                //the server answered, so it is up even though the request was bad
+                if (RetryPolicy.isServerReachable(e)) {
+                    circuitBreaker.onSuccess();
+                }
+            }
+        }
+
+        return retryPolicy.getRetryDelay(e, attempt);
+    }
+
+    public CircuitBreaker.State getCircuitBreakerState(Context context) {
+        WeatherPreferences weatherPreferences = WeatherPreferences.getInstance(context);
+        WeatherProvider weatherProvider = weatherPreferences.getWeatherProvider();
+
+        return getCircuitBreaker(weatherProvider,
+                WeatherProviderRegistry.getInstance().get(weatherProvider).getInstanceKey(weatherPreferences))
+                .getState(System.currentTimeMillis());
+    }
+
+    //One breaker per provider, and per instance for providers that can be self-hosted
+    private CircuitBreaker getCircuitBreaker(WeatherProvider weatherProvider, String instanceKey) {
+        String key = instanceKey == null || instanceKey.isEmpty() ?
+                weatherProvider.name() :
+                weatherProvider.name() + '@' + instanceKey;
+
+        return circuitBreakers.computeIfAbsent(key, k ->
+                new CircuitBreaker(BREAKER_FAILURE_THRESHOLD, BREAKER_OPEN_DURATION, BREAKER_MAX_OPEN_DURATION));
+    }
+
+    //Warms the caches for every saved location in one batched request. Providers that cannot batch
+    //are skipped, since each location would cost a call against the user's API key
+    public void prefetchSavedLocations(Context context) throws
+            JSONException, HttpException, IOException, InstantiationException, IllegalAccessException {
+        WeatherPreferences weatherPreferences = WeatherPreferences.getInstance(context);
+        WeatherProvider weatherProvider = weatherPreferences.getWeatherProvider();
+        IWeatherProvider provider = WeatherProviderRegistry.getInstance().get(weatherProvider);
+
+        if (!provider.supportsBatching()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Pair<Double, Double>> locationKeys = new ArrayList<>();
+
+        for (WeatherDatabase.WeatherLocation weatherLocation :
+                WeatherDatabase.getInstance(context).locationDao().getAllWeatherLocations()) {
+            Pair<Double, Double> locationKey = new Pair<>(weatherLocation.latitude, weatherLocation.longitude);
+
+            if (!weatherLocation.isCurrentLocation &&
+                    !locationKeys.contains(locationKey) &&
+                    currentWeatherCache.get(locationKey, WeatherCache.WeatherDataClass.CURRENT, now) == null) {
+                locationKeys.add(locationKey);
+            }
+        }
 
-        if (newWeather == null && lastException != null) {
-            throw lastException;
+        if (locationKeys.isEmpty()) {
+            return;
         }
 
-        return newWeather;
+        CircuitBreaker circuitBreaker = getCircuitBreaker(weatherProvider, provider.getInstanceKey(weatherPreferences));
+
+        if (!circuitBreaker.allowRequest(System.currentTimeMillis())) {
+            return;
+        }
+
+        List<CurrentWeather> currentWeathers;
+
+        try {
+            currentWeathers = provider.getCurrentWeather(context, weatherPreferences, locationKeys);
+
+            circuitBreaker.onSuccess();
+        } catch (HttpException | IOException e) {
+            //a prefetch is best-effort, so it only informs the breaker and is never retried
+            onRequestFailed(circuitBreaker, e, retryPolicy.maxAttempts, System.currentTimeMillis());
+            throw e;
+        }
+
+        for (int i = 0, l = locationKeys.size(); i < l; i++) {
+            CurrentWeather currentWeather = currentWeathers.get(i);
+
+            if (currentWeather != null && currentWeather.current != null && currentWeather.trihourly != null) {
+                currentWeatherCache.put(locationKeys.get(i), weatherProvider, currentWeather);
+                writeCurrentWeatherToFileCache(context, locationKeys.get(i), currentWeather);
+            }
+        }
     }
 
     public void clearCache(Context context) {
-        File[] files = context.getCacheDir().listFiles((dir, name) -> name.endsWith(".ser"));
+        File[] files = context.getCacheDir().listFiles((dir, name) ->
+                name.endsWith(SNAPSHOT_EXTENSION) || name.endsWith(LEGACY_EXTENSION));
 
         if (files != null) {
             for (File file : files) {
@@ -367,6 +703,14 @@ public class WeatherDataManager {
         currentWeatherCache.clear();
     }
 
+    public void trimMemory(int level) {
+        currentWeatherCache.trimMemory(level);
+    }
+
+    public WeatherCache.Stats getCacheStats() {
+        return currentWeatherCache.getStats();
+    }
+
     public void removeUnneededFileCache(Context context,
                                         List<WeatherDatabase.WeatherLocation> weatherLocations) {
         final List<String> possibleFileNames = new ArrayList<>(weatherLocations.size());
@@ -376,7 +720,11 @@ public class WeatherDataManager {
         }
 
         File[] files = context.getCacheDir()
-                .listFiles((dir, name) -> name.endsWith(".ser") && !possibleFileNames.contains(name));
+                .listFiles((dir, name) ->
+                        (name.endsWith(SNAPSHOT_EXTENSION) &&
+                                !possibleFileNames.contains(name.substring(0, name.length() - SNAPSHOT_EXTENSION.length()))) ||
+                                (name.endsWith(LEGACY_EXTENSION) &&
+                                        !possibleFileNames.contains(name.substring(0, name.length() - LEGACY_EXTENSION.length()))));
 
         if (files != null) {
             for (File file : files) {
@@ -391,39 +739,75 @@ public class WeatherDataManager {
 
     public CurrentWeather getCurrentWeatherFromFileCache(Context context,
                                                          Pair<Double, Double> locationKey) {
-        File file = new File(context.getCacheDir(), getFileName(locationKey));
-
-        if (file.exists()) {
-            try (
-                    FileInputStream fileInputStream = new FileInputStream(file);
-                    BufferedInputStream bufferedInputStream = new BufferedInputStream(fileInputStream);
-                    ObjectInputStream objectInputStream = new ObjectInputStream(bufferedInputStream)) {
-                return (CurrentWeather) objectInputStream.readObject();
-            } catch (IOException | ClassNotFoundException e) {
-                //either the file is corrupt, or the version is incorrect
+        File file = new File(context.getCacheDir(), getFileName(locationKey) + SNAPSHOT_EXTENSION);
+
+        synchronized (getLocationLock(locationKey)) {
+            if (file.exists()) {
                 try {
-                    file.delete();
-                } catch (SecurityException e2) {
-                    //
-                }
+                    return getSnapshotCodec(context).readFromFile(file);
+                } catch (IOException e) {
+                    //either the file is corrupt, or the version is incorrect
+                    deleteFile(file);
 
-                return null;
+                    return null;
+                }
+            } else {
+                return migrateLegacyFileCache(context, locationKey);
             }
-        } else {
-            return null;
         }
     }
 
     public void writeCurrentWeatherToFileCache(Context context,
                                                Pair<Double, Double> locationKey,
                                                CurrentWeather currentWeather) {
-        File file = new File(context.getCacheDir(), getFileName(locationKey));
-        try (
-                FileOutputStream fileOutputStream = new FileOutputStream(file);
-                BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(fileOutputStream);
-                ObjectOutputStream objectOutputStream = new ObjectOutputStream(bufferedOutputStream)) {
-            objectOutputStream.writeObject(currentWeather);
-        } catch (Exception e) {
+        File file = new File(context.getCacheDir(), getFileName(locationKey) + SNAPSHOT_EXTENSION);
+
+        synchronized (getLocationLock(locationKey)) {
+            try {
+                getSnapshotCodec(context).writeToFile(file, currentWeather);
+            } catch (Exception e) {
+                //
+            }
+        }
+    }
+
+    //Cache files written by older versions with Java serialization are converted once, then removed
+    private CurrentWeather migrateLegacyFileCache(Context context,
+                                                  Pair<Double, Double> locationKey) {
+        File legacyFile = new File(context.getCacheDir(), getFileName(locationKey) + LEGACY_EXTENSION);
+        CurrentWeather currentWeather = null;
+
+        if (legacyFile.exists()) {
+            try {
+                currentWeather = LegacyCurrentWeather.readFromFile(legacyFile);
+
+                writeCurrentWeatherToFileCache(context, locationKey, currentWeather);
+            } catch (IOException e) {
+                //either the file is corrupt, or it predates the last serialized layout
+            }
+
+            deleteFile(legacyFile);
+        }
+
+        return currentWeather;
+    }
+
+    private Object getLocationLock(Pair<Double, Double> locationKey) {
+        return locationLocks[(locationKey.hashCode() & 0x7FFFFFFF) % LOCATION_LOCK_STRIPES];
+    }
+
+    private synchronized WeatherSnapshotCodec getSnapshotCodec(Context context) {
+        if (snapshotCodec == null) {
+            snapshotCodec = WeatherSnapshotCodec.fromContext(context.getApplicationContext());
+        }
+
+        return snapshotCodec;
+    }
+
+    private void deleteFile(File file) {
+        try {
+            file.delete();
+        } catch (SecurityException e) {
             //
         }
     }
@@ -432,6 +816,16 @@ public class WeatherDataManager {
         return String.format(Locale.US,
                 "%1$.3f_%2$.3f",
                 locationKey.first,
-                locationKey.second).replaceAll("\\.", "_") + ".ser";
+                locationKey.second).replaceAll("\\.", "_");
+    }
+
+    public enum RefreshMode {
+        //Posts cached data, then waits for the network before completing
+        BLOCKING,
+        //Posts cached data immediately and only posts again if the revalidated data differs
+        STALE_WHILE_REVALIDATE
+    }
+
+    private record FetchKey(WeatherProvider weatherProvider, Pair<Double, Double> locationKey) {
     }
 }
@@ -49,8 +49,8 @@ import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 
 @Database(
-        entities = {WeatherDatabase.WeatherNotification.class, WeatherDatabase.WeatherLocation.class, WeatherDatabase.WeatherCard.class},
-        version = 3,
+        entities = {WeatherDatabase.WeatherNotification.class, WeatherDatabase.WeatherLocation.class, WeatherDatabase.WeatherCard.class, WeatherDatabase.CelestialEvents.class},
+        version = 4,
         exportSchema = false)
 public abstract class WeatherDatabase extends RoomDatabase {
     final static Migration MIGRATION_1_2 = new Migration(1, 2) {
@@ -76,6 +76,12 @@ public abstract class WeatherDatabase extends RoomDatabase {
                     "(8,1,'FORECAST_DETAIL',3,1)");
         }
     };
+    final static Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `CelestialEvents` (`latitudeKey` INTEGER NOT NULL, `longitudeKey` INTEGER NOT NULL, `date` INTEGER NOT NULL, `moonrise` INTEGER NOT NULL, `moonset` INTEGER NOT NULL, `moonPhase` REAL NOT NULL, `isSunAlwaysUp` INTEGER NOT NULL, `isSunAlwaysDown` INTEGER NOT NULL, PRIMARY KEY(`latitudeKey`, `longitudeKey`, `date`))");
+        }
+    };
     private static WeatherDatabase instance = null;
 
     public static WeatherDatabase getInstance(Context context) {
@@ -83,7 +89,7 @@ public abstract class WeatherDatabase extends RoomDatabase {
             instance = Room
                     .databaseBuilder(context.getApplicationContext(), WeatherDatabase.class, "QuickWeather")
                     //.allowMainThreadQueries() //not recommended
-                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3)
+                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)
                     .build();
 
             instance.initializeWeatherCards();
@@ -177,6 +183,8 @@ public abstract class WeatherDatabase extends RoomDatabase {
 
     abstract public WeatherCardDao cardDao();
 
+    abstract public CelestialEventsDao celestialEventsDao();
+
     @Dao
     public interface WeatherLocationDao {
         @Insert(onConflict = OnConflictStrategy.IGNORE)
@@ -243,6 +251,18 @@ public abstract class WeatherDatabase extends RoomDatabase {
         void disableRadar();
     }
 
+    @Dao
+    public interface CelestialEventsDao {
+        @Insert(onConflict = OnConflictStrategy.REPLACE)
+        void insert(List<CelestialEvents> celestialEvents);
+
+        @Query("SELECT * FROM CelestialEvents WHERE latitudeKey = :latitudeKey AND longitudeKey = :longitudeKey")
+        List<CelestialEvents> getCelestialEvents(int latitudeKey, int longitudeKey);
+
+        @Query("DELETE FROM CelestialEvents WHERE date < :date")
+        void deleteBefore(int date);
+    }
+
     @Entity
     public static class WeatherLocation implements Parcelable {
         public final static Parcelable.Creator<WeatherLocation> CREATOR = new Parcelable.Creator<>() {
@@ -357,4 +377,27 @@ public abstract class WeatherDatabase extends RoomDatabase {
             this.enabled = enabled;
         }
     }
+
+    @Entity(primaryKeys = {"latitudeKey", "longitudeKey", "date"})
+    public static class CelestialEvents {
+        public final int latitudeKey; //degrees * CelestialCache.QUANTIZATION
+        public final int longitudeKey; //degrees * CelestialCache.QUANTIZATION
+        public final int date; //local date, yyyyMMdd
+        public final long moonrise; //timestamp, milliseconds, 0 if the moon does not rise
+        public final long moonset; //timestamp, milliseconds, 0 if the moon does not set
+        public final double moonPhase; //0,1: "new moon", 0.5: "full moon"
+        public final boolean isSunAlwaysUp;
+        public final boolean isSunAlwaysDown;
+
+        public CelestialEvents(int latitudeKey, int longitudeKey, int date, long moonrise, long moonset, double moonPhase, boolean isSunAlwaysUp, boolean isSunAlwaysDown) {
+            this.latitudeKey = latitudeKey;
+            this.longitudeKey = longitudeKey;
+            this.date = date;
+            this.moonrise = moonrise;
+            this.moonset = moonset;
+            this.moonPhase = moonPhase;
+            this.isSunAlwaysUp = isSunAlwaysUp;
+            this.isSunAlwaysDown = isSunAlwaysDown;
+        }
+    }
 }
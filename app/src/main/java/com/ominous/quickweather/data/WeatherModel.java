@@ -31,6 +31,9 @@ public class WeatherModel {
     public final Exception error;
     public final Date date;
     public final Pair<Double, Double> locationPair;
+    public final Freshness freshness;
+    public final long age; //milliseconds
+    public final boolean isRefreshing;
 
     public WeatherModel(WeatherStatus status, String errorMessage, Exception error) {
         this.weatherLocation = null;
@@ -40,6 +43,9 @@ public class WeatherModel {
         this.error = error;
         this.locationPair = null;
         this.date = null;
+        this.freshness = null;
+        this.age = 0;
+        this.isRefreshing = false;
     }
 
     public WeatherModel(CurrentWeather currentWeather,
@@ -47,6 +53,17 @@ public class WeatherModel {
                         Pair<Double, Double> locationPair,
                         WeatherStatus status,
                         Date date) {
+        this(currentWeather, weatherLocation, locationPair, status, date, Freshness.FRESH, 0, false);
+    }
+
+    public WeatherModel(CurrentWeather currentWeather,
+                        WeatherDatabase.WeatherLocation weatherLocation,
+                        Pair<Double, Double> locationPair,
+                        WeatherStatus status,
+                        Date date,
+                        Freshness freshness,
+                        long age,
+                        boolean isRefreshing) {
         this.weatherLocation = weatherLocation;
         this.currentWeather = currentWeather;
         this.status = status;
@@ -54,6 +71,9 @@ public class WeatherModel {
         this.error = null;
         this.locationPair = locationPair;
         this.date = date;
+        this.freshness = freshness;
+        this.age = age;
+        this.isRefreshing = isRefreshing;
     }
 
     public enum WeatherStatus {
@@ -64,6 +84,16 @@ public class WeatherModel {
         ERROR_OTHER,
         ERROR_LOCATION_UNAVAILABLE,
         ERROR_LOCATION_ACCESS_DISALLOWED,
-        ERROR_LOCATION_DISABLED
+        ERROR_LOCATION_DISABLED,
+        ERROR_PROVIDER_UNAVAILABLE
+    }
+
+    public enum Freshness {
+        //Within the time-to-live for the data being shown
+        FRESH,
+        //Past its time-to-live, but still good enough to show while refreshing
+        STALE,
+        //Too old to be shown without a refresh indicator
+        EXPIRED
     }
 }
\ No newline at end of file
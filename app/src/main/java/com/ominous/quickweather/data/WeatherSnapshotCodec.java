@@ -0,0 +1,649 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.data;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.TimeZone;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot format for {@link CurrentWeather}, replacing Java serialization for the file cache.
+ * <p>
+ * Layout: a fixed header (magic, major version, header length, body length, body CRC), followed by
+ * a sequence of sections, each prefixed with an id and a byte length. Readers skip header bytes and
+ * sections they do not understand, so fields can be appended without bumping the major version.
+ * Each series section is stored as columns of fixed-width primitives; strings (descriptions,
+ * alert text, icon resource names, the timezone id) live once in a shared string table.
+ */
+public class WeatherSnapshotCodec {
+    private final static int MAGIC = 0x51575353; // "QWSS"
+    private final static short FORMAT_VERSION = 1;
+    private final static int HEADER_LENGTH = 4 + 2 + 2 + 4 + 4 + 8 + 8 + 8;
+
+    private final static byte SECTION_STRINGS = 1;
+    private final static byte SECTION_CURRENT = 2;
+    private final static byte SECTION_DAILY = 3;
+    private final static byte SECTION_HOURLY = 4;
+    private final static byte SECTION_TRIHOURLY = 5;
+    private final static byte SECTION_ALERTS = 6;
+    private final static byte SECTION_TIMEZONE = 7;
+
+    private final static byte COLUMN_DT = 1;
+    private final static byte COLUMN_MIN_TEMP = 2;
+    private final static byte COLUMN_MAX_TEMP = 3;
+    private final static byte COLUMN_TEMP = 4;
+    private final static byte COLUMN_FEELS_LIKE = 5;
+    private final static byte COLUMN_VISIBILITY = 6;
+    private final static byte COLUMN_HUMIDITY = 7;
+    private final static byte COLUMN_WIND_SPEED = 8;
+    private final static byte COLUMN_WIND_DEG = 9;
+    private final static byte COLUMN_PRESSURE = 10;
+    private final static byte COLUMN_DEW_POINT = 11;
+    private final static byte COLUMN_UVI = 12;
+    private final static byte COLUMN_POP = 13;
+    private final static byte COLUMN_WEATHER_CODE = 14;
+    private final static byte COLUMN_WEATHER_ICON = 15;
+    private final static byte COLUMN_DESCRIPTION = 16;
+    private final static byte COLUMN_LONG_DESCRIPTION = 17;
+    private final static byte COLUMN_PRECIPITATION_INTENSITY = 18;
+    private final static byte COLUMN_PRECIPITATION_TYPE = 19;
+    private final static byte COLUMN_SUNRISE = 20;
+    private final static byte COLUMN_SUNSET = 21;
+    private final static byte COLUMN_MOONRISE = 22;
+    private final static byte COLUMN_MOONSET = 23;
+    private final static byte COLUMN_MOON_PHASE = 24;
+
+    private final static byte[] CURRENT_COLUMNS = {
+            COLUMN_DT, COLUMN_TEMP, COLUMN_FEELS_LIKE, COLUMN_VISIBILITY, COLUMN_HUMIDITY,
+            COLUMN_WIND_SPEED, COLUMN_WIND_DEG, COLUMN_PRESSURE, COLUMN_DEW_POINT, COLUMN_UVI,
+            COLUMN_WEATHER_CODE, COLUMN_WEATHER_ICON, COLUMN_DESCRIPTION, COLUMN_LONG_DESCRIPTION,
+            COLUMN_PRECIPITATION_INTENSITY, COLUMN_PRECIPITATION_TYPE};
+    private final static byte[] DAILY_COLUMNS = {
+            COLUMN_DT, COLUMN_MAX_TEMP, COLUMN_MIN_TEMP, COLUMN_HUMIDITY, COLUMN_WIND_SPEED,
+            COLUMN_WIND_DEG, COLUMN_PRESSURE, COLUMN_DEW_POINT, COLUMN_UVI, COLUMN_POP,
+            COLUMN_WEATHER_CODE, COLUMN_WEATHER_ICON, COLUMN_DESCRIPTION, COLUMN_LONG_DESCRIPTION,
+            COLUMN_PRECIPITATION_INTENSITY, COLUMN_PRECIPITATION_TYPE, COLUMN_SUNRISE, COLUMN_SUNSET,
+            COLUMN_MOONRISE, COLUMN_MOONSET, COLUMN_MOON_PHASE};
+    private final static byte[] HOURLY_COLUMNS = {
+            COLUMN_DT, COLUMN_TEMP, COLUMN_WEATHER_CODE, COLUMN_HUMIDITY, COLUMN_WIND_SPEED,
+            COLUMN_WIND_DEG, COLUMN_UVI, COLUMN_POP, COLUMN_PRECIPITATION_INTENSITY,
+            COLUMN_PRECIPITATION_TYPE};
+    private final static byte[] TRIHOURLY_COLUMNS = {
+            COLUMN_DT, COLUMN_TEMP, COLUMN_WEATHER_ICON, COLUMN_DESCRIPTION, COLUMN_POP,
+            COLUMN_PRECIPITATION_INTENSITY, COLUMN_PRECIPITATION_TYPE};
+
+    private final static PrecipType[] PRECIP_TYPES = PrecipType.values();
+
+    private final ResourceNameMapper resourceNameMapper;
+
+    public WeatherSnapshotCodec(ResourceNameMapper resourceNameMapper) {
+        this.resourceNameMapper = resourceNameMapper;
+    }
+
+    public static WeatherSnapshotCodec fromContext(Context context) {
+        return new WeatherSnapshotCodec(new DrawableResourceNameMapper(context));
+    }
+
+    public CurrentWeather readFromFile(File file) throws IOException {
+        try (FileInputStream fileInputStream = new FileInputStream(file);
+             FileChannel channel = fileInputStream.getChannel()) {
+            long size = channel.size();
+
+            if (size < HEADER_LENGTH || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid snapshot size");
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Unexpected end of snapshot");
+                }
+            }
+
+            buffer.flip();
+
+            return decode(buffer);
+        }
+    }
+
+    public void writeToFile(File file, CurrentWeather currentWeather) throws IOException {
+        ByteBuffer buffer = encode(currentWeather);
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try (FileOutputStream fileOutputStream = new FileOutputStream(tempFile);
+             FileChannel channel = fileOutputStream.getChannel()) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        if (!tempFile.renameTo(file)) {
+            //noinspection ResultOfMethodCallIgnored
+            tempFile.delete();
+            throw new IOException("Could not replace snapshot");
+        }
+    }
+
+    public ByteBuffer encode(CurrentWeather currentWeather) {
+        StringTable stringTable = new StringTable();
+
+        //the string table comes first in the file, but it is only complete once the other
+        //sections are encoded
+        ByteBuffer sections = ByteBuffer.allocate(getSectionsSize(currentWeather));
+
+        writeSection(sections, SECTION_TIMEZONE,
+                b -> b.putInt(stringTable.indexOf(currentWeather.timezone == null ? null : currentWeather.timezone.getID())));
+
+        if (currentWeather.current != null) {
+            writeSection(sections, SECTION_CURRENT,
+                    b -> writeSeries(b, currentWeather.current.series, CURRENT_COLUMNS, stringTable));
+        }
+
+        if (currentWeather.daily != null) {
+            writeSection(sections, SECTION_DAILY,
+                    b -> writeSeries(b, currentWeather.daily, DAILY_COLUMNS, stringTable));
+        }
+
+        if (currentWeather.hourly != null) {
+            writeSection(sections, SECTION_HOURLY,
+                    b -> writeSeries(b, currentWeather.hourly, HOURLY_COLUMNS, stringTable));
+        }
+
+        if (currentWeather.trihourly != null) {
+            writeSection(sections, SECTION_TRIHOURLY,
+                    b -> writeSeries(b, currentWeather.trihourly, TRIHOURLY_COLUMNS, stringTable));
+        }
+
+        if (currentWeather.alerts != null) {
+            writeSection(sections, SECTION_ALERTS,
+                    b -> writeAlerts(b, currentWeather.alerts, stringTable));
+        }
+
+        sections.flip();
+
+        byte[][] encodedStrings = stringTable.encode();
+        int stringTableLength = 4;
+
+        for (byte[] encodedString : encodedStrings) {
+            stringTableLength += 4 + encodedString.length;
+        }
+
+        ByteBuffer result = ByteBuffer.allocate(HEADER_LENGTH + 5 + stringTableLength + sections.remaining());
+        result.position(HEADER_LENGTH);
+
+        result.put(SECTION_STRINGS);
+        result.putInt(stringTableLength);
+        result.putInt(encodedStrings.length);
+
+        for (byte[] encodedString : encodedStrings) {
+            result.putInt(encodedString.length);
+            result.put(encodedString);
+        }
+
+        result.put(sections);
+
+        int bodyLength = result.position() - HEADER_LENGTH;
+
+        CRC32 crc32 = new CRC32();
+        crc32.update(result.array(), HEADER_LENGTH, bodyLength);
+
+        result.putInt(0, MAGIC);
+        result.putShort(4, FORMAT_VERSION);
+        result.putShort(6, (short) HEADER_LENGTH);
+        result.putInt(8, bodyLength);
+        result.putInt(12, (int) crc32.getValue());
+        result.putLong(16, currentWeather.timestamp);
+        result.putDouble(24, currentWeather.latitude);
+        result.putDouble(32, currentWeather.longitude);
+
+        result.position(0);
+
+        return result;
+    }
+
+    //CRC of the encoded body, which excludes the fetch timestamp and location
+    public long getFingerprint(CurrentWeather currentWeather) {
+        return encode(currentWeather).getInt(12) & 0xFFFFFFFFL;
+    }
+
+    public CurrentWeather decode(ByteBuffer buffer) throws IOException {
+        try {
+            int start = buffer.position();
+
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a weather snapshot");
+            }
+
+            short formatVersion = buffer.getShort();
+
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + formatVersion);
+            }
+
+            int headerLength = buffer.getShort() & 0xFFFF;
+            int bodyLength = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+
+            if (headerLength < HEADER_LENGTH || start + headerLength + bodyLength > buffer.limit()) {
+                throw new IOException("Truncated snapshot");
+            }
+
+            CurrentWeather currentWeather = new CurrentWeather();
+            currentWeather.timestamp = buffer.getLong();
+            currentWeather.latitude = buffer.getDouble();
+            currentWeather.longitude = buffer.getDouble();
+
+            ByteBuffer body = buffer.duplicate();
+            body.position(start + headerLength);
+            body.limit(start + headerLength + bodyLength);
+
+            CRC32 crc32 = new CRC32();
+
+            if (body.hasArray()) {
+                crc32.update(body.array(), body.arrayOffset() + body.position(), bodyLength);
+            } else {
+                byte[] bodyBytes = new byte[bodyLength];
+                body.duplicate().get(bodyBytes);
+                crc32.update(bodyBytes, 0, bodyLength);
+            }
+
+            if ((int) crc32.getValue() != expectedCrc) {
+                throw new IOException("Corrupt snapshot");
+            }
+
+            String[] strings = new String[0];
+
+            while (body.hasRemaining()) {
+                byte sectionId = body.get();
+                int sectionLength = body.getInt();
+                int sectionEnd = body.position() + sectionLength;
+
+                switch (sectionId) {
+                    case SECTION_STRINGS -> strings = readStrings(body);
+                    case SECTION_TIMEZONE -> {
+                        String timezoneId = getString(strings, body.getInt());
+                        currentWeather.timezone = timezoneId == null ? null : TimeZone.getTimeZone(timezoneId);
+                    }
+                    case SECTION_CURRENT -> {
+                        CurrentWeather.Series current = readSeries(body, sectionEnd, strings, CurrentWeather.SeriesType.CURRENT);
+                        currentWeather.current = current.size() > 0 ? current.get(0) : null;
+                    }
+                    case SECTION_DAILY ->
+                            currentWeather.daily = readSeries(body, sectionEnd, strings, CurrentWeather.SeriesType.DAILY);
+                    case SECTION_HOURLY ->
+                            currentWeather.hourly = readSeries(body, sectionEnd, strings, CurrentWeather.SeriesType.HOURLY);
+                    case SECTION_TRIHOURLY ->
+                            currentWeather.trihourly = readSeries(body, sectionEnd, strings, CurrentWeather.SeriesType.TRIHOURLY);
+                    case SECTION_ALERTS -> currentWeather.alerts = readAlerts(body, strings);
+                    default -> {
+                        //section from a newer writer, skip it
+                    }
+                }
+
+                body.position(sectionEnd);
+            }
+
+            return currentWeather;
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Malformed snapshot", e);
+        }
+    }
+
+    private void writeSection(ByteBuffer buffer, byte sectionId, SectionWriter sectionWriter) {
+        buffer.put(sectionId);
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+
+        sectionWriter.write(buffer);
+
+        buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+    }
+
+    private void writeSeries(ByteBuffer buffer,
+                             CurrentWeather.Series series,
+                             byte[] columns,
+                             StringTable stringTable) {
+        int count = series.size();
+
+        buffer.putInt(count);
+        buffer.put((byte) columns.length);
+
+        for (byte column : columns) {
+            buffer.put(column);
+            int lengthPosition = buffer.position();
+            buffer.putInt(0);
+
+            for (int i = 0; i < count; i++) {
+                switch (column) {
+                    case COLUMN_DT -> buffer.putLong(series.getDt(i));
+                    case COLUMN_MIN_TEMP -> buffer.putDouble(series.getMinTemp(i));
+                    case COLUMN_MAX_TEMP -> buffer.putDouble(series.getMaxTemp(i));
+                    case COLUMN_TEMP -> buffer.putDouble(series.getTemp(i));
+                    case COLUMN_FEELS_LIKE -> buffer.putDouble(series.getFeelsLike(i));
+                    case COLUMN_VISIBILITY -> buffer.putInt(series.getVisibility(i));
+                    case COLUMN_HUMIDITY -> buffer.putInt(series.getHumidity(i));
+                    case COLUMN_WIND_SPEED -> buffer.putDouble(series.getWindSpeed(i));
+                    case COLUMN_WIND_DEG -> buffer.putInt(series.getWindDeg(i));
+                    case COLUMN_PRESSURE -> buffer.putInt(series.getPressure(i));
+                    case COLUMN_DEW_POINT -> buffer.putDouble(series.getDewPoint(i));
+                    case COLUMN_UVI -> buffer.putDouble(series.getUvi(i));
+                    case COLUMN_POP -> buffer.putInt(series.getPop(i));
+                    case COLUMN_WEATHER_CODE -> buffer.putInt(series.getWeatherCode(i));
+                    case COLUMN_WEATHER_ICON ->
+                            buffer.putInt(stringTable.indexOf(resourceNameMapper.getName(series.getWeatherIconRes(i))));
+                    case COLUMN_DESCRIPTION ->
+                            buffer.putInt(stringTable.indexOf(series.getWeatherDescription(i)));
+                    case COLUMN_LONG_DESCRIPTION ->
+                            buffer.putInt(stringTable.indexOf(series.getWeatherLongDescription(i)));
+                    case COLUMN_PRECIPITATION_INTENSITY ->
+                            buffer.putDouble(series.getPrecipitationIntensity(i));
+                    case COLUMN_PRECIPITATION_TYPE -> buffer.put(series.precipitationType[i]);
+                    case COLUMN_SUNRISE -> buffer.putLong(series.getSunrise(i));
+                    case COLUMN_SUNSET -> buffer.putLong(series.getSunset(i));
+                    case COLUMN_MOONRISE -> buffer.putLong(series.getMoonrise(i));
+                    case COLUMN_MOONSET -> buffer.putLong(series.getMoonset(i));
+                    case COLUMN_MOON_PHASE -> buffer.putDouble(series.getMoonPhase(i));
+                }
+            }
+
+            buffer.putInt(lengthPosition, buffer.position() - lengthPosition - 4);
+        }
+    }
+
+    private CurrentWeather.Series readSeries(ByteBuffer buffer,
+                                             int sectionEnd,
+                                             String[] strings,
+                                             CurrentWeather.SeriesType type) {
+        int count = buffer.getInt();
+        int columnCount = buffer.get() & 0xFF;
+
+        CurrentWeather.Series series = new CurrentWeather.Series(type, count);
+        series.size = count;
+
+        for (int c = 0; c < columnCount && buffer.position() < sectionEnd; c++) {
+            byte column = buffer.get();
+            int columnLength = buffer.getInt();
+            int columnEnd = buffer.position() + columnLength;
+
+            //columns from a newer writer, or not used by this series type, are skipped
+            for (int i = 0; hasColumn(series, column) && i < count; i++) {
+                switch (column) {
+                    case COLUMN_DT -> series.dt[i] = buffer.getLong();
+                    case COLUMN_MIN_TEMP -> series.minTemp[i] = buffer.getDouble();
+                    case COLUMN_MAX_TEMP -> series.maxTemp[i] = buffer.getDouble();
+                    case COLUMN_TEMP -> series.temp[i] = buffer.getDouble();
+                    case COLUMN_FEELS_LIKE -> series.feelsLike[i] = buffer.getDouble();
+                    case COLUMN_VISIBILITY -> series.visibility[i] = buffer.getInt();
+                    case COLUMN_HUMIDITY -> series.humidity[i] = buffer.getInt();
+                    case COLUMN_WIND_SPEED -> series.windSpeed[i] = buffer.getDouble();
+                    case COLUMN_WIND_DEG -> series.windDeg[i] = buffer.getInt();
+                    case COLUMN_PRESSURE -> series.pressure[i] = buffer.getInt();
+                    case COLUMN_DEW_POINT -> series.dewPoint[i] = buffer.getDouble();
+                    case COLUMN_UVI -> series.uvi[i] = buffer.getDouble();
+                    case COLUMN_POP -> series.pop[i] = buffer.getInt();
+                    case COLUMN_WEATHER_CODE -> series.weatherCode[i] = buffer.getInt();
+                    case COLUMN_WEATHER_ICON ->
+                            series.weatherIconRes[i] = resourceNameMapper.getResId(getString(strings, buffer.getInt()));
+                    case COLUMN_DESCRIPTION ->
+                            series.weatherDescription[i] = series.intern(getString(strings, buffer.getInt()));
+                    case COLUMN_LONG_DESCRIPTION ->
+                            series.weatherLongDescription[i] = series.intern(getString(strings, buffer.getInt()));
+                    case COLUMN_PRECIPITATION_INTENSITY -> series.precipitationIntensity[i] = buffer.getDouble();
+                    case COLUMN_PRECIPITATION_TYPE -> {
+                        byte ordinal = buffer.get();
+                        series.precipitationType[i] = ordinal >= 0 && ordinal < PRECIP_TYPES.length ? ordinal : -1;
+                    }
+                    case COLUMN_SUNRISE -> series.sunrise[i] = buffer.getLong();
+                    case COLUMN_SUNSET -> series.sunset[i] = buffer.getLong();
+                    case COLUMN_MOONRISE -> series.moonrise[i] = buffer.getLong();
+                    case COLUMN_MOONSET -> series.moonset[i] = buffer.getLong();
+                    case COLUMN_MOON_PHASE -> series.moonPhase[i] = buffer.getDouble();
+                }
+            }
+
+            buffer.position(columnEnd);
+        }
+
+        return series;
+    }
+
+    private static boolean hasColumn(CurrentWeather.Series series, byte column) {
+        return switch (column) {
+            case COLUMN_DT -> series.dt != null;
+            case COLUMN_MIN_TEMP -> series.minTemp != null;
+            case COLUMN_MAX_TEMP -> series.maxTemp != null;
+            case COLUMN_TEMP -> series.temp != null;
+            case COLUMN_FEELS_LIKE -> series.feelsLike != null;
+            case COLUMN_VISIBILITY -> series.visibility != null;
+            case COLUMN_HUMIDITY -> series.humidity != null;
+            case COLUMN_WIND_SPEED -> series.windSpeed != null;
+            case COLUMN_WIND_DEG -> series.windDeg != null;
+            case COLUMN_PRESSURE -> series.pressure != null;
+            case COLUMN_DEW_POINT -> series.dewPoint != null;
+            case COLUMN_UVI -> series.uvi != null;
+            case COLUMN_POP -> series.pop != null;
+            case COLUMN_WEATHER_CODE -> series.weatherCode != null;
+            case COLUMN_WEATHER_ICON -> series.weatherIconRes != null;
+            case COLUMN_DESCRIPTION -> series.weatherDescription != null;
+            case COLUMN_LONG_DESCRIPTION -> series.weatherLongDescription != null;
+            case COLUMN_PRECIPITATION_INTENSITY -> series.precipitationIntensity != null;
+            case COLUMN_PRECIPITATION_TYPE -> series.precipitationType != null;
+            case COLUMN_SUNRISE -> series.sunrise != null;
+            case COLUMN_SUNSET -> series.sunset != null;
+            case COLUMN_MOONRISE -> series.moonrise != null;
+            case COLUMN_MOONSET -> series.moonset != null;
+            case COLUMN_MOON_PHASE -> series.moonPhase != null;
+            default -> false;
+        };
+    }
+
+    private void writeAlerts(ByteBuffer buffer, CurrentWeather.Alert[] alerts, StringTable stringTable) {
+        buffer.putInt(alerts.length);
+
+        for (CurrentWeather.Alert alert : alerts) {
+            buffer.putInt(stringTable.indexOf(alert.senderName));
+            buffer.putInt(stringTable.indexOf(alert.event));
+            buffer.putLong(alert.start);
+            buffer.putLong(alert.end);
+            buffer.putInt(stringTable.indexOf(alert.description));
+        }
+    }
+
+    private CurrentWeather.Alert[] readAlerts(ByteBuffer buffer, String[] strings) {
+        CurrentWeather.Alert[] alerts = new CurrentWeather.Alert[buffer.getInt()];
+
+        for (int i = 0; i < alerts.length; i++) {
+            alerts[i] = new CurrentWeather.Alert();
+            alerts[i].senderName = getString(strings, buffer.getInt());
+            alerts[i].event = getString(strings, buffer.getInt());
+            alerts[i].start = buffer.getLong();
+            alerts[i].end = buffer.getLong();
+            alerts[i].description = getString(strings, buffer.getInt());
+        }
+
+        return alerts;
+    }
+
+    private String[] readStrings(ByteBuffer buffer) {
+        String[] strings = new String[buffer.getInt()];
+
+        for (int i = 0; i < strings.length; i++) {
+            int length = buffer.getInt();
+
+            if (buffer.hasArray()) {
+                strings[i] = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+
+        return strings;
+    }
+
+    private static String getString(String[] strings, int index) {
+        return index < 0 ? null : strings[index];
+    }
+
+    private static int getSectionsSize(CurrentWeather currentWeather) {
+        int size = 5 + 4;
+
+        if (currentWeather.current != null) {
+            size += getSeriesSize(currentWeather.current.series.size(), CURRENT_COLUMNS);
+        }
+
+        if (currentWeather.daily != null) {
+            size += getSeriesSize(currentWeather.daily.size(), DAILY_COLUMNS);
+        }
+
+        if (currentWeather.hourly != null) {
+            size += getSeriesSize(currentWeather.hourly.size(), HOURLY_COLUMNS);
+        }
+
+        if (currentWeather.trihourly != null) {
+            size += getSeriesSize(currentWeather.trihourly.size(), TRIHOURLY_COLUMNS);
+        }
+
+        if (currentWeather.alerts != null) {
+            size += 5 + 4 + currentWeather.alerts.length * (4 + 4 + 8 + 8 + 4);
+        }
+
+        return size;
+    }
+
+    private static int getSeriesSize(int count, byte[] columns) {
+        int size = 5 + 4 + 1;
+
+        for (byte column : columns) {
+            size += 1 + 4 + count * getColumnWidth(column);
+        }
+
+        return size;
+    }
+
+    private static int getColumnWidth(byte column) {
+        return switch (column) {
+            case COLUMN_DT, COLUMN_MIN_TEMP, COLUMN_MAX_TEMP, COLUMN_TEMP, COLUMN_FEELS_LIKE,
+                 COLUMN_WIND_SPEED, COLUMN_DEW_POINT, COLUMN_UVI, COLUMN_PRECIPITATION_INTENSITY,
+                 COLUMN_SUNRISE, COLUMN_SUNSET, COLUMN_MOONRISE, COLUMN_MOONSET,
+                 COLUMN_MOON_PHASE -> 8;
+            case COLUMN_PRECIPITATION_TYPE -> 1;
+            default -> 4;
+        };
+    }
+
+    private interface SectionWriter {
+        void write(ByteBuffer buffer);
+    }
+
+    public interface ResourceNameMapper {
+        String getName(int resId);
+
+        int getResId(String name);
+    }
+
+    private static class DrawableResourceNameMapper implements ResourceNameMapper {
+        private final Resources resources;
+        private final String packageName;
+        private final HashMap<String, Integer> resIdCache = new HashMap<>();
+
+        DrawableResourceNameMapper(Context context) {
+            this.resources = context.getResources();
+            this.packageName = context.getPackageName();
+        }
+
+        @Override
+        public String getName(int resId) {
+            if (resId == 0) {
+                return null;
+            }
+
+            try {
+                return resources.getResourceEntryName(resId);
+            } catch (Resources.NotFoundException e) {
+                return null;
+            }
+        }
+
+        //Resource ids are not stable across builds, so icons are stored by name
+        @Override
+        public synchronized int getResId(String name) {
+            if (name == null) {
+                return 0;
+            }
+
+            Integer resId = resIdCache.get(name);
+
+            if (resId == null) {
+                //noinspection DiscouragedApi
+                resId = resources.getIdentifier(name, "drawable", packageName);
+                resIdCache.put(name, resId);
+            }
+
+            return resId;
+        }
+    }
+
+    private static class StringTable {
+        private final HashMap<String, Integer> indices = new HashMap<>();
+        private final ArrayList<String> strings = new ArrayList<>();
+
+        int indexOf(String string) {
+            if (string == null) {
+                return -1;
+            }
+
+            Integer index = indices.get(string);
+
+            if (index == null) {
+                index = strings.size();
+                strings.add(string);
+                indices.put(string, index);
+            }
+
+            return index;
+        }
+
+        byte[][] encode() {
+            byte[][] encoded = new byte[strings.size()][];
+
+            for (int i = 0, l = strings.size(); i < l; i++) {
+                encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            }
+
+            return encoded;
+        }
+    }
+}
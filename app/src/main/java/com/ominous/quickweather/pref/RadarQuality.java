@@ -21,7 +21,8 @@ package com.ominous.quickweather.pref;
 
 public enum RadarQuality implements IPreferenceEnum {
     HIGH("high"),
-    LOW("low");
+    LOW("low"),
+    AUTO("auto");
 
     private final String value;
 
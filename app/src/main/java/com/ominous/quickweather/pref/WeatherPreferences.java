@@ -43,6 +43,7 @@ public class WeatherPreferences {
     private final static String PREFERENCE_OWM_APIKEY = "apikey";
     private final static String PREFERENCE_OPENMETEO_APIKEY = "openmeteoapikey";
     private final static String PREFERENCE_OPENMETEO_INSTANCE = "openmeteoinstance";
+    private final static String PREFERENCE_OPENMETEO_PUBLICBACKUP = "openmeteopublicbackup";
     private final static String PREFERENCE_THEME = "theme";
     private final static String PREFERENCE_SHOWALERTNOTIF = "showalertnotif";
     private final static String PREFERENCE_SHOWPERSISTNOTIF = "showpersistnotif";
@@ -72,6 +73,7 @@ public class WeatherPreferences {
         migrateHideRadarToDb(context);
         removeOldPreferences();
         checkForMissingProvider();
+        migrateDefaultRadarQuality();
     }
 
     public static WeatherPreferences getInstance(Context context) {
@@ -148,6 +150,14 @@ public class WeatherPreferences {
         putPreference(PREFERENCE_OPENMETEO_INSTANCE, openMeteoInstance);
     }
 
+    public Enabled getOpenMeteoPublicBackup() {
+        return IPreferenceEnum.from(getPreference(PREFERENCE_OPENMETEO_PUBLICBACKUP, Enabled.DISABLED.getValue()), Enabled.DISABLED);
+    }
+
+    public void setOpenMeteoPublicBackup(Enabled enabled) {
+        putPreference(PREFERENCE_OPENMETEO_PUBLICBACKUP, enabled.getValue());
+    }
+
     public Theme getTheme() {
         return IPreferenceEnum.from(getPreference(PREFERENCE_THEME), Theme.DEFAULT);
     }
@@ -206,7 +216,7 @@ public class WeatherPreferences {
     }
 
     public RadarQuality getRadarQuality() {
-        return IPreferenceEnum.from(getPreference(PREFERENCE_RADARQUALITY, RadarQuality.HIGH.getValue()), RadarQuality.HIGH);
+        return IPreferenceEnum.from(getPreference(PREFERENCE_RADARQUALITY, RadarQuality.AUTO.getValue()), RadarQuality.AUTO);
     }
 
     public void setRadarQuality(RadarQuality radarQuality) {
@@ -220,7 +230,7 @@ public class WeatherPreferences {
             radarQualityLiveData = new SharedPreferenceLiveData<>(
                     sharedPreferences,
                     PREFERENCE_RADARQUALITY,
-                    RadarQuality.HIGH
+                    RadarQuality.AUTO
             );
         }
 
@@ -363,6 +373,14 @@ public class WeatherPreferences {
         }
     }
 
+    //Existing installs keep the high quality radar they had before the automatic quality existed
+    private void migrateDefaultRadarQuality() {
+        if (!sharedPreferences.contains(PREFERENCE_RADARQUALITY)) {
+            putPreference(PREFERENCE_RADARQUALITY,
+                    isInitialized() ? RadarQuality.HIGH.getValue() : RadarQuality.AUTO.getValue());
+        }
+    }
+
     private void removeOldPreferences() {
         for (String key : new String[]{"locations", "default_location", "showannouncement"}) {
             if (sharedPreferences.contains(key)) {
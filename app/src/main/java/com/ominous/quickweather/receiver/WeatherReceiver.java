@@ -23,6 +23,7 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 
+import com.ominous.quickweather.api.WeatherProviderRegistry;
 import com.ominous.quickweather.data.WeatherDataManager;
 import com.ominous.quickweather.work.WeatherWorkManager;
 
@@ -39,8 +40,10 @@ public class WeatherReceiver extends BroadcastReceiver {
                      Intent.ACTION_MY_PACKAGE_UNSUSPENDED,
                      "android.intent.action.QUICKBOOT_POWERON" ->
                         new WeatherWorkManager(context).enqueueNotificationWorker(false);
-                case Intent.ACTION_LOCALE_CHANGED ->
-                        WeatherDataManager.getInstance().clearCache(context);
+                case Intent.ACTION_LOCALE_CHANGED -> {
+                    WeatherProviderRegistry.getInstance().onLocaleChanged();
+                    WeatherDataManager.getInstance().clearCache(context);
+                }
             }
         }
     }
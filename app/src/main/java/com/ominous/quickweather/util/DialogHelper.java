@@ -21,6 +21,8 @@ package com.ominous.quickweather.util;
 
 import android.Manifest;
 import android.app.Dialog;
+import android.content.ClipData;
+import android.content.ClipboardManager;
 import android.content.Context;
 import android.content.DialogInterface;
 import android.content.Intent;
@@ -29,7 +31,10 @@ import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
 import android.provider.Settings;
+import android.text.SpannableString;
+import android.text.Spanned;
 import android.text.TextUtils;
+import android.text.style.TypefaceSpan;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.Window;
@@ -556,6 +561,26 @@ public class DialogHelper {
         textDialog.show();
     }
 
+    public void showDiagnosticsDialog(String report) {
+        makeTextDialog();
+
+        SpannableString monospaceReport = new SpannableString(report);
+        monospaceReport.setSpan(new TypefaceSpan("monospace"), 0, report.length(), Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+
+        textDialog.setTitle(R.string.dialog_diagnostics_title);
+        textDialog.setButton(Dialog.BUTTON_POSITIVE, context.getString(R.string.dialog_button_copy), (d, w) -> {
+            ClipboardManager clipboardManager = ContextCompat.getSystemService(context, ClipboardManager.class);
+
+            if (clipboardManager != null) {
+                clipboardManager.setPrimaryClip(ClipData.newPlainText(context.getString(R.string.dialog_diagnostics_title), report));
+            }
+        });
+        textDialog.setButton(Dialog.BUTTON_NEGATIVE, context.getString(R.string.dialog_button_close), (DialogInterface.OnClickListener) null);
+        textDialogView.setText(monospaceReport);
+
+        textDialog.show();
+    }
+
     public void showBatteryOptimizationDialog(Runnable onAcceptRunnable) {
         makeTextDialog();
 
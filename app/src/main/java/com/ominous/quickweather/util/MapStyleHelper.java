@@ -0,0 +1,190 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.ominous.quickweather.util;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.AtomicFile;
+
+import com.ominous.quickweather.BuildConfig;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * The base map styles, localized and scaled for the current language, night mode and text size.
+ * A rewritten style is stored in the cache directory, so later loads hand MapLibre a file URI
+ * instead of rewriting the style and passing it over as a string.
+ */
+public class MapStyleHelper {
+    private final static String STYLE_DIRECTORY = "styles";
+    //Increment when the rewrite changes. The app version covers changes to the assets.
+    private final static int STYLE_VERSION = 1;
+
+    //Reads and writes files, so this must not be called on the main thread
+    public static String getStyleUri(Context context, boolean isNightModeActive, float textScaling) throws IOException, JSONException {
+        String language = Locale.getDefault().getLanguage();
+        String versionSuffix = "_v" + STYLE_VERSION + "_" + BuildConfig.VERSION_CODE + ".json";
+
+        File styleDirectory = new File(context.getCacheDir(), STYLE_DIRECTORY);
+        File styleFile = new File(styleDirectory, String.format(Locale.US, "%s_%s_%.3f%s",
+                isNightModeActive ? "dark" : "light",
+                language,
+                textScaling,
+                versionSuffix));
+
+        if (!styleFile.isFile()) {
+            deleteOutdatedStyles(styleDirectory, versionSuffix);
+
+            String styleJson = withStyledLocalizedText(
+                    readAsset(context, isNightModeActive ? "dark_theme.json" : "light_theme.json"),
+                    language,
+                    isNightModeActive,
+                    textScaling);
+
+            if (!styleDirectory.isDirectory() && !styleDirectory.mkdirs()) {
+                throw new IOException("Could not create " + styleDirectory);
+            }
+
+            AtomicFile atomicFile = new AtomicFile(styleFile);
+            FileOutputStream outputStream = atomicFile.startWrite();
+
+            try {
+                outputStream.write(styleJson.getBytes(StandardCharsets.UTF_8));
+                atomicFile.finishWrite(outputStream);
+            } catch (IOException e) {
+                atomicFile.failWrite(outputStream);
+                throw e;
+            }
+        }
+
+        return Uri.fromFile(styleFile).toString();
+    }
+
+    private static String readAsset(Context context, String fileName) throws IOException {
+        try (InputStream inputStream = context.getAssets().open(fileName)) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream(Math.max(inputStream.available(), 8192));
+            byte[] buffer = new byte[8192];
+
+            for (int read; (read = inputStream.read(buffer)) != -1; ) {
+                outputStream.write(buffer, 0, read);
+            }
+
+            return outputStream.toString(StandardCharsets.UTF_8.name());
+        }
+    }
+
+    private static void deleteOutdatedStyles(File styleDirectory, String versionSuffix) {
+        File[] outdatedStyles = styleDirectory.listFiles((dir, name) -> !name.endsWith(versionSuffix));
+
+        if (outdatedStyles != null) {
+            for (File outdatedStyle : outdatedStyles) {
+                //noinspection ResultOfMethodCallIgnored
+                outdatedStyle.delete();
+            }
+        }
+    }
+
+    //based on https://github.com/klokantech/openmaptiles-language
+    private static String withStyledLocalizedText(String styleJson, String language, boolean isNightModeActive, float textScaling) throws JSONException {
+        JSONObject styleJsonObj = new JSONObject(styleJson);
+
+        boolean isLatin = !Arrays.asList("ar", "hy", "be", "bg", "zh", "ka", "el", "he",
+                "ja", "kn", "kk", "ko", "mk", "ru", "sr", "th", "uk").contains(language);
+
+        String textField = "{name:" + language + "}\n{name:" + (isLatin ? "nonlatin" : "latin") + "}";
+        JSONArray hasLanguageFilter = new JSONArray("[\"has\",\"name:" + language + "\"]");
+        JSONArray notHasLanguageFilter = new JSONArray("[\"!\", [\"has\",\"name:" + language + "\"]]");
+
+        String textColor = isNightModeActive ? "rgba(255,255,255,0.8)" : "rgba(0,0,0,0.8)";
+        String textHaloColor = isNightModeActive ? "hsl(0, 0%, 20%)" : "rgb(242,243,240)";
+
+        styleJsonObj.put("sprite", null);
+
+        JSONArray layersArray = styleJsonObj.getJSONArray("layers");
+        //The localized duplicate of each symbol layer is appended right after it
+        JSONArray localizedLayersArray = new JSONArray();
+
+        for (int i = 0, l = layersArray.length(); i < l; i++) {
+            JSONObject layer = layersArray.getJSONObject(i);
+
+            localizedLayersArray.put(layer);
+
+            if (layer.optString("type").equals("symbol")) {
+                JSONObject layerPaint = layer.has("paint") ? layer.getJSONObject("paint") : new JSONObject();
+
+                layerPaint.put("text-color", textColor);
+                layerPaint.put("text-halo-color", textHaloColor);
+                layerPaint.put("text-halo-width", 1);
+                layerPaint.put("text-halo-blur", 1);
+
+                layer.put("paint", layerPaint);
+
+                JSONObject layerLayout = layer.getJSONObject("layout");
+
+                if (layerLayout.has("text-size")) {
+                    if (layerLayout.optJSONObject("text-size") == null) {
+                        layerLayout.put("text-size", layerLayout.getDouble("text-size") * textScaling);
+                    } else {
+                        //It's a 2D array
+                        JSONArray textSizeStops = layerLayout.getJSONObject("text-size").getJSONArray("stops");
+
+                        for (int j = 0; j < textSizeStops.length(); j++) {
+                            JSONArray textSizeStops2 = textSizeStops.getJSONArray(j);
+
+                            for (int k = 0; k < textSizeStops2.length(); k++) {
+                                textSizeStops2.put(k, textSizeStops2.getDouble(k) * textScaling);
+                            }
+                        }
+                    }
+                } else {
+                    layerLayout.put("text-size", 10 * textScaling);
+                }
+
+                if (!layer.getJSONArray("filter").toString().startsWith("[\"all\",")) {
+                    layer.put("filter", new JSONArray("[\"all\"," + layer.getJSONArray("filter") + "]"));
+                }
+
+                JSONObject duplicateLayer = new JSONObject(layer.toString());
+
+                layer.getJSONArray("filter").put(notHasLanguageFilter);
+
+                duplicateLayer.put("id", duplicateLayer.getString("id") + "_" + language);
+                duplicateLayer.getJSONArray("filter").put(hasLanguageFilter);
+                duplicateLayer.getJSONObject("layout").put("text-field", textField);
+
+                localizedLayersArray.put(duplicateLayer);
+            }
+        }
+
+        styleJsonObj.put("layers", localizedLayersArray);
+
+        return styleJsonObj.toString();
+    }
+}
@@ -73,7 +73,7 @@ public class NotificationUtils {
             WeatherUtils weatherUtils = WeatherUtils.getInstance(context);
             WeatherPreferences weatherPreferences = WeatherPreferences.getInstance(context);
 
-            String weatherDesc = currentWeather.current.weatherDescription;
+            String weatherDesc = currentWeather.current.getWeatherDescription();
 
             //TODO reuse remoteViews
             CurrentWeatherRemoteViews remoteViews = new CurrentWeatherRemoteViews(context);
@@ -86,9 +86,9 @@ public class NotificationUtils {
                     .setOngoing(true)
                     .setShowWhen(true)
                     .setWhen(currentWeather.timestamp)
-                    .setSmallIcon(currentWeather.current.weatherIconRes)
+                    .setSmallIcon(currentWeather.current.getWeatherIconRes())
                     .setColor(context.getResources().getColor(R.color.color_app_accent))
-                    .setContentTitle(weatherUtils.getTemperatureString(weatherPreferences.getTemperatureUnit(), currentWeather.current.temp, 1) + " • " + weatherDesc);
+                    .setContentTitle(weatherUtils.getTemperatureString(weatherPreferences.getTemperatureUnit(), currentWeather.current.getTemp(), 1) + " • " + weatherDesc);
 
             if (Build.VERSION.SDK_INT >= 24) {
                 notificationBuilder
@@ -154,7 +154,7 @@ public class NotificationUtils {
                                 PendingIntent.getActivity(context, alertId,
                                         new Intent(context, MainActivity.class)
                                                 .setAction(MainActivity.ACTION_OPENALERT)
-                                                .putExtra(MainActivity.EXTRA_ALERT, alert),
+                                                .putExtra(MainActivity.EXTRA_ALERT_ID, alertId),
                                         PENDING_INTENT_FLAGS))
                         .setOnlyAlertOnce(true)
                         .setShowWhen(true)
@@ -21,6 +21,8 @@ package com.ominous.quickweather.util;
 
 import android.content.Context;
 
+import com.ominous.quickweather.api.HttpClient;
+
 import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.security.KeyManagementException;
@@ -34,7 +36,9 @@ import java.util.Enumeration;
 
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
 
 public class SSLHelper {
     public static void addLetsEncryptRootCA(Context context) {
@@ -71,6 +75,14 @@ public class SSLHelper {
             sslContext.init(null, tmf.getTrustManagers(), null);
 
             HttpsURLConnection.setDefaultSSLSocketFactory(sslContext.getSocketFactory());
+
+            //OkHttp does not use the HttpsURLConnection default, so the shared client needs it too
+            for (TrustManager trustManager : tmf.getTrustManagers()) {
+                if (trustManager instanceof X509TrustManager) {
+                    HttpClient.getInstance().setSslSocketFactory(sslContext.getSocketFactory(), (X509TrustManager) trustManager);
+                    break;
+                }
+            }
         } catch (IOException | KeyManagementException | CertificateException |
                  KeyStoreException | NoSuchAlgorithmException e) {
             e.printStackTrace();
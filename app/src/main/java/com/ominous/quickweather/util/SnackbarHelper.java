@@ -23,6 +23,7 @@ import android.Manifest;
 import android.content.Intent;
 import android.os.Build;
 import android.provider.Settings;
+import android.text.format.DateUtils;
 import android.util.Log;
 import android.util.TypedValue;
 import android.view.View;
@@ -156,6 +157,24 @@ public class SnackbarHelper {
                 v -> weatherWorkManager.requestIgnoreBatteryOptimization(dialogHelper));
     }
 
+    public void notifyStaleWeather(long timestamp) {
+        updateSnackbar(snackbar.getContext().getString(R.string.snackbar_stale_weather,
+                        DateUtils.getRelativeTimeSpanString(timestamp)),
+                Snackbar.LENGTH_LONG,
+                0,
+                null);
+    }
+
+    public void notifyProviderUnavailable(long retryAt) {
+        updateSnackbar(retryAt > System.currentTimeMillis() ?
+                        snackbar.getContext().getString(R.string.snackbar_provider_unavailable_retry,
+                                DateUtils.getRelativeTimeSpanString(retryAt)) :
+                        snackbar.getContext().getString(R.string.error_provider_unavailable),
+                Snackbar.LENGTH_LONG,
+                0,
+                null);
+    }
+
     public void notifyError(String error, Throwable t) {
         logError(error, t);
 
@@ -0,0 +1,95 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.util;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local dates and times in a forecast's time zone, computed from cached zone rules instead of
+ * a new Calendar per data point.
+ */
+public class ZoneTimeHelper {
+    private final static long DAY_MILLIS = 24 * 60 * 60 * 1000L;
+    private final static long HOUR_MILLIS = 60 * 60 * 1000L;
+    private final static long MINUTE_MILLIS = 60 * 1000L;
+
+    private final static ConcurrentHashMap<String, ZoneTimeHelper> instances = new ConcurrentHashMap<>();
+
+    private final ZoneId zoneId;
+    private final ZoneRules zoneRules;
+    private volatile Day lastDay;
+
+    private ZoneTimeHelper(ZoneId zoneId) {
+        this.zoneId = zoneId;
+        this.zoneRules = zoneId.getRules();
+    }
+
+    public static ZoneTimeHelper getInstance(TimeZone timeZone) {
+        return instances.computeIfAbsent(timeZone.getID(), id -> new ZoneTimeHelper(ZoneId.of(id, ZoneId.SHORT_IDS)));
+    }
+
+    public int getOffset(long epochMillis) {
+        return zoneRules.getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000;
+    }
+
+    public LocalDate getLocalDate(long epochMillis) {
+        return LocalDate.ofEpochDay(Math.floorDiv(epochMillis + getOffset(epochMillis), DAY_MILLIS));
+    }
+
+    //The local wall clock time in hours, with the minutes as the fraction
+    public float getHourOfDay(long epochMillis) {
+        long millisOfDay = Math.floorMod(epochMillis + getOffset(epochMillis), DAY_MILLIS);
+
+        return millisOfDay / HOUR_MILLIS + millisOfDay % HOUR_MILLIS / MINUTE_MILLIS / 60f;
+    }
+
+    public long getStartOfDay(long epochMillis) {
+        return getDay(epochMillis).start;
+    }
+
+    public long getStartOfDay(LocalDate date) {
+        return date.atStartOfDay(zoneId).toEpochSecond() * 1000;
+    }
+
+    //The last day is kept, since callers mostly ask about the same day many times in a row
+    public Day getDay(long epochMillis) {
+        Day day = lastDay;
+
+        if (day == null || !day.contains(epochMillis)) {
+            LocalDate date = getLocalDate(epochMillis);
+
+            day = new Day(date, getStartOfDay(date), getStartOfDay(date.plusDays(1)));
+            lastDay = day;
+        }
+
+        return day;
+    }
+
+    public record Day(LocalDate date, long start, long end) {
+        public boolean contains(long epochMillis) {
+            return epochMillis >= start && epochMillis < end;
+        }
+    }
+}
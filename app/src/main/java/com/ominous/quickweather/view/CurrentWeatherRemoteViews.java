@@ -46,11 +46,11 @@ public class CurrentWeatherRemoteViews extends RemoteViews {
         WeatherPreferences weatherPreferences = WeatherPreferences.getInstance(context);
 
         setTextViewText(R.id.main_location, weatherLocation.isCurrentLocation ? context.getString(R.string.text_current_location) : weatherLocation.name);
-        setTextViewText(R.id.current_main_temperature, weatherUtils.getTemperatureString(weatherPreferences.getTemperatureUnit(), currentWeather.current.temp, 1));
-        setTextViewText(R.id.main_description, currentWeather.current.weatherDescription);
+        setTextViewText(R.id.current_main_temperature, weatherUtils.getTemperatureString(weatherPreferences.getTemperatureUnit(), currentWeather.current.getTemp(), 1));
+        setTextViewText(R.id.main_description, currentWeather.current.getWeatherDescription());
         setImageViewBitmap(R.id.current_main_icon,
                 BitmapUtils.drawableToBitmap(
-                        ContextCompat.getDrawable(context, currentWeather.current.weatherIconRes),
+                        ContextCompat.getDrawable(context, currentWeather.current.getWeatherIconRes()),
                         ColorHelper.getInstance(context).getNotificationTextColor(context).getDefaultColor() | 0xFF000000));
     }
 }
@@ -42,7 +42,7 @@ import com.ominous.quickweather.card.SunMoonCardView;
 import com.ominous.quickweather.data.CurrentWeather;
 import com.ominous.quickweather.data.WeatherCardType;
 import com.ominous.quickweather.data.WeatherModel;
-import com.ominous.tylerutils.util.LocaleUtils;
+import com.ominous.quickweather.util.ZoneTimeHelper;
 
 import java.util.ArrayList;
 
@@ -252,7 +252,8 @@ public class WeatherCardRecyclerView extends RecyclerView {
             if (weatherModel != null && weatherModel.currentWeather != null) {
                 ArrayList<WeatherCardType> cardList = new ArrayList<>();
 
-                long thisDay = weatherModel.date == null ? 0 : LocaleUtils.getStartOfDay(weatherModel.date, weatherModel.currentWeather.timezone);
+                long thisDay = weatherModel.date == null ? 0 : ZoneTimeHelper.getInstance(weatherModel.currentWeather.timezone)
+                        .getStartOfDay(weatherModel.date.getTime());
                 long nextDay = thisDay + 24 * 60 * 60 * 1000;
 
                 for (WeatherCardType sectionType : cardSectionTypeList) {
@@ -278,12 +279,12 @@ public class WeatherCardRecyclerView extends RecyclerView {
                             if (weatherModel.date == null) {
                                 cardList.add(WeatherCardType.GRAPH);
                             } else {
-                                for (CurrentWeather.DataPoint dataPoint : weatherModel.currentWeather.trihourly) {
-                                    //Only show the graph if there are data points
-                                    if (dataPoint.dt >= thisDay && dataPoint.dt < nextDay) {
-                                        cardList.add(WeatherCardType.GRAPH);
-                                        break;
-                                    }
+                                int firstIndex = weatherModel.currentWeather.trihourly.indexOfFirstAtOrAfter(thisDay);
+
+                                //Only show the graph if there are data points
+                                if (firstIndex < weatherModel.currentWeather.trihourly.size() &&
+                                        weatherModel.currentWeather.trihourly.getDt(firstIndex) < nextDay) {
+                                    cardList.add(WeatherCardType.GRAPH);
                                 }
                             }
                             break;
@@ -291,7 +292,7 @@ public class WeatherCardRecyclerView extends RecyclerView {
                             cardList.add(WeatherCardType.RADAR);
                             break;
                         case CURRENT_FORECAST:
-                            for (CurrentWeather.DataPoint ignored : weatherModel.currentWeather.daily) {
+                            for (int i = 0, l = weatherModel.currentWeather.daily.size(); i < l; i++) {
                                 cardList.add(WeatherCardType.CURRENT_FORECAST);
                             }
                             break;
@@ -299,11 +300,10 @@ public class WeatherCardRecyclerView extends RecyclerView {
                             cardList.add(WeatherCardType.FORECAST_MAIN);
                             break;
                         case FORECAST_DETAIL:
-                            for (int i = 0, l = weatherModel.currentWeather.trihourly.length; i < l; i++) {
-                                if (weatherModel.currentWeather.trihourly[i].dt >= thisDay &&
-                                        weatherModel.currentWeather.trihourly[i].dt < nextDay) {
-                                    cardList.add(WeatherCardType.FORECAST_DETAIL);
-                                }
+                            for (int i = weatherModel.currentWeather.trihourly.indexOfFirstAtOrAfter(thisDay),
+                                 l = weatherModel.currentWeather.trihourly.size();
+                                 i < l && weatherModel.currentWeather.trihourly.getDt(i) < nextDay; i++) {
+                                cardList.add(WeatherCardType.FORECAST_DETAIL);
                             }
                             break;
                         case SUNMOON:
@@ -33,6 +33,7 @@ import android.util.AttributeSet;
 import android.util.DisplayMetrics;
 import android.util.Pair;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewParent;
@@ -57,6 +58,7 @@ import org.maplibre.android.MapLibre;
 import org.maplibre.android.camera.CameraPosition;
 import org.maplibre.android.camera.CameraUpdateFactory;
 import org.maplibre.android.geometry.LatLng;
+import org.maplibre.android.geometry.LatLngBounds;
 import org.maplibre.android.maps.MapView;
 import org.maplibre.android.maps.MapLibreMap;
 import org.maplibre.android.maps.Style;
@@ -72,15 +74,19 @@ import org.maplibre.android.style.layers.RasterLayer;
 import org.maplibre.android.style.sources.RasterSource;
 import org.maplibre.android.style.sources.TileSet;
 import com.ominous.quickweather.R;
+import com.ominous.quickweather.api.HttpClient;
+import com.ominous.quickweather.api.rainviewer.AdaptiveRadarQuality;
+import com.ominous.quickweather.api.rainviewer.RainViewerTileCache;
+import com.ominous.quickweather.api.rainviewer.RainViewerTilePrefetcher;
 import com.ominous.quickweather.activity.ILifecycleAwareActivity;
 import com.ominous.quickweather.activity.LifecycleListener;
 import com.ominous.quickweather.card.RadarCardView;
 import com.ominous.quickweather.pref.RadarQuality;
 import com.ominous.quickweather.pref.RadarTheme;
 import com.ominous.quickweather.util.DialogHelper;
+import com.ominous.quickweather.util.MapStyleHelper;
 import com.ominous.quickweather.util.SnackbarHelper;
 import com.ominous.tylerutils.async.Promise;
-import com.ominous.tylerutils.http.HttpRequest;
 import com.ominous.tylerutils.util.BitmapUtils;
 import com.ominous.tylerutils.util.ColorUtils;
 import com.ominous.tylerutils.util.StringUtils;
@@ -89,14 +95,10 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -114,7 +116,9 @@ import okhttp3.Response;
 
 public class WeatherMapView extends ConstraintLayout implements View.OnClickListener {
     private final static int ANIMATION_DURATION = 500;
+    private final static long FRAME_DURATION_NANOS = TimeUnit.MILLISECONDS.toNanos(ANIMATION_DURATION);
     private final static int CONTROL_ANIMATION_DURATION = 250;
+    private final static String RAINVIEWER_MAPS_URL = "https://api.rainviewer.com/public/weather-maps.json";
     private final static String RAINVIEWER_ATTRIBUTION = "&copy; <a href=\"https://rainviewer.com\">RainViewer</a>";
     private final static String MAPLIBRE_ATTRIBUTION = "<a href=\"https://maplibre.org/\">MapLibre</a>";
     private final static String OSM_ATTRIBUTION = "&copy; <a href=\"http://www.openstreetmap.org/about/\">OpenStreetMap</a> contributors";
@@ -145,16 +149,24 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
     private RadarTheme currentTheme = null;
     private Boolean currentDarkModeActive = null;
     private RadarQuality currentRadarQuality = null;
+    private AdaptiveRadarQuality.Level currentRadarLevel = null;
 
     private double currentLatitude = 0;
     private double currentLongitude = 0;
     private int currentRainViewerFrame = 0;
 
     private final ArrayList<Pair<Long, String>> rainViewerTimestamps = new ArrayList<>();
+    //The radar layer of each frame, in the same order as rainViewerTimestamps
+    private final ArrayList<Layer> rainViewerLayers = new ArrayList<>();
+    private Layer visibleRainViewerLayer = null;
+    private long nextRainViewerFrameTime = 0; //nanoseconds, in the Choreographer time base
     private boolean isPlaying = false;
+    private boolean isPlaybackPending = false;
+    private boolean isPrefetching = false;
     private boolean isFullscreen = false;
 
-    private final Runnable nextFrameRunnable;
+    private final Choreographer.FrameCallback nextFrameCallback;
+    private final RainViewerTilePrefetcher.IPrefetchListener prefetchListener;
     private final Promise.PromiseCallable<Void, MapLibreMap> getMapAsync;
     private final Promise.PromiseCallable<MapLibreMap, Style> getStyleAsync;
 
@@ -224,9 +236,38 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
         buttonAttribution.setOnClickListener(this);
         buttonLegend.setOnClickListener(this);
 
-        nextFrameRunnable = () -> mapView.getMapAsync(
-                mapLibreMap -> mapLibreMap.getStyle(
-                        style -> showRainViewerFrame(style, true)));
+        //Frames are switched on a vsync. The schedule does not drift when a vsync is late, and
+        //restarts from now when playback starts or falls behind by more than a frame
+        nextFrameCallback = new Choreographer.FrameCallback() {
+            @Override
+            public void doFrame(long frameTimeNanos) {
+                if (frameTimeNanos >= nextRainViewerFrameTime) {
+                    nextRainViewerFrameTime = frameTimeNanos - nextRainViewerFrameTime > FRAME_DURATION_NANOS ?
+                            frameTimeNanos + FRAME_DURATION_NANOS :
+                            nextRainViewerFrameTime + FRAME_DURATION_NANOS;
+
+                    showRainViewerFrame(true);
+                }
+
+                Choreographer.getInstance().postFrameCallbackDelayed(this,
+                        TimeUnit.NANOSECONDS.toMillis(nextRainViewerFrameTime - frameTimeNanos));
+            }
+        };
+
+        prefetchListener = new RainViewerTilePrefetcher.IPrefetchListener() {
+            @Override
+            public void onProgress(int completedTiles, int totalTiles) {
+                post(() -> updatePrefetchProgress(completedTiles, totalTiles));
+            }
+
+            @Override
+            public void onComplete() {
+                post(() -> {
+                    updatePrefetchProgress(1, 1);
+                    startPlaybackWhenReady();
+                });
+            }
+        };
 
         getMapAsync = v -> {
             AtomicReference<MapLibreMap> result = new AtomicReference<>();
@@ -290,6 +331,7 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
 
                 mapLibreMap.addOnMapClickListener(weatherMapAnimationListener);
                 mapLibreMap.addOnCameraMoveStartedListener(weatherMapAnimationListener);
+                mapLibreMap.addOnCameraIdleListener(() -> prefetchRainViewerFrames(mapLibreMap));
             }
 
             mapLibreMap.getStyle(style -> {
@@ -336,9 +378,8 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
             radarSlider.addOnChangeListener((slider, value, fromUser) -> {
                 if (fromUser) {
                     currentRainViewerFrame = (int) value;
-                    mapView.getMapAsync(
-                            mapLibreMap -> mapLibreMap.getStyle(
-                                    style -> showRainViewerFrame(style, false)));
+                    RainViewerTilePrefetcher.getInstance(getContext()).prioritize(currentRainViewerFrame);
+                    showRainViewerFrame(false);
                 }
             });
 
@@ -386,8 +427,10 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
                 addRainViewerLayers(style, radarTheme, radarQuality).then(v -> {
                     if (!rainViewerTimestamps.isEmpty()) {
                         currentRainViewerFrame = rainViewerTimestamps.size() - 1;
-                        showRainViewerFrame(style, false);
+                        post(() -> showRainViewerFrame(false));
                     }
+                }).then(getMapAsync).then(mapLibreMap -> {
+                    post(() -> prefetchRainViewerFrames(mapLibreMap));
                 });
 
         if (currentDarkModeActive == null || currentDarkModeActive != darkModeActive) {
@@ -407,39 +450,24 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
 
     private Promise<MapLibreMap, Void> loadStyle(boolean isNightModeActive) {
         return Promise.create(getMapAsync).then(mapLibreMap -> {
-            String styleJson;
-
-            try (InputStream themeStream = getContext().getAssets().open(
-                    isNightModeActive ? "dark_theme.json" : "light_theme.json")) {
-                BufferedReader r = new BufferedReader(new InputStreamReader(themeStream));
-
-                StringBuilder themeBuilder = new StringBuilder(themeStream.available());
-
-                for (String line; (line = r.readLine()) != null; ) {
-                    themeBuilder.append(line).append('\n');
-                }
-
-                styleJson = themeBuilder.toString();
-            } catch (IOException e) {
-                logError(getContext().getString(R.string.error_radar_map), e);
-
-                return;
-            }
-
             try {
-                final Style.Builder styleBuilder = new Style.Builder().fromJson(
-                        withStyledLocalizedText(styleJson, isNightModeActive));
+                final Style.Builder styleBuilder = new Style.Builder().fromUri(
+                        MapStyleHelper.getStyleUri(getContext(), isNightModeActive, getTextScaling()));
 
                 CountDownLatch latch = new CountDownLatch(1);
 
                 post(() -> {
+                    //The layers of the current style are removed with it
+                    rainViewerLayers.clear();
+                    visibleRainViewerLayer = null;
+
                     mapLibreMap.setStyle(styleBuilder);
 
                     latch.countDown();
                 });
 
                 latch.await(30, TimeUnit.SECONDS);
-            } catch (JSONException e) {
+            } catch (IOException | JSONException e) {
                 logError(getContext().getString(R.string.error_radar_map), e);
             }
         });
@@ -484,6 +512,9 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
                     playPause();
                 }
 
+                RainViewerTilePrefetcher.getInstance(getContext()).cancel();
+                updatePrefetchProgress(1, 1);
+
                 mapView.onPause();
             }
 
@@ -569,17 +600,82 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
 
     private void playPause() {
         isPlaying = !isPlaying;
+        isPlaybackPending = isPlaying;
 
         if (isPlaying) {
-            post(nextFrameRunnable);
+            //Playback starts once the tiles of every frame are downloaded
+            mapView.getMapAsync(mapLibreMap -> {
+                prefetchRainViewerFrames(mapLibreMap);
+                startPlaybackWhenReady();
+            });
         } else {
-            removeCallbacks(nextFrameRunnable);
+            Choreographer.getInstance().removeFrameCallback(nextFrameCallback);
         }
 
         buttonPlayPause.setIcon(ContextCompat.getDrawable(getContext(), isPlaying ? R.drawable.ic_pause_white_24dp : R.drawable.ic_play_arrow_white_24dp));
         setSliderLabelVisible(isPlaying);
     }
 
+    private void startPlaybackWhenReady() {
+        if (isPlaybackPending && RainViewerTilePrefetcher.getInstance(getContext()).isReady()) {
+            isPlaybackPending = false;
+            nextRainViewerFrameTime = 0;
+
+            Choreographer.getInstance().postFrameCallback(nextFrameCallback);
+        }
+    }
+
+    private void prefetchRainViewerFrames(MapLibreMap mapLibreMap) {
+        if (weatherMapViewType != WeatherMapViewType.RADAR ||
+                rainViewerTimestamps.isEmpty() ||
+                currentTheme == null ||
+                currentRadarQuality == null ||
+                currentRadarLevel == null) {
+            return;
+        }
+
+        //The layers are replaced when the adaptive quality has moved to another level
+        if (AdaptiveRadarQuality.getInstance(getContext()).getLevel(currentRadarQuality) != currentRadarLevel) {
+            setTheme(currentTheme, currentRadarQuality);
+            return;
+        }
+
+        ArrayList<String> urlTemplates = new ArrayList<>(rainViewerTimestamps.size());
+
+        for (Pair<Long, String> rainViewerTimestamp : rainViewerTimestamps) {
+            urlTemplates.add(getTileUrlTemplate(rainViewerTimestamp.second, currentTheme, currentRadarLevel.tileSize));
+        }
+
+        LatLngBounds bounds = mapLibreMap.getProjection().getVisibleRegion().latLngBounds;
+
+        RainViewerTilePrefetcher.getInstance(getContext()).prefetch(
+                urlTemplates,
+                RainViewerTilePrefetcher.getVisibleTiles(
+                        bounds.getLatNorth(),
+                        bounds.getLatSouth(),
+                        bounds.getLonWest(),
+                        bounds.getLonEast(),
+                        mapLibreMap.getCameraPosition().zoom),
+                (currentRainViewerFrame + 1) % rainViewerTimestamps.size(),
+                currentRadarLevel.prefetchDepth,
+                prefetchListener);
+    }
+
+    private void updatePrefetchProgress(int completedTiles, int totalTiles) {
+        boolean wasPrefetching = isPrefetching;
+
+        isPrefetching = completedTiles < totalTiles;
+
+        if (isPrefetching) {
+            radarLoadingIndicator.setIndeterminate(false);
+            radarLoadingIndicator.setProgressCompat(100 * completedTiles / totalTiles, true);
+        }
+
+        if (weatherMapAnimationListener != null && wasPrefetching != isPrefetching) {
+            weatherMapAnimationListener.updateLoadingIndicator(isPrefetching);
+        }
+    }
+
     private Symbol createMappickerSymbol(SymbolManager symbolManager, Style style) {
         Bitmap markerBitmap = BitmapUtils.drawableToBitmap(
                 ContextCompat.getDrawable(getContext(), R.drawable.ic_add_location_white_48dp),
@@ -629,41 +725,46 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
                 .withIconImage(LOCATION_ICON_NAME));
     }
 
-    private void showRainViewerFrame(Style style, boolean showNext) {
-        post(() -> {
-            if (!rainViewerTimestamps.isEmpty()) {
-                currentRainViewerFrame = currentRainViewerFrame % rainViewerTimestamps.size();
+    //Only the layers of the previous and the shown frame are updated
+    private void showRainViewerFrame(boolean showNext) {
+        if (!rainViewerTimestamps.isEmpty()) {
+            currentRainViewerFrame = currentRainViewerFrame % rainViewerTimestamps.size();
 
-                String layerId = getLayerName(rainViewerTimestamps.get(currentRainViewerFrame).first);
+            Layer layer = currentRainViewerFrame < rainViewerLayers.size() ?
+                    rainViewerLayers.get(currentRainViewerFrame) : null;
 
-                if (style != null) {
-                    for (Layer layer : style.getLayers()) {
-                        if (layer.getId().startsWith("radar")) {
-                            if (layer.getId().equals(layerId)) {
-                                layer.setProperties(getRasterOpacity(true));
-                            } else if (((RasterLayer) layer).getRasterOpacity().value > 0) {
-                                layer.setProperties(getRasterOpacity(false));
-                            }
-                        }
-                    }
+            if (layer != null && layer != visibleRainViewerLayer) {
+                if (visibleRainViewerLayer != null) {
+                    visibleRainViewerLayer.setProperties(getRasterOpacity(false));
                 }
 
+                layer.setProperties(getRasterOpacity(true));
+                visibleRainViewerLayer = layer;
+            }
+
+            if (radarSlider.getValueTo() - 1f > 0.01f) {
+                radarSlider.setValues((float) currentRainViewerFrame);
+            }
 
-                if (radarSlider.getValueTo() - 1f > 0.01f) {
-                    radarSlider.setValues((float) currentRainViewerFrame);
-                }
+            if (showNext) {
+                int nextRainViewerFrame = (currentRainViewerFrame + 1) % rainViewerTimestamps.size();
+                RainViewerTilePrefetcher tilePrefetcher = RainViewerTilePrefetcher.getInstance(getContext());
 
-                if (showNext) {
-                    currentRainViewerFrame = (currentRainViewerFrame + 1) % rainViewerTimestamps.size();
-                    postDelayed(nextFrameRunnable, ANIMATION_DURATION);
+                //Holds the current frame while the tiles of the next one are downloaded
+                if (tilePrefetcher.isFrameReady(nextRainViewerFrame)) {
+                    currentRainViewerFrame = nextRainViewerFrame;
+                } else {
+                    tilePrefetcher.prioritize(nextRainViewerFrame);
                 }
             }
-        });
+        }
     }
 
     private Promise<String, Void> addRainViewerLayers(Style style, RadarTheme radarTheme, RadarQuality radarQuality) {
-        return new HttpRequest("https://api.rainviewer.com/public/weather-maps.json")
-                .fetchAsync()
+        return Promise.create(RAINVIEWER_MAPS_URL)
+                .then(url -> {
+                    return HttpClient.getInstance().get(url);
+                })
                 .then(s -> {
                     JSONArray rainviewerData = new JSONObject(s)
                             .getJSONObject("radar")
@@ -673,23 +774,34 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
                         throw new RuntimeException("No timestamps from Rainviewer");
                     }
 
+                    final AdaptiveRadarQuality.Level radarLevel =
+                            AdaptiveRadarQuality.getInstance(getContext()).getLevel(radarQuality);
                     final ArrayList<Pair<Long, String>> timestamps = new ArrayList<>();
+                    final ArrayList<String> framePaths = new ArrayList<>();
 
                     JSONObject timestampData;
                     for (int i = 0, l = rainviewerData.length(); i < l; i++) {
                         timestampData = rainviewerData.getJSONObject(i);
 
-                        timestamps.add(new Pair<>(
-                                timestampData.getLong("time"),
-                                timestampData.getString("path")
-                        ));
+                        //The frames are in chronological order, and only the latest are animated
+                        if (i >= l - radarLevel.frameCount) {
+                            timestamps.add(new Pair<>(
+                                    timestampData.getLong("time"),
+                                    timestampData.getString("path")
+                            ));
+                        }
+
+                        framePaths.add(timestampData.getString("path"));
                     }
 
-                    final String radarQualityString = radarQuality == RadarQuality.HIGH ? "512" : "256";
-                    final String radarThemeString = radarTheme.getValue();
+                    //Frames that dropped out of the manifest are never shown again
+                    RainViewerTileCache.getInstance(getContext()).retainFrames(framePaths);
 
                     post(() -> {
-                        if (currentTheme != radarTheme || currentRadarQuality != radarQuality) {
+                        if (currentTheme != radarTheme ||
+                                currentRadarQuality != radarQuality ||
+                                currentRadarLevel == null ||
+                                currentRadarLevel.tileSize != radarLevel.tileSize) {
                             for (Layer l : style.getLayers()) {
                                 if (l.getId().startsWith("radar")) {
                                     style.removeLayer(l);
@@ -703,6 +815,8 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
                             currentRadarQuality = radarQuality;
                         }
 
+                        currentRadarLevel = radarLevel;
+
                         String name;
 
                         Comparator<Pair<Long, String>> c = (a, b) -> Long.compare(a.first, b.first);
@@ -731,12 +845,7 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
                             if (style.getSource(name) == null) {
                                 TileSet tileSet = new TileSet(
                                         "",
-                                        "https://tilecache.rainviewer.com" +
-                                                newRainViewerTimestamp.second + "/" +
-                                                radarQualityString +
-                                                "/{z}/{x}/{y}/" +
-                                                radarThemeString +
-                                                "/1_1.png");
+                                        getTileUrlTemplate(newRainViewerTimestamp.second, radarTheme, radarLevel.tileSize));
                                 tileSet.setAttribution(RAINVIEWER_ATTRIBUTION);
 
                                 style.addSource(new RasterSource(name, tileSet, 256));
@@ -757,6 +866,14 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
                         rainViewerTimestamps.clear();
                         rainViewerTimestamps.addAll(timestamps);
 
+                        rainViewerLayers.clear();
+
+                        for (Pair<Long, String> rainViewerTimestamp : rainViewerTimestamps) {
+                            rainViewerLayers.add(style.getLayer(getLayerName(rainViewerTimestamp.first)));
+                        }
+
+                        visibleRainViewerLayer = lastLayer;
+
                         if (timestamps.size() > 1) {
                             radarSlider.setValueTo(timestamps.size() - 1f);
                             radarSlider.setValues(timestamps.size() - 1f);
@@ -778,6 +895,15 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
         return PropertyFactory.rasterOpacity(opaque ? 1f : 0f);
     }
 
+    private static String getTileUrlTemplate(String path, RadarTheme radarTheme, int tileSize) {
+        return "https://tilecache.rainviewer.com" +
+                path + "/" +
+                tileSize +
+                "/{z}/{x}/{y}/" +
+                radarTheme.getValue() +
+                "/1_1.png";
+    }
+
     private String getLayerName(long timestamp) {
         return "radar" + (Long.MAX_VALUE - timestamp);
     }
@@ -819,102 +945,6 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
         this.onFullscreenClickedListener = onFullscreenClickedListener;
     }
 
-    //based on https://github.com/klokantech/openmaptiles-language
-    private String withStyledLocalizedText(String styleJson, boolean isNightModeActive) throws JSONException {
-        JSONObject styleJsonObj = new JSONObject(styleJson);
-
-        String language = Locale.getDefault().getLanguage();
-        boolean isLatin = !Arrays.asList("ar", "hy", "be", "bg", "zh", "ka", "el", "he",
-                "ja", "kn", "kk", "ko", "mk", "ru", "sr", "th", "uk").contains(language);
-
-        String textField = "{name:" + language + "}\n{name:" + (isLatin ? "nonlatin" : "latin") + "}";
-        JSONArray hasLanguageFilter = new JSONArray("[\"has\",\"name:" + language + "\"]");
-        JSONArray notHasLanguageFilter = new JSONArray("[\"!\", [\"has\",\"name:" + language + "\"]]");
-
-        String textColor = isNightModeActive ? "rgba(255,255,255,0.8)" : "rgba(0,0,0,0.8)";
-        String textHaloColor = isNightModeActive ? "hsl(0, 0%, 20%)" : "rgb(242,243,240)";
-        double textScaling = getTextScaling();
-
-        styleJsonObj.put("sprite", null);
-
-        JSONArray layersArray = styleJsonObj.getJSONArray("layers");
-
-        for (int i = layersArray.length() - 1; i >= 0; i--) {
-            JSONObject layer = layersArray.getJSONObject(i);
-
-            if (layer.optString("type").equals("symbol")) {
-                JSONObject layerPaint = layer.has("paint") ? layer.getJSONObject("paint") : new JSONObject();
-
-                layerPaint.put("text-color", textColor);
-                layerPaint.put("text-halo-color", textHaloColor);
-                layerPaint.put("text-halo-width", 1);
-                layerPaint.put("text-halo-blur", 1);
-
-                layer.put("paint", layerPaint);
-
-                JSONObject layerLayout = layer.getJSONObject("layout");
-
-                if (layerLayout.has("text-size")) {
-                    if (layerLayout.optJSONObject("text-size") == null) {
-                        layerLayout.put("text-size", layerLayout.getDouble("text-size") * textScaling);
-                    } else {
-                        //It's a 2D array
-                        JSONObject textSize = layerLayout.getJSONObject("text-size");
-                        JSONArray textSizeStops = textSize.getJSONArray("stops");
-
-                        for (int j = 0; j < textSizeStops.length(); j++) {
-                            JSONArray textSizeStops2 = textSizeStops.getJSONArray(j);
-                            for (int k = 0; k < textSizeStops2.length(); k++) {
-                                textSizeStops2.put(k, textSizeStops2.getDouble(k) * textScaling);
-                            }
-                            textSizeStops.put(j, textSizeStops2);
-                        }
-
-                        textSize.put("stops", textSizeStops);
-                        layerLayout.put("text-size", textSize);
-                    }
-                } else {
-                    layerLayout.put("text-size", 10 * textScaling);
-                }
-
-                layer.put("layout", layerLayout);
-
-                if (!layer.getJSONArray("filter").toString().startsWith("[\"all\",")) {
-                    layer.put("filter", new JSONArray("[\"all\"," + layer.getJSONArray("filter") + "]"));
-                }
-
-                JSONObject duplicateLayer = new JSONObject(layer.toString());
-
-                JSONArray layerFilter = layer.getJSONArray("filter");
-                layerFilter.put(notHasLanguageFilter);
-                layer.put("filter", layerFilter);
-
-                duplicateLayer.put("id", duplicateLayer.getString("id") + "_" + language);
-
-                JSONArray duplicateLayerFilter = duplicateLayer.getJSONArray("filter");
-                duplicateLayerFilter.put(hasLanguageFilter);
-                duplicateLayer.put("filter", duplicateLayerFilter);
-
-                JSONObject duplicateLayerLayout = duplicateLayer.getJSONObject("layout");
-                duplicateLayerLayout.put("text-field", textField);
-                duplicateLayer.put("layout", duplicateLayerLayout);
-
-                //insert duplicate layer after layer
-                for (int j = layersArray.length() - 1; j >= i + 1; j--) {
-                    layersArray.put(j + 1, layersArray.get(j));
-                }
-
-                layersArray.put(i + 1, duplicateLayer);
-
-                layersArray.put(i, layer);
-            }
-        }
-
-        styleJsonObj.put("layers", layersArray);
-
-        return styleJsonObj.toString();
-    }
-
     private void logError(String message, Exception e) {
         if (snackbarHelper == null) {
             e.printStackTrace();
@@ -949,8 +979,13 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
 
     // TODO Handle failed calls to RainViewer and retry them
     private void setHTTPOptions() {
-        OkHttpClient client = new OkHttpClient.Builder()
+        //Derived from the shared client, so map tiles reuse its connection pool. MapLibre and the
+        //radar tile cache store the tiles, so they are kept out of the API response cache
+        OkHttpClient client = HttpClient.getInstance().getOkHttpClient().newBuilder()
+                .cache(null)
+                .addInterceptor(RainViewerTileCache.getInstance(getContext()).getInterceptor())
                 .addNetworkInterceptor(new CounterInterceptor())
+                .addNetworkInterceptor(AdaptiveRadarQuality.getInstance(getContext()).getInterceptor())
                 .build();
 
         HttpRequestUtil.setOkHttpClient(client);
@@ -1101,8 +1136,13 @@ public class WeatherMapView extends ConstraintLayout implements View.OnClickList
             mapLibreMap.animateCamera(CameraUpdateFactory.zoomBy(-1), ANIMATION_DURATION);
         }
 
+        //The prefetch progress stays visible until the prefetch is complete
         public void updateLoadingIndicator(boolean toVisible) {
-            doAnimation(radarLoadingIndicator, toVisible);
+            if (!isPrefetching) {
+                radarLoadingIndicator.setIndeterminate(true);
+            }
+
+            doAnimation(radarLoadingIndicator, toVisible || isPrefetching);
         }
 
         private void doAnimation(View v, boolean toVisible) {
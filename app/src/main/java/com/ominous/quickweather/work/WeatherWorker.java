@@ -35,10 +35,15 @@ import com.ominous.quickweather.data.WeatherModel;
 import com.ominous.quickweather.data.CurrentWeather;
 import com.ominous.quickweather.pref.WeatherPreferences;
 import com.ominous.quickweather.util.NotificationUtils;
+import com.ominous.tylerutils.http.HttpException;
 
+import org.json.JSONException;
+
+import java.io.IOException;
 import java.util.concurrent.ExecutionException;
 
 public class WeatherWorker extends Worker {
+    private final static String TAG = "WeatherWorker";
     public final static String KEY_ERROR_MESSAGE = "key_error_message", KEY_STACK_TRACE = "key_stack_trace";
 
     public WeatherWorker(@NonNull Context context, @NonNull WorkerParameters workerParams) {
@@ -62,6 +67,8 @@ public class WeatherWorker extends Worker {
         }
 
         switch (weatherModel.status) {
+            //The cached weather was confirmed current, and still has to reach the notifications
+            case NO_NEW_DATA:
             case SUCCESS:
                 if (WeatherPreferences.getInstance(getApplicationContext()).shouldDoGadgetbridgeBroadcast() &&
                         weatherModel.weatherLocation != null &&
@@ -79,6 +86,14 @@ public class WeatherWorker extends Worker {
                     NotificationUtils.updatePersistentNotification(getApplicationContext(), weatherModel.weatherLocation, weatherModel.currentWeather);
                 }
 
+                //Prefetching the other saved locations is best-effort
+                try {
+                    WeatherDataManager.getInstance().prefetchSavedLocations(getApplicationContext());
+                } catch (JSONException | HttpException | IOException | InstantiationException |
+                         IllegalAccessException | RuntimeException e) {
+                    Log.w(TAG, "Could not prefetch saved locations", e);
+                }
+
                 //TODO Worker Success data?
                 return Result.success(Data.EMPTY);
             case ERROR_OTHER:
@@ -90,6 +105,11 @@ public class WeatherWorker extends Worker {
                             getApplicationContext().getString(R.string.error_obtaining_weather),
                             weatherModel.errorMessage);
                 }
+            case ERROR_PROVIDER_UNAVAILABLE:
+                //the circuit breaker is open, so a later attempt fails fast until the provider recovers
+                if (getRunAttemptCount() < 3) {
+                    return Result.retry();
+                }
             case ERROR_LOCATION_DISABLED:
             case ERROR_LOCATION_ACCESS_DISALLOWED:
             default:
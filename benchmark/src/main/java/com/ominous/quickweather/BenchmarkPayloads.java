@@ -0,0 +1,61 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+//The recorded provider responses in the benchmark assets that the benchmarks run against
+public class BenchmarkPayloads {
+    public final static String OPENMETEO_FORECAST = "openmeteo_forecast.json";
+    public final static String OPENWEATHER_ONECALL = "openweather_onecall.json";
+    public final static String OPENWEATHER_FORECAST = "openweather_forecast.json";
+
+    //Coordinates of the recorded responses
+    public final static double LATITUDE = 33.749;
+    public final static double LONGITUDE = -84.388;
+
+    public static String read(String fileName) throws IOException {
+        Context context = InstrumentationRegistry.getInstrumentation().getContext();
+
+        try (InputStream inputStream = context.getAssets().open(fileName)) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+
+            return outputStream.toString(StandardCharsets.UTF_8.name());
+        }
+    }
+
+    //The app's context, for code that needs its resources or database
+    public static Context getTargetContext() {
+        return InstrumentationRegistry.getInstrumentation().getTargetContext();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.ominous.quickweather.BenchmarkPayloads;
+import com.ominous.quickweather.api.openmeteo.OpenMeteoForecast;
+import com.ominous.quickweather.api.openmeteo.OpenMeteoForecastJsonReader;
+import com.ominous.quickweather.api.openweather.OpenWeatherForecast;
+import com.ominous.quickweather.api.openweather.OpenWeatherForecastJsonReader;
+import com.ominous.quickweather.api.openweather.OpenWeatherOneCall;
+import com.ominous.quickweather.api.openweather.OpenWeatherOneCallJsonReader;
+import com.ominous.tylerutils.util.JsonUtils;
+
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+//Compares the generated readers with the reflective JsonUtils path on the payloads in the benchmark assets
+@RunWith(AndroidJUnit4.class)
+public class JsonReaderBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private String openMeteoForecast;
+    private String openWeatherOneCall;
+    private String openWeatherForecast;
+
+    @Before
+    public void loadPayloads() throws IOException {
+        openMeteoForecast = BenchmarkPayloads.read(BenchmarkPayloads.OPENMETEO_FORECAST);
+        openWeatherOneCall = BenchmarkPayloads.read(BenchmarkPayloads.OPENWEATHER_ONECALL);
+        openWeatherForecast = BenchmarkPayloads.read(BenchmarkPayloads.OPENWEATHER_FORECAST);
+    }
+
+    @Test
+    public void openMeteoForecastGenerated() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            JsonReaderUtils.read(new StringReader(openMeteoForecast), OpenMeteoForecastJsonReader::read);
+        }
+    }
+
+    @Test
+    public void openMeteoForecastReflective() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            JsonUtils.deserialize(OpenMeteoForecast.class, new JSONObject(openMeteoForecast));
+        }
+    }
+
+    @Test
+    public void openWeatherOneCallGenerated() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            JsonReaderUtils.read(new StringReader(openWeatherOneCall), OpenWeatherOneCallJsonReader::read);
+        }
+    }
+
+    @Test
+    public void openWeatherOneCallReflective() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            JsonUtils.deserialize(OpenWeatherOneCall.class, new JSONObject(openWeatherOneCall));
+        }
+    }
+
+    @Test
+    public void openWeatherForecastGenerated() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            JsonReaderUtils.read(new StringReader(openWeatherForecast), OpenWeatherForecastJsonReader::read);
+        }
+    }
+
+    @Test
+    public void openWeatherForecastReflective() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            JsonUtils.deserialize(OpenWeatherForecast.class, new JSONObject(openWeatherForecast));
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.api.openmeteo;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.ominous.quickweather.BenchmarkPayloads;
+import com.ominous.quickweather.api.JsonReaderUtils;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.StringReader;
+
+//Turns the recorded forecast into a CurrentWeather: the daily aggregation, hourly slicing and trihourly sampling
+@RunWith(AndroidJUnit4.class)
+public class OpenMeteoTransformBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private Context context;
+    private OpenMeteoForecast openMeteoForecast;
+
+    @Before
+    public void loadPayload() throws Exception {
+        context = BenchmarkPayloads.getTargetContext();
+        openMeteoForecast = JsonReaderUtils.read(
+                new StringReader(BenchmarkPayloads.read(BenchmarkPayloads.OPENMETEO_FORECAST)),
+                OpenMeteoForecastJsonReader::read);
+
+        //the first transform fills the celestial cache from the database, which is not measured
+        OpenMeteo.getInstance().getCurrentWeather(context,
+                BenchmarkPayloads.LATITUDE,
+                BenchmarkPayloads.LONGITUDE,
+                openMeteoForecast);
+    }
+
+    @Test
+    public void transform() {
+        BenchmarkState state = benchmarkRule.getState();
+        OpenMeteo openMeteo = OpenMeteo.getInstance();
+
+        while (state.keepRunning()) {
+            openMeteo.getCurrentWeather(context,
+                    BenchmarkPayloads.LATITUDE,
+                    BenchmarkPayloads.LONGITUDE,
+                    openMeteoForecast);
+        }
+    }
+}
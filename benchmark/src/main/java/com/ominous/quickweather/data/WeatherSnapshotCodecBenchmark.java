@@ -0,0 +1,82 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.data;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.ominous.quickweather.BenchmarkPayloads;
+import com.ominous.quickweather.api.JsonReaderUtils;
+import com.ominous.quickweather.api.openmeteo.OpenMeteo;
+import com.ominous.quickweather.api.openmeteo.OpenMeteoForecastJsonReader;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+//Encodes and decodes the snapshot of the recorded Open-Meteo forecast, as the file cache does
+@RunWith(AndroidJUnit4.class)
+public class WeatherSnapshotCodecBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private WeatherSnapshotCodec weatherSnapshotCodec;
+    private CurrentWeather currentWeather;
+    private ByteBuffer snapshot;
+
+    @Before
+    public void loadPayload() throws Exception {
+        Context context = BenchmarkPayloads.getTargetContext();
+
+        weatherSnapshotCodec = WeatherSnapshotCodec.fromContext(context);
+        currentWeather = OpenMeteo.getInstance().getCurrentWeather(context,
+                BenchmarkPayloads.LATITUDE,
+                BenchmarkPayloads.LONGITUDE,
+                JsonReaderUtils.read(
+                        new StringReader(BenchmarkPayloads.read(BenchmarkPayloads.OPENMETEO_FORECAST)),
+                        OpenMeteoForecastJsonReader::read));
+        snapshot = weatherSnapshotCodec.encode(currentWeather);
+    }
+
+    @Test
+    public void encode() {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            weatherSnapshotCodec.encode(currentWeather);
+        }
+    }
+
+    @Test
+    public void decode() throws Exception {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            weatherSnapshotCodec.decode(snapshot.duplicate());
+        }
+    }
+}
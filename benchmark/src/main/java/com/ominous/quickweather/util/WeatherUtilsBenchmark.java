@@ -0,0 +1,86 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.util;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.ominous.quickweather.BenchmarkPayloads;
+import com.ominous.quickweather.data.PrecipType;
+import com.ominous.quickweather.pref.DistanceUnit;
+import com.ominous.quickweather.pref.SpeedUnit;
+import com.ominous.quickweather.pref.TemperatureUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+//The unit conversions and strings that every card builds for every hour and day
+@RunWith(AndroidJUnit4.class)
+public class WeatherUtilsBenchmark {
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final String[] weatherDescriptions = {"light rain", "mist"};
+
+    private WeatherUtils weatherUtils;
+
+    @Before
+    public void setUp() {
+        weatherUtils = WeatherUtils.getInstance(BenchmarkPayloads.getTargetContext());
+    }
+
+    @Test
+    public void unitConversion() {
+        BenchmarkState state = benchmarkRule.getState();
+        double sum = 0;
+
+        while (state.keepRunning()) {
+            sum += weatherUtils.getTemperature(TemperatureUnit.CELSIUS, 71.3) +
+                    weatherUtils.getSpeed(SpeedUnit.KMH, 12.4);
+        }
+
+        if (Double.isNaN(sum)) {
+            throw new AssertionError();
+        }
+    }
+
+    @Test
+    public void formattedStrings() {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            weatherUtils.getTemperatureString(TemperatureUnit.CELSIUS, 71.3, 1);
+            weatherUtils.getWindSpeedString(SpeedUnit.KMH, 12.4, 225, false);
+            weatherUtils.getPrecipitationString(DistanceUnit.MM, 2.5, PrecipType.RAIN, false);
+        }
+    }
+
+    @Test
+    public void longDescription() {
+        BenchmarkState state = benchmarkRule.getState();
+
+        while (state.keepRunning()) {
+            weatherUtils.getWeatherDescription(weatherDescriptions, 68.2, 12.4, 60, 2.5, PrecipType.RAIN, true);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ *   Copyright 2019 - 2025 Tyler Williamson
+ *
+ *   This file is part of QuickWeather.
+ *
+ *   QuickWeather is free software: you can redistribute it and/or modify
+ *   it under the terms of the GNU General Public License as published by
+ *   the Free Software Foundation, either version 3 of the License, or
+ *   (at your option) any later version.
+ *
+ *   QuickWeather is distributed in the hope that it will be useful,
+ *   but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *   GNU General Public License for more details.
+ *
+ *   You should have received a copy of the GNU General Public License
+ *   along with QuickWeather.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.ominous.quickweather.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+
+/**
+ * Generates reflection-free readers for classes annotated with {@link GenerateJsonReader}.
+ * Field names can be overridden with TylerUtils' {@code @JSONFieldName}, as with {@code JsonUtils}.
+ */
+@SupportedAnnotationTypes("com.ominous.quickweather.processor.GenerateJsonReader")
+public class JsonReaderProcessor extends AbstractProcessor {
+    private final static String JSON_FIELD_NAME = "com.ominous.tylerutils.annotation.JSONFieldName";
+    private final static String JSON_READER = "android.util.JsonReader";
+    private final static String JSON_READER_UTILS = "com.ominous.quickweather.api.JsonReaderUtils";
+    private final static String READER_SUFFIX = "JsonReader";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(GenerateJsonReader.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@GenerateJsonReader can only be applied to classes");
+            } else {
+                try {
+                    generateReader((TypeElement) element);
+                } catch (IOException e) {
+                    error(element, "Could not write reader: " + e.getMessage());
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private void generateReader(TypeElement rootType) throws IOException {
+        String packageName = ((PackageElement) getPackage(rootType)).getQualifiedName().toString();
+        String readerName = rootType.getSimpleName() + READER_SUFFIX;
+
+        //Every DTO type reachable from the root gets its own read method, keyed by qualified name
+        Map<String, TypeElement> types = new LinkedHashMap<>();
+        Map<String, String> methodNames = new LinkedHashMap<>();
+        ArrayDeque<TypeElement> pending = new ArrayDeque<>();
+
+        pending.add(rootType);
+
+        while (!pending.isEmpty()) {
+            TypeElement type = pending.poll();
+            String qualifiedName = type.getQualifiedName().toString();
+
+            if (types.containsKey(qualifiedName)) {
+                continue;
+            }
+
+            if (!hasPublicNoArgConstructor(type)) {
+                error(type, "JSON types need a public no-argument constructor");
+                return;
+            }
+
+            types.put(qualifiedName, type);
+            methodNames.put(qualifiedName, getMethodName(type, rootType, methodNames));
+
+            for (VariableElement field : getReadableFields(type)) {
+                TypeElement fieldType = getObjectType(field.asType());
+
+                if (fieldType != null) {
+                    pending.add(fieldType);
+                }
+            }
+        }
+
+        StringBuilder source = new StringBuilder()
+                .append("// Generated by JsonReaderProcessor. Do not edit.\n")
+                .append("package ").append(packageName).append(";\n\n")
+                .append("public final class ").append(readerName).append(" {\n")
+                .append("    private ").append(readerName).append("() {\n\n    }\n\n");
+
+        String rootName = rootType.getQualifiedName().toString();
+
+        source.append("    public static ").append(rootName).append("[] readArray(").append(JSON_READER)
+                .append(" reader) throws java.io.IOException, org.json.JSONException {\n")
+                .append("        return ").append(JSON_READER_UTILS).append(".readObjectArray(reader, new ")
+                .append(rootName).append("[0], ").append(readerName).append("::read);\n")
+                .append("    }\n");
+
+        for (TypeElement type : types.values()) {
+            source.append('\n');
+
+            if (!appendReadMethod(source, type, type == rootType, readerName, methodNames)) {
+                return;
+            }
+        }
+
+        source.append("}\n");
+
+        try (Writer writer = processingEnv.getFiler()
+                .createSourceFile(packageName + "." + readerName, rootType)
+                .openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private boolean appendReadMethod(StringBuilder source,
+                                     TypeElement type,
+                                     boolean isRoot,
+                                     String readerName,
+                                     Map<String, String> methodNames) {
+        String qualifiedName = type.getQualifiedName().toString();
+
+        source.append("    ").append(isRoot ? "public" : "private").append(" static ").append(qualifiedName)
+                .append(' ').append(methodNames.get(qualifiedName)).append('(').append(JSON_READER)
+                .append(" reader) throws java.io.IOException, org.json.JSONException {\n")
+                .append("        if (").append(JSON_READER_UTILS).append(".skipNull(reader)) {\n")
+                .append("            return null;\n")
+                .append("        }\n\n")
+                .append("        ").append(qualifiedName).append(" result = new ").append(qualifiedName).append("();\n\n")
+                .append("        ").append(JSON_READER_UTILS).append(".beginObject(reader);\n\n")
+                .append("        while (reader.hasNext()) {\n")
+                .append("            switch (reader.nextName()) {\n");
+
+        for (VariableElement field : getReadableFields(type)) {
+            String expression = getReadExpression(field.asType(), readerName, methodNames);
+
+            if (expression == null) {
+                error(field, "Unsupported JSON field type " + field.asType());
+                return false;
+            }
+
+            source.append("                case \"").append(getJsonName(field)).append("\" -> result.")
+                    .append(field.getSimpleName()).append(" = ").append(expression).append(";\n");
+        }
+
+        source.append("                default -> reader.skipValue();\n")
+                .append("            }\n")
+                .append("        }\n\n")
+                .append("        reader.endObject();\n\n")
+                .append("        return result;\n")
+                .append("    }\n");
+
+        return true;
+    }
+
+    private String getReadExpression(TypeMirror type, String readerName, Map<String, String> methodNames) {
+        switch (type.getKind()) {
+            case DOUBLE:
+                return JSON_READER_UTILS + ".nextDouble(reader)";
+            case FLOAT:
+                return "(float) " + JSON_READER_UTILS + ".nextDouble(reader)";
+            case LONG:
+                return JSON_READER_UTILS + ".nextLong(reader)";
+            case INT:
+                return JSON_READER_UTILS + ".nextInt(reader)";
+            case SHORT:
+                return "(short) " + JSON_READER_UTILS + ".nextInt(reader)";
+            case BYTE:
+                return "(byte) " + JSON_READER_UTILS + ".nextInt(reader)";
+            case BOOLEAN:
+                return JSON_READER_UTILS + ".nextBoolean(reader)";
+            case ARRAY:
+                TypeMirror componentType = ((ArrayType) type).getComponentType();
+
+                switch (componentType.getKind()) {
+                    case DOUBLE:
+                        return JSON_READER_UTILS + ".readDoubleArray(reader)";
+                    case INT:
+                        return JSON_READER_UTILS + ".readIntArray(reader)";
+                    case LONG:
+                        return JSON_READER_UTILS + ".readLongArray(reader)";
+                    case DECLARED:
+                        if (isString(componentType)) {
+                            return JSON_READER_UTILS + ".readObjectArray(reader, new String[0], "
+                                    + JSON_READER_UTILS + "::nextString)";
+                        }
+
+                        TypeElement componentElement = getObjectType(componentType);
+
+                        if (componentElement == null) {
+                            return null;
+                        }
+
+                        String componentName = componentElement.getQualifiedName().toString();
+
+                        return JSON_READER_UTILS + ".readObjectArray(reader, new " + componentName + "[0], "
+                                + readerName + "::" + methodNames.get(componentName) + ")";
+                    default:
+                        return null;
+                }
+            case DECLARED:
+                if (isString(type)) {
+                    return JSON_READER_UTILS + ".nextString(reader)";
+                }
+
+                TypeElement element = getObjectType(type);
+
+                return element == null ? null :
+                        methodNames.get(element.getQualifiedName().toString()) + "(reader)";
+            default:
+                return null;
+        }
+    }
+
+    //Returns the DTO class behind an object or object array field, or null for primitives and strings
+    private TypeElement getObjectType(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            type = ((ArrayType) type).getComponentType();
+        }
+
+        if (type.getKind() != TypeKind.DECLARED || isString(type)) {
+            return null;
+        }
+
+        Element element = ((DeclaredType) type).asElement();
+
+        if (element.getKind() != ElementKind.CLASS ||
+                ((TypeElement) element).getQualifiedName().toString().startsWith("java.")) {
+            return null;
+        }
+
+        return (TypeElement) element;
+    }
+
+    private boolean isString(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED &&
+                ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals("java.lang.String");
+    }
+
+    private Iterable<VariableElement> getReadableFields(TypeElement type) {
+        return ElementFilter.fieldsIn(type.getEnclosedElements()).stream()
+                .filter(field -> field.getModifiers().contains(Modifier.PUBLIC) &&
+                        !field.getModifiers().contains(Modifier.STATIC) &&
+                        !field.getModifiers().contains(Modifier.FINAL) &&
+                        !field.getModifiers().contains(Modifier.TRANSIENT))
+                .toList();
+    }
+
+    private String getJsonName(VariableElement field) {
+        for (AnnotationMirror annotationMirror : field.getAnnotationMirrors()) {
+            if (((TypeElement) annotationMirror.getAnnotationType().asElement())
+                    .getQualifiedName().contentEquals(JSON_FIELD_NAME)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                        annotationMirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("name")) {
+                        return entry.getValue().getValue().toString();
+                    }
+                }
+            }
+        }
+
+        return field.getSimpleName().toString();
+    }
+
+    private String getMethodName(TypeElement type, TypeElement rootType, Map<String, String> methodNames) {
+        if (type == rootType) {
+            return "read";
+        }
+
+        String baseName = "read" + type.getSimpleName();
+        String methodName = baseName;
+
+        for (int i = 2; methodNames.containsValue(methodName); i++) {
+            methodName = baseName + i;
+        }
+
+        return methodName;
+    }
+
+    private boolean hasPublicNoArgConstructor(TypeElement type) {
+        if (type.getModifiers().contains(Modifier.ABSTRACT) ||
+                (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC))) {
+            return false;
+        }
+
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Element getPackage(Element element) {
+        while (element.getKind() != ElementKind.PACKAGE) {
+            element = element.getEnclosingElement();
+        }
+
+        return element;
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}